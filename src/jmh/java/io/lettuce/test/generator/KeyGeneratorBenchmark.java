@@ -0,0 +1,59 @@
+package io.lettuce.test.generator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nanoseconds per key for each key generation strategy and key renderer. Run with {@code -prof gc} to compare allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyGeneratorBenchmark {
+
+    private static final String PATTERN = "key-%d";
+
+    private static final int RANGE_MIN = 0;
+
+    private static final int RANGE_MAX = 10000;
+
+    @Param({ "RANDOM", "SEQUENTIAL", "ZIPFIAN", "HOTSPOT" })
+    String strategy;
+
+    @Param({ "FORMAT", "PREFIX", "POOL" })
+    String renderer;
+
+    private AbstractKeyGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = switch (strategy) {
+            case "RANDOM" -> new RandomKeyGenerator(PATTERN, RANGE_MIN, RANGE_MAX);
+            case "SEQUENTIAL" -> new SequentialKeyGenerator(PATTERN, RANGE_MIN, RANGE_MAX);
+            case "ZIPFIAN" -> new ZipfianKeyGenerator(PATTERN, RANGE_MIN, RANGE_MAX, 0.99);
+            case "HOTSPOT" -> new HotspotKeyGenerator(PATTERN, RANGE_MIN, RANGE_MAX, 0.2, 0.8);
+            default -> throw new IllegalArgumentException("Unknown strategy " + strategy);
+        };
+        generator.keyRenderer(KeyRenderer.create(renderer, PATTERN, RANGE_MIN, RANGE_MAX));
+    }
+
+    @Benchmark
+    public String nextKey() {
+        return generator.nextKey();
+    }
+
+}
@@ -0,0 +1,56 @@
+package io.lettuce.test.metrics;
+
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.output.ValueOutput;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.test.config.TestRunProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording a command reported by the connection handler with the {@code lettuce} command recorder, to compare with
+ * {@link MetricsProxyBenchmark}. Only the recording is measured, not the latency tracking of Lettuce itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LettuceCommandRecorderBenchmark {
+
+    private final Command<String, String, String> command = new Command<>(CommandType.GET, new ValueOutput<>(StringCodec.UTF8));
+
+    private CommandLatencyRecorder recorder;
+
+    private long latency;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetricsReporter metricsReporter = new MetricsReporter(registry, registry, null, new TestRunProperties());
+        metricsReporter.enableLettuceCommandRecorder();
+        recorder = metricsReporter.commandLatencyRecorder();
+    }
+
+    @Benchmark
+    public void recordCommand() {
+        // Varying latencies spread the values over the histogram buckets
+        latency = (latency + 997) & 0xFFFFF;
+        recorder.recordCommandLatency(null, null, command, 0, latency);
+    }
+
+}
@@ -0,0 +1,110 @@
+package io.lettuce.test.metrics;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.ValueOutput;
+import io.lettuce.core.protocol.AsyncCommand;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.test.config.TestRunProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of recording a command through {@link MetricsProxy}, compared to calling the commands directly. The commands
+ * complete immediately, so only the proxy and the recording are measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsProxyBenchmark {
+
+    public interface Commands {
+
+        String get(String key);
+
+        RedisFuture<String> getAsync(String key);
+
+    }
+
+    static class CompletedCommands implements Commands {
+
+        private final AsyncCommand<String, String, String> completed = new AsyncCommand<>(
+                new Command<>(CommandType.GET, new ValueOutput<>(StringCodec.UTF8)));
+
+        CompletedCommands() {
+            completed.complete();
+        }
+
+        @Override
+        public String get(String key) {
+            return key;
+        }
+
+        @Override
+        public RedisFuture<String> getAsync(String key) {
+            return completed;
+        }
+
+    }
+
+    private static final String KEY = "key-1";
+
+    // Empty to disable latency by payload size
+    @Param({ "", "1KB,16KB" })
+    String sizeBuckets;
+
+    // metrics.command.recorder
+    @Param({ "micrometer", "hdr" })
+    String recorder;
+
+    private Commands direct;
+
+    private Commands proxied;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetricsReporter metricsReporter = new MetricsReporter(registry, registry, null, new TestRunProperties());
+        if (!sizeBuckets.isEmpty()) {
+            metricsReporter.enableSizeBuckets(sizeBuckets);
+        }
+        if ("hdr".equals(recorder)) {
+            metricsReporter.enableHdrCommandRecorder();
+        }
+
+        direct = new CompletedCommands();
+        proxied = metricsReporter.withMetrics(direct);
+    }
+
+    @Benchmark
+    public String direct() {
+        return direct.get(KEY);
+    }
+
+    @Benchmark
+    public String proxied() {
+        return proxied.get(KEY);
+    }
+
+    @Benchmark
+    public RedisFuture<String> proxiedAsync() {
+        return proxied.getAsync(KEY);
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.lettuce.test.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nanoseconds per payload of {@link PayloadUtils#randomString(int)}, generated once per workload run, and of picking a
+ * preallocated binary payload from a {@link PayloadPool}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+
+    @Param({ "100", "1024", "16384" })
+    int size;
+
+    private PayloadPool pool;
+
+    @Setup
+    public void setup() {
+        pool = new PayloadPool(SizeDistribution.fixed(size), PayloadPool.DEFAULT_POOL_SIZE);
+    }
+
+    @Benchmark
+    public String randomString() {
+        return PayloadUtils.randomString(size);
+    }
+
+    @Benchmark
+    public byte[] payloadPool() {
+        return pool.next();
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.lettuce.test.workloads;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.DefaultWorkloadOptions;
+import io.lettuce.test.config.TestRunProperties;
+import io.lettuce.test.config.WorkloadRunnerConfig.EmbeddedServerConfig;
+import io.lettuce.test.embedded.EmbeddedRedisServer;
+import io.lettuce.test.metrics.MetricsReporter;
+import io.lettuce.test.workloads.async.GetSetAsyncBinaryWorkload;
+import io.lettuce.test.workloads.async.GetSetAsyncWorkload;
+import io.lettuce.test.workloads.async.IncrementAsyncWorkload;
+import io.lettuce.test.workloads.async.MixAsyncWorkload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nanoseconds per command of the async workloads end-to-end, from the workload through Lettuce and the metrics proxy to an
+ * in-process {@link EmbeddedRedisServer} and back. Runs offline, the numbers are the client side ceiling with a minimal server
+ * cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncWorkloadBenchmark {
+
+    private static final int COMMANDS = 1000;
+
+    @Param({ "get_set_async", "get_set_async_binary", "increment_async", "mix" })
+    String workload;
+
+    private EmbeddedRedisServer server;
+
+    private RedisClient client;
+
+    private BaseWorkload task;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new EmbeddedRedisServer(new EmbeddedServerConfig());
+        client = RedisClient.create(RedisURI.create(server.host(), server.port()));
+
+        CommonWorkloadOptions options = DefaultWorkloadOptions.create(Map.of("iterationCount", String.valueOf(COMMANDS)));
+        task = switch (workload) {
+            case "get_set_async" -> new GetSetAsyncWorkload(client.connect(), options);
+            case "get_set_async_binary" -> new GetSetAsyncBinaryWorkload(client.connect(ByteArrayCodec.INSTANCE), options);
+            case "increment_async" -> new IncrementAsyncWorkload(client.connect(), options);
+            case "mix" -> new MixAsyncWorkload(client.connect(), options);
+            default -> throw new IllegalArgumentException("Unknown workload " + workload);
+        };
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        task.metricsReporter(new MetricsReporter(registry, registry, null, new TestRunProperties()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public void run() {
+        task.run();
+    }
+
+}
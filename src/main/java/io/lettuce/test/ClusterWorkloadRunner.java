@@ -1,40 +1,77 @@
 package io.lettuce.test;
 
 import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
 import io.lettuce.core.RedisURI;
 import io.lettuce.core.cluster.ClusterClientOptions;
 import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
 import io.lettuce.core.cluster.ClusterTopologyRefreshOptions.RefreshTrigger;
 import io.lettuce.core.cluster.RedisClusterClient;
 import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
 import io.lettuce.core.resource.ClientResources;
 import io.lettuce.test.config.WorkloadRunnerConfig;
+import io.lettuce.test.config.WorkloadRunnerConfig.ClientOptionsConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.ClusterClientOptionsConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.ClusterClientOptionsConfig.ClusterTopologyRefreshOptionsConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.ClusterClientOptionsConfig.ClusterTopologyRefreshOptionsConfig.AdaptiveRefreshConfig;
+import io.lettuce.test.config.WorkloadRunnerConfig.ClusterClientOptionsConfig.ClusterTopologyRefreshOptionsConfig.PeriodicRefreshConfig;
+import io.lettuce.test.config.WorkloadRunnerConfig.ClusterClientOptionsConfig.ReplicationLagProbeConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.WorkloadConfig;
 import io.lettuce.test.metrics.MetricsReporter;
+import io.lettuce.test.metrics.RoleMetrics;
+import io.lettuce.test.metrics.TopologyRefreshMetrics;
 import io.lettuce.test.workloads.BaseWorkload;
+import io.lettuce.test.workloads.cluster.GetSetAsyncBinaryClusterWorkload;
 import io.lettuce.test.workloads.cluster.GetSetAsyncClusterWorkload;
 import io.lettuce.test.workloads.cluster.GetSetClusterWorkload;
+import io.lettuce.test.workloads.cluster.GetSetReactiveClusterWorkload;
+import io.lettuce.test.workloads.cluster.MixAsyncClusterWorkload;
+import io.lettuce.test.workloads.cluster.MultiKeyClusterWorkload;
 import io.lettuce.test.workloads.cluster.PubSubClusterWorkload;
 import io.lettuce.test.workloads.cluster.RedisCommandsClusterAsyncWorkload;
 import io.lettuce.test.workloads.cluster.RedisCommandsClusterWorkload;
+import io.lettuce.test.workloads.cluster.RedisCommandsReactiveClusterWorkload;
+import io.lettuce.test.workloads.cluster.ReplayClusterWorkload;
+import io.lettuce.test.workloads.replay.ByteBufferCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
 
 public class ClusterWorkloadRunner
         extends WorkloadRunnerBase<RedisClusterClient, StatefulRedisClusterConnection<String, String>> {
 
+    private static final Logger log = LoggerFactory.getLogger(ClusterWorkloadRunner.class);
+
+    // Node selection for reads of all connections, null to read from the upstreams
+    private final ReadFrom readFrom;
+
+    // Started with the first connection when clusterClientOptions.lagProbe is enabled
+    private ReplicationLagProbe lagProbe;
+
     public ClusterWorkloadRunner(WorkloadRunnerConfig config, MetricsReporter metricsReporter) {
         super(config, metricsReporter);
+        ClusterClientOptionsConfig clusterConfig = config.getClusterClientOptions();
+        if (clusterConfig != null && clusterConfig.isTopologyTimeline()) {
+            metricsReporter.enableTopologyTimeline();
+        }
+        this.readFrom = clusterConfig != null && clusterConfig.getReadFrom() != null
+                ? ReadFrom.valueOf(clusterConfig.getReadFrom())
+                : null;
+        if (readFrom != null) {
+            log.info("Reading from {}", clusterConfig.getReadFrom());
+        }
     }
 
     @Override
     protected RedisClusterClient createClient(RedisURI redisUri, WorkloadRunnerConfig config) {
-        ClientResources.Builder resourceBuilder = ClientResources.builder();
-        applyConfig(resourceBuilder, config.getClientOptions());
-        ClientResources resources = resourceBuilder.build();
+        ClientResources resources = clientResources(config.getClientOptions());
 
-        RedisClusterClient clusterClient = RedisClusterClient.create(resources, redisUri);
+        RedisClusterClient clusterClient = new InstrumentedClusterClient(resources, redisUri,
+                metricsReporter().topologyRefreshMetrics());
 
         ClientOptions clientOptions = createClientOptions(config.getClientOptions());
 
@@ -49,7 +86,56 @@ public class ClusterWorkloadRunner
     @Override
     protected StatefulRedisClusterConnection<String, String> createConnection(RedisClusterClient client,
             WorkloadRunnerConfig config) {
-        return client.connect();
+        StatefulRedisClusterConnection<String, String> connection = withReadFrom(client.connect());
+        if (readFrom != null) {
+            metricsReporter().roleMetrics().partitions(connection.getPartitions());
+        }
+
+        ReplicationLagProbeConfig lagProbeConfig = config.getClusterClientOptions() != null
+                ? config.getClusterClientOptions().getLagProbe()
+                : null;
+        if (lagProbeConfig != null && lagProbeConfig.isEnabled()) {
+            synchronized (this) {
+                if (lagProbe == null) {
+                    lagProbe = ReplicationLagProbe.start(withReadFrom(client.connect()), lagProbeConfig, metricsReporter());
+                }
+            }
+        }
+        return connection;
+    }
+
+    private <K, V> StatefulRedisClusterConnection<K, V> withReadFrom(StatefulRedisClusterConnection<K, V> connection) {
+        if (readFrom != null) {
+            connection.setReadFrom(readFrom);
+        }
+        return connection;
+    }
+
+    /**
+     * Adds the latency by role of the serving node when {@code readFrom} is configured, see {@link RoleMetrics}, and the bytes
+     * of the topology replies when the topology refresh is configured, see {@link TopologyRefreshMetrics}.
+     */
+    @Override
+    protected List<CommandLatencyRecorder> commandLatencyRecorders(ClientOptionsConfig config) {
+        List<CommandLatencyRecorder> recorders = super.commandLatencyRecorders(config);
+        if (readFrom != null) {
+            recorders.add(metricsReporter().roleMetrics());
+        }
+        if (this.config.getClusterClientOptions() != null
+                && this.config.getClusterClientOptions().getTopologyRefreshOptions() != null) {
+            recorders.add(metricsReporter().topologyRefreshMetrics());
+        }
+        return recorders;
+    }
+
+    @Override
+    protected Class<?> connectionType() {
+        return StatefulRedisClusterConnection.class;
+    }
+
+    private <K, V> StatefulRedisClusterConnection<K, V> codecConnection(RedisClusterClient client,
+            StatefulRedisClusterConnection<String, String> connection, RedisCodec<K, V> codec) {
+        return codecConnection(client, connection, codec, () -> withReadFrom(client.connect(codec)));
     }
 
     @Override
@@ -59,9 +145,16 @@ public class ClusterWorkloadRunner
         return switch (config.getType()) {
             case "get_set" -> new GetSetClusterWorkload(connection, options);
             case "get_set_async" -> new GetSetAsyncClusterWorkload(connection, options);
+            case "get_set_async_binary" -> new GetSetAsyncBinaryClusterWorkload(
+                    codecConnection(client, connection, ByteArrayCodec.INSTANCE), options);
             case "pub_sub" -> new PubSubClusterWorkload(client, options);
+            case "mix" -> new MixAsyncClusterWorkload(connection, options);
+            case "multi_key_cluster" -> new MultiKeyClusterWorkload(connection, options);
+            case "replay" -> new ReplayClusterWorkload(codecConnection(client, connection, ByteBufferCodec.INSTANCE), options);
             case "redis_commands" -> new RedisCommandsClusterWorkload(connection, options);
             case "redis_commands_async" -> new RedisCommandsClusterAsyncWorkload(connection, options);
+            case "get_set_reactive" -> new GetSetReactiveClusterWorkload(connection, options);
+            case "redis_commands_reactive" -> new RedisCommandsReactiveClusterWorkload(connection, options);
             default -> throw new IllegalArgumentException("Unsupported workload." + config.getType());
         };
     }
@@ -96,7 +189,37 @@ public class ClusterWorkloadRunner
                 }
             }
         }
+
+        if (config.getPeriodic() != null) {
+            PeriodicRefreshConfig periodic = config.getPeriodic();
+            topologyRefreshOptions.enablePeriodicRefresh(periodic.isEnabled());
+            if (periodic.getRefreshPeriod() != null) {
+                topologyRefreshOptions.refreshPeriod(periodic.getRefreshPeriod());
+            }
+        }
+
+        if (config.getDynamicRefreshSources() != null) {
+            topologyRefreshOptions.dynamicRefreshSources(config.getDynamicRefreshSources());
+        }
+
+        if (config.getCloseStaleConnections() != null) {
+            topologyRefreshOptions.closeStaleConnections(config.getCloseStaleConnections());
+        }
+
+        if (config.getRefreshTriggersReconnectAttempts() != null) {
+            topologyRefreshOptions.refreshTriggersReconnectAttempts(config.getRefreshTriggersReconnectAttempts());
+        }
         builder.topologyRefreshOptions(topologyRefreshOptions.build());
     }
 
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (lagProbe != null) {
+                lagProbe.close();
+            }
+        }
+        super.close();
+    }
+
 }
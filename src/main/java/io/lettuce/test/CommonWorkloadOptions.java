@@ -1,11 +1,18 @@
 package io.lettuce.test;
 
+import io.lettuce.test.util.SizeDistribution;
+
 import java.time.Duration;
 
 public interface CommonWorkloadOptions extends WorkloadOptions {
 
     int valueSize();
 
+    /**
+     * Distribution of value sizes, {@code fixed:<valueSize>} unless the {@code valueSizeDistribution} option is set.
+     */
+    SizeDistribution valueSizeDistribution();
+
     int elementsCount();
 
     int iterationCount();
@@ -1,5 +1,8 @@
 package io.lettuce.test;
 
+import io.lettuce.test.util.InFlightWindow;
+import io.lettuce.test.util.PayloadPool;
+import io.lettuce.test.util.SizeDistribution;
 import jakarta.annotation.Nullable;
 
 import java.time.Duration;
@@ -25,6 +28,10 @@ public class DefaultWorkloadOptions implements CommonWorkloadOptions {
     // Size of the tests values
     private final int valueSize;
 
+    // Distribution of value sizes for workloads drawing sizes per command
+    // e.g. "uniform:50-4096" or "weighted:100=90,524288=10", defaults to "fixed:<valueSize>"
+    private final SizeDistribution valueSizeDistribution;
+
     // Number of elements to operate on
     // e.g. How many elements to push with single `lpush` command
     private final int elementsCount;
@@ -73,6 +80,7 @@ public class DefaultWorkloadOptions implements CommonWorkloadOptions {
 
         this.iterationCount = getInteger("iterationCount", DEFAULT_ITERATION_COUNT);
         this.valueSize = getInteger("valueSize", DEFAULT_VALUE_SIZE);
+        this.valueSizeDistribution = SizeDistribution.parse(getString("valueSizeDistribution", "fixed:" + valueSize));
         this.elementsCount = getInteger("elementsCount", DEFAULT_ELEMENTS_COUNT);
         this.getSetRatio = getDouble("getSetRatio", DEFAULT_GET_SET_RATIO);
         this.transactionSize = getInteger("transactionSize", DEFAULT_TRANSACTION_SIZE);
@@ -101,6 +109,11 @@ public class DefaultWorkloadOptions implements CommonWorkloadOptions {
         return valueSize;
     }
 
+    @Override
+    public SizeDistribution valueSizeDistribution() {
+        return valueSizeDistribution;
+    }
+
     @Override
     public int elementsCount() {
         return elementsCount;
@@ -184,6 +197,51 @@ public class DefaultWorkloadOptions implements CommonWorkloadOptions {
 
         public static final int DEFAULT_KEY_RANGE_MAX = 10000;
 
+        // How key indexes are rendered into keys: AUTO, FORMAT, PREFIX or POOL
+        public static final String DEFAULT_KEY_RENDERER = "AUTO";
+
+        // Skew of the ZIPFIAN, SCRAMBLED_ZIPFIAN and LATEST key distributions, between 0 and 1 (exclusive)
+        public static final double DEFAULT_KEY_ZIPFIAN_CONSTANT = 0.99;
+
+        // HOTSPOT: fraction of the key range that is hot
+        public static final double DEFAULT_KEY_HOTSET_FRACTION = 0.2;
+
+        // HOTSPOT: fraction of operations on the hot keys
+        public static final double DEFAULT_KEY_HOT_OPN_FRACTION = 0.8;
+
+        // LATEST: fraction of operations that insert a new latest key
+        public static final double DEFAULT_KEY_LATEST_INSERT_RATIO = 0.05;
+
+        // Cluster workloads: pick keys by slot, NONE, EVEN, NODE (keyTargetNode) or SLOTS (keySlotRange)
+        public static final String DEFAULT_KEY_SLOT_STRATEGY = "NONE";
+
+        // Number of keys per MGET/MSET batch of the multi_key_cluster workload
+        public static final int DEFAULT_BATCH_SIZE = 10;
+
+        // Fraction of multi-key batches sharing a hash tag, so they map to a single slot
+        public static final double DEFAULT_HASH_TAG_RATIO = 0.0;
+
+        // Max number of outstanding commands for async workloads
+        public static final int DEFAULT_MAX_IN_FLIGHT = InFlightWindow.UNBOUNDED;
+
+        // Number of commands per pipeline flush for async workloads, 0 keeps auto-flush enabled
+        public static final int DEFAULT_PIPELINE_DEPTH = 0;
+
+        // Max time between pipeline flushes, zero disables interval flushing
+        public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ZERO;
+
+        // Max number of iterations in flight for reactive workloads
+        public static final int DEFAULT_CONCURRENCY = 256;
+
+        // Max number of preallocated random payloads for binary workloads
+        public static final int DEFAULT_PAYLOAD_POOL_SIZE = PayloadPool.DEFAULT_POOL_SIZE;
+
+        // Weighted commands of the mix workload, e.g. "GET 60%, HGETALL 30%, ZADD 10%"
+        public static final String DEFAULT_COMMAND_MIX = "GET:50,SET:50";
+
+        // Replay speed relative to the recorded timing, 0 replays without delays
+        public static final double DEFAULT_REPLAY_SPEED = 1.0;
+
     }
 
 }
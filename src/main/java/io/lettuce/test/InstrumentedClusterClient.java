@@ -0,0 +1,66 @@
+package io.lettuce.test;
+
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.topology.ClusterTopologyRefresh;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.test.metrics.TopologyRefreshMetrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Cluster client timing each topology refresh, initial, periodic and adaptive alike, into {@link TopologyRefreshMetrics}. A
+ * refresh opens one connection per node it queries: all seed nodes, plus the nodes discovered from their views that answered.
+ */
+class InstrumentedClusterClient extends RedisClusterClient {
+
+    // Assigned by createTopologyRefresh() while the super constructor runs, so it must not have an initializer
+    private TimedTopologyRefresh topologyRefresh;
+
+    InstrumentedClusterClient(ClientResources resources, RedisURI redisUri, TopologyRefreshMetrics metrics) {
+        super(resources, List.of(redisUri));
+        topologyRefresh.metrics = metrics;
+    }
+
+    @Override
+    protected ClusterTopologyRefresh createTopologyRefresh() {
+        topologyRefresh = new TimedTopologyRefresh(super.createTopologyRefresh());
+        return topologyRefresh;
+    }
+
+    private static class TimedTopologyRefresh implements ClusterTopologyRefresh {
+
+        private final ClusterTopologyRefresh delegate;
+
+        private volatile TopologyRefreshMetrics metrics;
+
+        TimedTopologyRefresh(ClusterTopologyRefresh delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public CompletionStage<Map<RedisURI, Partitions>> loadViews(Iterable<RedisURI> seed, Duration connectTimeout,
+                boolean discovery) {
+            int seeds = 0;
+            for (RedisURI ignored : seed) {
+                seeds++;
+            }
+
+            int seedCount = seeds;
+            long start = System.nanoTime();
+            return delegate.loadViews(seed, connectTimeout, discovery).whenComplete((views, error) -> {
+                TopologyRefreshMetrics current = metrics;
+                if (current != null) {
+                    boolean failed = error != null || views == null || views.isEmpty();
+                    current.recordRefresh(System.nanoTime() - start, Math.max(seedCount, failed ? 0 : views.size()), failed);
+                }
+            });
+        }
+
+    }
+
+}
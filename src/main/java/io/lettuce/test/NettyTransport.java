@@ -0,0 +1,65 @@
+package io.lettuce.test;
+
+import io.lettuce.core.resource.EpollProvider;
+import io.lettuce.core.resource.IOUringProvider;
+
+/**
+ * Netty transport used by Lettuce, selected through the {@code clientOptions.transport} option.
+ * <p>
+ * Lettuce picks the best native transport found on the classpath (io_uring, then epoll) and falls back to NIO. The choice is
+ * JVM wide and made once, when the Lettuce transport providers are first loaded, using the {@code io.lettuce.core.epoll} and
+ * {@code io.lettuce.core.iouring} system properties. {@link #select(String)} must therefore run before any client is created.
+ */
+public enum NettyTransport {
+
+    NIO, EPOLL, IOURING;
+
+    private static final String EPOLL_ENABLED_KEY = "io.lettuce.core.epoll";
+
+    private static final String IOURING_ENABLED_KEY = "io.lettuce.core.iouring";
+
+    public static NettyTransport parse(String transport) {
+        try {
+            return valueOf(transport.trim().replace("_", "").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported transport '" + transport + "'. Supported: nio, epoll, iouring", e);
+        }
+    }
+
+    /**
+     * Restricts Lettuce to the given transport.
+     *
+     * @param transport {@code nio}, {@code epoll} or {@code iouring}, {@code null} keeps the Lettuce default
+     * @throws IllegalStateException if the requested native transport is not available
+     */
+    public static void select(String transport) {
+        if (transport == null) {
+            return;
+        }
+
+        NettyTransport selected = parse(transport);
+        System.setProperty(EPOLL_ENABLED_KEY, Boolean.toString(selected == EPOLL));
+        System.setProperty(IOURING_ENABLED_KEY, Boolean.toString(selected == IOURING));
+
+        NettyTransport active = active();
+        if (active != selected) {
+            throw new IllegalStateException("Transport " + selected.name().toLowerCase()
+                    + " is not available, make sure the native library is on the classpath and supported by the OS. Active: "
+                    + active.name().toLowerCase());
+        }
+    }
+
+    /**
+     * @return transport Lettuce uses for new connections
+     */
+    public static NettyTransport active() {
+        if (IOUringProvider.isAvailable()) {
+            return IOURING;
+        }
+        if (EpollProvider.isAvailable()) {
+            return EPOLL;
+        }
+        return NIO;
+    }
+
+}
@@ -0,0 +1,150 @@
+package io.lettuce.test;
+
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.sync.RedisAdvancedClusterCommands;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.test.config.WorkloadRunnerConfig.ClusterClientOptionsConfig.ReplicationLagProbeConfig;
+import io.lettuce.test.metrics.MetricsReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how stale reads routed by {@code readFrom} are. Every interval, writes a new value to one key per shard on the
+ * upstream, then reads it back through the same connection, so through the node {@code readFrom} selects, until the new value
+ * is returned or the timeout expires. The time from the acknowledged write until the value is read, and the number of stale
+ * reads meanwhile, are recorded via {@link MetricsReporter#recordReplicationLag}.
+ */
+class ReplicationLagProbe implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationLagProbe.class);
+
+    static final String KEY_PREFIX = "lag-probe:";
+
+    // Upper bound of the key suffixes tried to find a key served by a node
+    private static final int MAX_KEY_SEARCH = 1_000_000;
+
+    private final StatefulRedisClusterConnection<String, String> connection;
+
+    private final MetricsReporter metricsReporter;
+
+    private final long timeoutNs;
+
+    private final ScheduledExecutorService scheduler;
+
+    // Probe key per upstream node id
+    private final Map<String, String> keys = new HashMap<>();
+
+    private long sequence;
+
+    private ReplicationLagProbe(StatefulRedisClusterConnection<String, String> connection, ReplicationLagProbeConfig config,
+            MetricsReporter metricsReporter) {
+        this.connection = connection;
+        this.metricsReporter = metricsReporter;
+        this.timeoutNs = config.getTimeout().toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replication-lag-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts probing on a dedicated connection, configured with the {@code readFrom} of the workload connections.
+     */
+    static ReplicationLagProbe start(StatefulRedisClusterConnection<String, String> connection,
+            ReplicationLagProbeConfig config, MetricsReporter metricsReporter) {
+        ReplicationLagProbe probe = new ReplicationLagProbe(connection, config, metricsReporter);
+        long intervalNs = config.getInterval().toNanos();
+        probe.scheduler.scheduleWithFixedDelay(probe::probeShards, intervalNs, intervalNs, TimeUnit.NANOSECONDS);
+        log.info("Replication lag probe started. Probing every shard every {} ms", config.getInterval().toMillis());
+        return probe;
+    }
+
+    private void probeShards() {
+        Partitions partitions = connection.getPartitions();
+        for (RedisClusterNode node : partitions) {
+            if (node.getRole() == null || !node.getRole().isUpstream() || node.getSlots().isEmpty()) {
+                continue;
+            }
+
+            try {
+                String key = keyOf(partitions, node);
+                if (key != null) {
+                    probe(address(node), key);
+                }
+            } catch (RuntimeException e) {
+                // Keep probing, the scheduler stops on an uncaught exception
+                log.warn("Replication lag probe of {} failed: {}", address(node), e.getMessage());
+            }
+        }
+    }
+
+    private void probe(String shard, String key) {
+        RedisAdvancedClusterCommands<String, String> redis = connection.sync();
+        String value = Long.toString(++sequence);
+
+        redis.set(key, value);
+        long written = System.nanoTime();
+
+        int staleReads = 0;
+        while (true) {
+            boolean visible = value.equals(redis.get(key));
+            long lagNs = System.nanoTime() - written;
+            if (visible || lagNs >= timeoutNs) {
+                metricsReporter.recordReplicationLag(shard, lagNs, staleReads, visible);
+                return;
+            }
+            staleReads++;
+        }
+    }
+
+    /**
+     * @return a key served by the node, {@code null} if none was found
+     */
+    private String keyOf(Partitions partitions, RedisClusterNode node) {
+        String key = keys.get(node.getNodeId());
+        if (key != null && servedBy(partitions, key, node)) {
+            return key;
+        }
+
+        for (int i = 0; i < MAX_KEY_SEARCH; i++) {
+            String candidate = KEY_PREFIX + i;
+            if (servedBy(partitions, candidate, node)) {
+                keys.put(node.getNodeId(), candidate);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static boolean servedBy(Partitions partitions, String key, RedisClusterNode node) {
+        RedisClusterNode owner = partitions.getPartitionBySlot(SlotHash.getSlot(key));
+        return owner != null && owner.getNodeId().equals(node.getNodeId());
+    }
+
+    private static String address(RedisClusterNode node) {
+        RedisURI uri = node.getUri();
+        return uri != null ? uri.getHost() + ":" + uri.getPort() : node.getNodeId();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        connection.close();
+    }
+
+}
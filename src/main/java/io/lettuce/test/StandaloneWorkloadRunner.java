@@ -4,6 +4,8 @@ import io.lettuce.core.ClientOptions;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.resource.ClientResources;
 import io.lettuce.test.config.WorkloadRunnerConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.WorkloadConfig;
@@ -13,9 +15,15 @@ import io.lettuce.test.workloads.GetSetWorkload;
 import io.lettuce.test.workloads.MultiWorkload;
 import io.lettuce.test.workloads.PubSubWorkload;
 import io.lettuce.test.workloads.RedisCommandsWorkload;
+import io.lettuce.test.workloads.async.GetSetAsyncBinaryWorkload;
 import io.lettuce.test.workloads.async.GetSetAsyncWorkload;
 import io.lettuce.test.workloads.async.IncrementAsyncWorkload;
+import io.lettuce.test.workloads.async.MixAsyncWorkload;
 import io.lettuce.test.workloads.async.RedisCommandsAsyncWorkload;
+import io.lettuce.test.workloads.reactive.GetSetReactiveWorkload;
+import io.lettuce.test.workloads.reactive.RedisCommandsReactiveWorkload;
+import io.lettuce.test.workloads.replay.ByteBufferCodec;
+import io.lettuce.test.workloads.replay.ReplayWorkload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,15 +48,20 @@ public class StandaloneWorkloadRunner extends WorkloadRunnerBase<RedisClient, St
             case "get_set_async" -> new GetSetAsyncWorkload(connection, options);
             case "redis_commands_async" -> new RedisCommandsAsyncWorkload(connection, options);
             case "increment_async" -> new IncrementAsyncWorkload(connection, options);
+            case "mix" -> new MixAsyncWorkload(connection, options);
+            case "get_set_async_binary" -> new GetSetAsyncBinaryWorkload(
+                    codecConnection(client, connection, ByteArrayCodec.INSTANCE), options);
+            case "replay" -> new ReplayWorkload(codecConnection(client, connection, ByteBufferCodec.INSTANCE), options);
+            // reactive
+            case "get_set_reactive" -> new GetSetReactiveWorkload(connection, options);
+            case "redis_commands_reactive" -> new RedisCommandsReactiveWorkload(connection, options);
             default -> throw new IllegalArgumentException("Invalid workload specified for standalone mode." + config.getType());
         };
     }
 
     @Override
     protected RedisClient createClient(RedisURI redisUri, WorkloadRunnerConfig config) {
-        ClientResources.Builder resourceBuilder = ClientResources.builder();
-        applyConfig(resourceBuilder, config.getClientOptions());
-        ClientResources resources = resourceBuilder.build();
+        ClientResources resources = clientResources(config.getClientOptions());
 
         RedisClient client = RedisClient.create(resources, redisUri);
 
@@ -63,4 +76,14 @@ public class StandaloneWorkloadRunner extends WorkloadRunnerBase<RedisClient, St
         return client.connect();
     }
 
+    @Override
+    protected Class<?> connectionType() {
+        return StatefulRedisConnection.class;
+    }
+
+    private <K, V> StatefulRedisConnection<K, V> codecConnection(RedisClient client,
+            StatefulRedisConnection<String, String> connection, RedisCodec<K, V> codec) {
+        return codecConnection(client, connection, codec, () -> client.connect(codec));
+    }
+
 }
@@ -0,0 +1,67 @@
+package io.lettuce.test;
+
+import io.lettuce.test.metrics.MetricsReporter;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reports virtual threads pinned to their carrier thread (e.g. blocking inside {@code synchronized}) using the JFR
+ * {@code jdk.VirtualThreadPinned} event. Each pinning longer than the threshold is recorded via
+ * {@link MetricsReporter#recordVirtualThreadPinned(Duration)}.
+ */
+class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String VIRTUAL_THREAD_PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    static final Duration DEFAULT_THRESHOLD = Duration.ofMillis(20);
+
+    private final RecordingStream stream;
+
+    private VirtualThreadPinningMonitor(RecordingStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Starts monitoring. Returns {@code null} if JFR is not available in this JVM.
+     */
+    static VirtualThreadPinningMonitor start(MetricsReporter metricsReporter, Duration threshold) {
+        try {
+            RecordingStream stream = new RecordingStream();
+            stream.enable(VIRTUAL_THREAD_PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            stream.onEvent(VIRTUAL_THREAD_PINNED_EVENT, event -> {
+                metricsReporter.recordVirtualThreadPinned(event.getDuration());
+                log.debug("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), topFrame(event));
+            });
+            stream.startAsync();
+            log.info("Virtual thread pinning monitor started. Reporting pinning longer than {} ms", threshold.toMillis());
+            return new VirtualThreadPinningMonitor(stream);
+        } catch (IllegalStateException | SecurityException e) {
+            log.warn("JFR is not available. Virtual thread pinning will not be reported.", e);
+            return null;
+        }
+    }
+
+    private static String topFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "<unknown>";
+        }
+
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        return frames.isEmpty() ? "<unknown>"
+                : frames.get(0).getMethod().getType().getName() + "." + frames.get(0).getMethod().getName();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+}
@@ -0,0 +1,170 @@
+package io.lettuce.test;
+
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.support.ConnectionPoolSupport;
+import io.lettuce.test.config.WorkloadRunnerConfig.ConnectionPoolConfig;
+import io.lettuce.test.metrics.MetricsReporter;
+import io.lettuce.test.metrics.OperationStatus;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * Pool of exclusive connections of a single client, used by the pooled connection mode ({@code runner.test.connectionPool}).
+ * <p>
+ * Workloads are created once with a {@link Lease} connection, a proxy delegating to the connection currently borrowed by the
+ * lease. The runner borrows a connection before each workload run and returns it afterwards, so a workload has the connection
+ * to itself for the whole run, as with MULTI/EXEC or blocking commands in a pooled service.
+ */
+class WorkloadConnectionPool<Conn extends StatefulConnection<?, ?>> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadConnectionPool.class);
+
+    private final GenericObjectPool<Conn> pool;
+
+    private final Class<?> connectionType;
+
+    private final MetricsReporter metricsReporter;
+
+    WorkloadConnectionPool(String name, Supplier<Conn> connections, Class<?> connectionType, ConnectionPoolConfig config,
+            int defaultMaxTotal, MetricsReporter metricsReporter) {
+        this.connectionType = connectionType;
+        this.metricsReporter = metricsReporter;
+        this.pool = ConnectionPoolSupport.createGenericObjectPool(connections, poolConfig(config, defaultMaxTotal), false);
+
+        metricsReporter.registerConnectionPool(name, pool);
+        try {
+            pool.preparePool();
+        } catch (Exception e) {
+            log.error("Failed to create {} idle connections for pool {}", pool.getMinIdle(), name, e);
+        }
+    }
+
+    static <Conn extends StatefulConnection<?, ?>> GenericObjectPoolConfig<Conn> poolConfig(ConnectionPoolConfig config,
+            int defaultMaxTotal) {
+        GenericObjectPoolConfig<Conn> poolConfig = new GenericObjectPoolConfig<>();
+        int maxTotal = config.getMaxTotal() != null ? config.getMaxTotal() : defaultMaxTotal;
+        poolConfig.setMaxTotal(maxTotal);
+        poolConfig.setMaxIdle(config.getMaxIdle() != null ? config.getMaxIdle() : maxTotal);
+        if (config.getMinIdle() != null) {
+            poolConfig.setMinIdle(config.getMinIdle());
+        }
+        if (config.getMaxWait() != null) {
+            poolConfig.setMaxWait(config.getMaxWait());
+        }
+        poolConfig.setTestOnBorrow(true);
+        poolConfig.setJmxEnabled(false);
+        return poolConfig;
+    }
+
+    Lease lease() {
+        return new Lease();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * Connection handle of a single workload. Not thread safe, a lease is used by the thread running its workload only.
+     */
+    class Lease implements InvocationHandler {
+
+        private final Conn connection;
+
+        private Conn borrowed;
+
+        private boolean failed;
+
+        @SuppressWarnings("unchecked")
+        private Lease() {
+            this.connection = (Conn) Proxy.newProxyInstance(connectionType.getClassLoader(), new Class<?>[] { connectionType },
+                    this);
+        }
+
+        /**
+         * @return proxy delegating to the borrowed connection
+         */
+        Conn connection() {
+            return connection;
+        }
+
+        void borrow() {
+            Timer.Sample sample = metricsReporter.startTimer();
+            try {
+                borrowed = pool.borrowObject();
+                failed = false;
+                metricsReporter.recordPoolBorrow(sample, OperationStatus.SUCCESS);
+            } catch (NoSuchElementException e) {
+                metricsReporter.recordPoolBorrow(sample, OperationStatus.ERROR);
+                metricsReporter.incrementPoolExhausted();
+                throw new RedisException("Connection pool exhausted: " + e.getMessage(), e);
+            } catch (Exception e) {
+                metricsReporter.recordPoolBorrow(sample, OperationStatus.ERROR);
+                throw new RedisException("Failed to borrow connection from pool", e);
+            }
+        }
+
+        /**
+         * Marks the borrowed connection as broken, it is closed instead of being returned to the pool. A failed workload may
+         * leave the connection in an unknown state, e.g. within a transaction.
+         */
+        void fail() {
+            failed = true;
+        }
+
+        void release() {
+            Conn conn = borrowed;
+            if (conn == null) {
+                return;
+            }
+
+            borrowed = null;
+            try {
+                if (failed) {
+                    pool.invalidateObject(conn);
+                } else {
+                    pool.returnObject(conn);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to release pooled connection {}", conn, e);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                // Identity semantics, the proxy is used as map key (e.g. codec connections)
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + borrowed + "]";
+            }
+
+            if (borrowed == null) {
+                throw new IllegalStateException("No connection borrowed from the pool");
+            }
+
+            try {
+                return method.invoke(borrowed, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+}
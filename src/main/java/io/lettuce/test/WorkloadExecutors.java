@@ -0,0 +1,87 @@
+package io.lettuce.test;
+
+import io.lettuce.test.config.WorkloadRunnerConfig.TestConfig;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the executor that runs workloads, based on {@code runner.test.executor}.
+ * <ul>
+ * <li>{@code platform} (default) - cached pool, one platform thread per workload</li>
+ * <li>{@code fixed} - fixed pool of {@code runner.test.executorThreads} platform threads, at least one per workload. Queued
+ * workloads would only start their duration once a thread frees up, running the test several times as long</li>
+ * <li>{@code virtual} - one virtual thread per workload. Requires Java 21+</li>
+ * </ul>
+ */
+class WorkloadExecutors {
+
+    static final String THREAD_NAME_PREFIX = "workload-";
+
+    enum ExecutorType {
+        PLATFORM, FIXED, VIRTUAL
+    }
+
+    static ExecutorType executorType(TestConfig config) {
+        if (config.getExecutor() == null) {
+            return ExecutorType.PLATFORM;
+        }
+
+        try {
+            return ExecutorType.valueOf(config.getExecutor().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid executor specified: " + config.getExecutor(), e);
+        }
+    }
+
+    static ExecutorService create(TestConfig config) {
+        return switch (executorType(config)) {
+            case PLATFORM -> Executors.newCachedThreadPool(new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+            case FIXED -> Executors.newFixedThreadPool(fixedPoolSize(config),
+                    new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+            case VIRTUAL -> OptionalVirtualThreads.newVirtualThreadPerTaskExecutor(THREAD_NAME_PREFIX);
+        };
+    }
+
+    static int fixedPoolSize(TestConfig config) {
+        int workloads = Math.max(1, config.getClients() * config.getConnectionsPerClient() * config.getThreadsPerConnection());
+        if (config.getExecutorThreads() == null) {
+            return workloads;
+        }
+
+        if (config.getExecutorThreads() < workloads) {
+            throw new IllegalArgumentException(
+                    "The fixed executor needs a thread per workload, but executorThreads is " + config.getExecutorThreads()
+                            + " for " + workloads + " workloads (clients x connectionsPerClient x threadsPerConnection)");
+        }
+        return config.getExecutorThreads();
+    }
+
+    // Virtual threads are only available on Java 21+, while the project targets Java 17.
+    // Resolve the API reflectively so the app still builds and runs on 17 with the platform executors.
+    static class OptionalVirtualThreads {
+
+        static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+            try {
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+                ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+                Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                throw new IllegalStateException("Virtual thread executor requires Java 21+. Running on Java "
+                        + Runtime.version().feature() + ". Use 'platform' or 'fixed' executor instead.", e);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException("Failed to create virtual thread executor.", e);
+            }
+        }
+
+    }
+
+}
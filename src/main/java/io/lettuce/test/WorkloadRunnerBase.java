@@ -8,28 +8,39 @@ import io.lettuce.core.RedisURI;
 import io.lettuce.core.SocketOptions;
 import io.lettuce.core.TimeoutOptions;
 import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.event.AskRedirectionEvent;
+import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.cluster.event.ClusterTopologyChangedEvent;
+import io.lettuce.core.cluster.event.MovedRedirectionEvent;
+import io.lettuce.core.cluster.event.TopologyRefreshEvent;
 import io.lettuce.core.event.Event;
 import io.lettuce.core.event.EventBus;
 import io.lettuce.core.event.connection.DisconnectedEvent;
 import io.lettuce.core.event.connection.ReconnectAttemptEvent;
 import io.lettuce.core.event.connection.ReconnectEventHelper;
 import io.lettuce.core.event.connection.ReconnectFailedEvent;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
 import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
 import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.lettuce.core.protocol.RedisCommand;
 import io.lettuce.core.resource.ClientResources;
 import io.lettuce.core.resource.Delay;
 import io.lettuce.test.config.WorkloadRunnerConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.ClientOptionsConfig;
+import io.lettuce.test.config.WorkloadRunnerConfig.ConnectionPoolConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.MaintenanceEventsConfig;
+import io.lettuce.test.config.WorkloadRunnerConfig.MetricsOptionsConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.SocketOptionsConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.TcpUserTimeoutOptionsConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.TimeoutOptionsConfig;
 import io.lettuce.test.config.WorkloadRunnerConfig.WorkloadConfig;
+import io.lettuce.test.embedded.EmbeddedRedisServer;
 import io.lettuce.test.metrics.ConnectionKey;
 import io.lettuce.test.metrics.MetricsReporter;
 import io.lettuce.test.metrics.MetricsReporter.ReconnectAttemptKey;
 import io.lettuce.test.metrics.OperationStatus;
+import io.lettuce.test.util.RatePacer;
 import io.lettuce.test.workloads.BaseWorkload;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
@@ -40,36 +51,87 @@ import reactor.core.publisher.Flux;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.SocketAddress;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_FLUSH_INTERVAL;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_PIPELINE_DEPTH;
 
 public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn extends StatefulConnection<?, ?>>
         implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(WorkloadRunnerBase.class);
 
+    // Workloads taking their values from the payload pool, the others send a string of valueSize
+    private static final Set<String> PAYLOAD_POOL_WORKLOADS = Set.of("get_set_async_binary");
+
     private final MetricsReporter metricsReporter;
 
     WorkloadRunnerConfig config;
 
-    ExecutorService executor = Executors.newCachedThreadPool();
+    ExecutorService executor;
+
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    // Started when redis.host is 'embedded'
+    private EmbeddedRedisServer embeddedServer;
 
     List<C> clients = new ArrayList<>();
 
+    // Resources passed to clients are not shut down with the client
+    List<ClientResources> clientResources = new ArrayList<>();
+
+    private ClientResources sharedClientResources;
+
+    List<WorkloadConnectionPool<?>> pools = new ArrayList<>();
+
+    // Pooled connection mode only: lease backing each workload connection
+    Map<Conn, WorkloadConnectionPool<Conn>.Lease> leases = new IdentityHashMap<>();
+
+    // Pooled connection mode only: lease of a codec connection pool, borrowed instead of the lease of the workload connection
+    Map<Conn, WorkloadConnectionPool<?>.Lease> codecLeases = new IdentityHashMap<>();
+
+    private record CodecKey(Object owner, RedisCodec<?, ?> codec) {
+    }
+
+    // Connections using another codec than String, opened once per configured connection and codec
+    private final Map<CodecKey, StatefulConnection<?, ?>> codecConnections = new ConcurrentHashMap<>();
+
+    // Pooled connection mode only: pools of connections using another codec than String, one per client and codec
+    private final Map<CodecKey, WorkloadConnectionPool<?>> codecPools = new ConcurrentHashMap<>();
+
     Workloads submittedWorkloads = new Workloads();
 
     public WorkloadRunnerBase(WorkloadRunnerConfig config, MetricsReporter metricsReporter) {
         this.config = config;
         this.metricsReporter = metricsReporter;
+        if (config.getClientOptions() != null) {
+            NettyTransport.select(config.getClientOptions().getTransport());
+        }
+        log.info("Using {} transport", NettyTransport.active().name().toLowerCase());
+        this.executor = WorkloadExecutors.create(config.getTest());
+        if (WorkloadExecutors.executorType(config.getTest()) == WorkloadExecutors.ExecutorType.VIRTUAL) {
+            this.pinningMonitor = VirtualThreadPinningMonitor.start(metricsReporter,
+                    VirtualThreadPinningMonitor.DEFAULT_THRESHOLD);
+        }
     }
 
     public final void run() {
+        validateConfig(config);
+        if (EmbeddedRedisServer.isEmbedded(config.getRedis().getHost())) {
+            startEmbeddedServer(config.getRedis());
+        }
         RedisURI redisUri = buildRedisUri(config.getRedis());
 
         List<List<Conn>> connections = new ArrayList<>();
@@ -80,6 +142,11 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
             if (client != null) {
                 clients.add(client);
 
+                if (pooled()) {
+                    connections.add(createPooledConnections(client, i));
+                    continue;
+                }
+
                 List<Conn> clientConnections = new ArrayList<>();
                 for (int j = 0; j < config.getTest().getConnectionsPerClient(); j++) {
                     Conn conn = tryCreateConnection(client, config);
@@ -110,12 +177,20 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
     private CompletableFuture<Void> executeWorkloads(List<C> clients, List<List<Conn>> connections) {
         List<CompletableFuture<?>> futures = new ArrayList<>();
         WorkloadConfig workloadConfig = config.getTest().getWorkload();
+        RatePacer pacer = createPacer(workloadConfig);
+        // Pooled connections are leases used by a single workload each
+        int threadsPerConnection = pooled() ? 1 : config.getTest().getThreadsPerConnection();
+        int workloadCount = connections.stream().mapToInt(List::size).sum() * threadsPerConnection;
+        int workloadIndex = 0;
         for (int i = 0; i < clients.size(); i++) {
             for (Conn conn : connections.get(i)) {
-                for (int j = 0; j < config.getTest().getThreadsPerConnection(); j++) {
+                for (int j = 0; j < threadsPerConnection; j++) {
                     C client = clients.get(i);
                     BaseWorkload workload = createWorkload(client, conn, workloadConfig);
                     workload.metricsReporter(metricsReporter);
+                    workload.pacer(pacer);
+                    workload.partition(workloadIndex++, workloadCount);
+                    workload = withPooledConnection(workload, conn);
                     BaseWorkload withErrorHandler = withErrorHandler(workload, client, conn, workloadConfig);
 
                     futures.add(submit(withErrorHandler, config.getTest().getWorkload()));
@@ -126,6 +201,81 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
     }
 
+    /**
+     * Rejects workload configurations that would silently measure something else than configured, before connecting.
+     */
+    protected void validateConfig(WorkloadRunnerConfig config) {
+        WorkloadConfig workload = config.getTest().getWorkload();
+        CommonWorkloadOptions options = DefaultWorkloadOptions.create(workload.getOptions());
+        boolean pipelined = options.getInteger("pipelineDepth", DEFAULT_PIPELINE_DEPTH) > 0
+                || !options.getDuration("flushInterval", DEFAULT_FLUSH_INTERVAL).isZero();
+        // Auto-flush is a connection wide setting, a workload closing its pipeline would flush the batches of the others
+        if (pipelined && !pooled() && config.getTest().getThreadsPerConnection() > 1) {
+            throw new IllegalArgumentException("pipelineDepth and flushInterval need a dedicated connection per workload, but "
+                    + "threadsPerConnection is " + config.getTest().getThreadsPerConnection()
+                    + ". Use threadsPerConnection: 1 or the connection pool");
+        }
+        if (options.getString("valueSizeDistribution", null) != null && !PAYLOAD_POOL_WORKLOADS.contains(workload.getType())) {
+            throw new IllegalArgumentException("valueSizeDistribution is only supported by " + PAYLOAD_POOL_WORKLOADS
+                    + " workloads, " + workload.getType() + " sends values of valueSize");
+        }
+        // The connection handler only sees the command once it is written, the wait for the pacer slot would be lost
+        if (metricsReporter.commandLatencyRecorder() != null && workload.getTargetOpsPerSecond() != null
+                && workload.getTargetOpsPerSecond() > 0) {
+            throw new IllegalArgumentException("targetOpsPerSecond is not supported by the lettuce command recorder, "
+                    + "use metrics.command.recorder=hdr for open-loop runs");
+        }
+    }
+
+    private RatePacer createPacer(WorkloadConfig config) {
+        Integer targetOpsPerSecond = config.getTargetOpsPerSecond();
+        if (targetOpsPerSecond == null || targetOpsPerSecond <= 0) {
+            return null;
+        }
+
+        log.info("Open-loop mode enabled. Issuing commands at {} ops/s", targetOpsPerSecond);
+        // Same clock as the latency measurement, which subtracts the intended start time of the slot
+        return new RatePacer(targetOpsPerSecond, metricsReporter.getMeterRegistry().config().clock()::monotonicTime);
+    }
+
+    private boolean pooled() {
+        ConnectionPoolConfig poolConfig = config.getTest().getConnectionPool();
+        return poolConfig != null && poolConfig.isEnabled();
+    }
+
+    /**
+     * Creates the connection pool of a client and one lease per workload thread. The pool holds up to
+     * {@code connectionsPerClient} connections unless {@code maxTotal} is configured, shared by
+     * {@code connectionsPerClient x threadsPerConnection} workloads, the same number of threads as in shared mode.
+     */
+    List<Conn> createPooledConnections(C client, int clientIndex) {
+        int connectionsPerClient = config.getTest().getConnectionsPerClient();
+        WorkloadConnectionPool<Conn> pool = new WorkloadConnectionPool<>("client-" + clientIndex,
+                () -> createPooledConnection(() -> createConnection(client, config)), connectionType(),
+                config.getTest().getConnectionPool(), connectionsPerClient, metricsReporter);
+        pools.add(pool);
+
+        List<Conn> clientConnections = new ArrayList<>();
+        for (int j = 0; j < connectionsPerClient * config.getTest().getThreadsPerConnection(); j++) {
+            WorkloadConnectionPool<Conn>.Lease lease = pool.lease();
+            leases.put(lease.connection(), lease);
+            clientConnections.add(lease.connection());
+        }
+        return clientConnections;
+    }
+
+    private <T> T createPooledConnection(Supplier<T> connect) {
+        Timer.Sample sample = metricsReporter.startTimer();
+        try {
+            T connection = connect.get();
+            metricsReporter.recordSuccessfulConnection(sample);
+            return connection;
+        } catch (RuntimeException e) {
+            metricsReporter.recordFailedConnection(sample);
+            throw e;
+        }
+    }
+
     private C tryCreateClient(RedisURI redisUri, WorkloadRunnerConfig config) {
         try {
             C redisClient = createClient(redisUri, config);
@@ -163,10 +313,19 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
      */
     protected abstract BaseWorkload createWorkload(C client, Conn connection, WorkloadConfig config);
 
+    protected MetricsReporter metricsReporter() {
+        return metricsReporter;
+    }
+
     protected abstract C createClient(RedisURI redisUri, WorkloadRunnerConfig config);
 
     protected abstract Conn createConnection(C client, WorkloadRunnerConfig config);
 
+    /**
+     * @return connection interface implemented by the connections of {@link #createConnection}
+     */
+    protected abstract Class<?> connectionType();
+
     protected CompletableFuture<ContinuousWorkload> submit(BaseWorkload task, WorkloadConfig config) {
         ContinuousWorkload workload = new ContinuousWorkload(task, config);
         CompletableFuture<ContinuousWorkload> future = CompletableFuture.runAsync(workload::run, executor)
@@ -180,6 +339,60 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
         return future;
     }
 
+    /**
+     * Returns the connection using {@code codec} of a workload connection, opened by {@code connect}. In shared mode it is
+     * opened once per workload connection and codec. In pooled mode it is a lease of a pool of codec connections of the client,
+     * sized like the pool of the client, and the workload borrows from that pool instead.
+     */
+    @SuppressWarnings("unchecked")
+    protected <K, V, T extends StatefulConnection<K, V>> T codecConnection(C client, Conn connection, RedisCodec<K, V> codec,
+            Supplier<T> connect) {
+        if (!leases.containsKey(connection)) {
+            return (T) codecConnections.computeIfAbsent(new CodecKey(connection, codec), key -> connect.get());
+        }
+
+        WorkloadConnectionPool<T> pool = (WorkloadConnectionPool<T>) codecPools.computeIfAbsent(new CodecKey(client, codec),
+                key -> {
+                    WorkloadConnectionPool<T> codecPool = new WorkloadConnectionPool<>(
+                            "client-" + clients.indexOf(client) + "-" + codec.getClass().getSimpleName(),
+                            () -> createPooledConnection(connect), connectionType(), config.getTest().getConnectionPool(),
+                            config.getTest().getConnectionsPerClient(), metricsReporter);
+                    pools.add(codecPool);
+                    return codecPool;
+                });
+        WorkloadConnectionPool<T>.Lease lease = pool.lease();
+        codecLeases.put(connection, lease);
+        return lease.connection();
+    }
+
+    /**
+     * Borrows the connection of a pooled workload for each run, from the codec connection pool when the workload uses
+     * {@link #codecConnection}.
+     */
+    BaseWorkload withPooledConnection(BaseWorkload task, Conn conn) {
+        WorkloadConnectionPool<?>.Lease lease = codecLeases.containsKey(conn) ? codecLeases.get(conn) : leases.get(conn);
+        if (lease == null) {
+            return task;
+        }
+
+        return new BaseWorkload(task.options()) {
+
+            @Override
+            public void run() {
+                lease.borrow();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    lease.fail();
+                    throw e;
+                } finally {
+                    lease.release();
+                }
+            }
+
+        };
+    }
+
     private BaseWorkload withErrorHandler(BaseWorkload task, C client, Conn conn, WorkloadConfig config) {
         return new BaseWorkload(task.options()) {
 
@@ -203,10 +416,26 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
         };
     }
 
+    private void startEmbeddedServer(WorkloadRunnerConfig.RedisConfig config) {
+        if (config.isUseTls()) {
+            throw new IllegalArgumentException("The embedded server does not support TLS, disable redis.useTls");
+        }
+
+        try {
+            embeddedServer = new EmbeddedRedisServer(config.getEmbedded());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while starting the embedded server", e);
+        }
+    }
+
     protected RedisURI buildRedisUri(WorkloadRunnerConfig.RedisConfig config) {
+        String host = embeddedServer != null ? embeddedServer.host() : config.getHost();
+        int port = embeddedServer != null ? embeddedServer.port() : config.getPort();
+
         RedisURI.Builder builder = RedisURI.builder();
-        builder.withHost(config.getHost()).withPort(config.getPort()).withDatabase(config.getDatabase())
-                .withSsl(config.isUseTls()).withVerifyPeer(config.isVerifyPeer());
+        builder.withHost(host).withPort(port).withDatabase(config.getDatabase()).withSsl(config.isUseTls())
+                .withVerifyPeer(config.isVerifyPeer());
 
         if (config.getUsername() != null) {
             builder.withAuthentication(config.getUsername(), config.getPassword().toCharArray());
@@ -240,10 +469,26 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
             }
         }
 
+        for (WorkloadConnectionPool<?> pool : pools) {
+            pool.close();
+        }
+
         for (C client : clients) {
             client.shutdown();
         }
 
+        for (ClientResources resources : clientResources) {
+            resources.shutdown();
+        }
+
+        if (pinningMonitor != null) {
+            pinningMonitor.close();
+        }
+
+        if (embeddedServer != null) {
+            embeddedServer.close();
+        }
+
         log.info("Workload Runner stopped.");
     }
 
@@ -267,15 +512,51 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
             } else if (event instanceof ClusterTopologyChangedEvent) {
                 ClusterTopologyChangedEvent ctcEvent = (ClusterTopologyChangedEvent) event;
                 log.info("ClusterTopologyChangedEvent: before={}, after={}", ctcEvent.before(), ctcEvent.after());
+                metricsReporter.recordTopologyChange(ctcEvent.before(), ctcEvent.after());
+            } else if (event instanceof TopologyRefreshEvent) {
+                metricsReporter.recordTopologyRefresh();
+            } else if (event instanceof MovedRedirectionEvent) {
+                metricsReporter.recordRedirection(false, "event");
+            } else if (event instanceof AskRedirectionEvent) {
+                metricsReporter.recordRedirection(true, "event");
             }
         });
     }
 
+    /**
+     * Creates the resources of a new client, or returns the resources shared by all clients when {@code shareClientResources}
+     * is enabled.
+     */
+    protected synchronized ClientResources clientResources(ClientOptionsConfig config) {
+        boolean shared = config != null && Boolean.TRUE.equals(config.getShareClientResources());
+        if (shared && sharedClientResources != null) {
+            return sharedClientResources;
+        }
+
+        ClientResources.Builder resourceBuilder = ClientResources.builder();
+        applyConfig(resourceBuilder, config);
+        applyCommandLatencyRecorders(resourceBuilder, commandLatencyRecorders(config));
+        ClientResources resources = resourceBuilder.build();
+        clientResources.add(resources);
+        if (shared) {
+            sharedClientResources = resources;
+        }
+        return resources;
+    }
+
     protected void applyConfig(ClientResources.Builder resourceBuilder, ClientOptionsConfig config) {
         if (config == null) {
             return;
         }
 
+        if (config.getIoThreadPoolSize() != null) {
+            resourceBuilder.ioThreadPoolSize(config.getIoThreadPoolSize());
+        }
+
+        if (config.getComputationThreadPoolSize() != null) {
+            resourceBuilder.computationThreadPoolSize(config.getComputationThreadPoolSize());
+        }
+
         if (config.getReconnectOptions() != null) {
             applyReconnectOptionsConfig(resourceBuilder, config.getReconnectOptions());
         }
@@ -294,11 +575,49 @@ public abstract class WorkloadRunnerBase<C extends AbstractRedisClient, Conn ext
             // resourceBuilder.connectionMonitor(monitor).build();
             OptionalMicrometerConnectionMonitor.applyMetricsOptionsConfig(resourceBuilder, metricsReporter.getMeterRegistry());
         }
+    }
+
+    /**
+     * @return recorders of the latency of every command as seen by the connection handler, empty to not record it
+     */
+    protected List<CommandLatencyRecorder> commandLatencyRecorders(ClientOptionsConfig config) {
+        List<CommandLatencyRecorder> recorders = new ArrayList<>();
+        MetricsOptionsConfig metricsOptions = config != null ? config.getMetricsOptions() : null;
+        if (metricsOptions != null && Boolean.TRUE.equals(metricsOptions.getCommandLatencyMonitoring())) {
+            recorders.add(new MicrometerCommandLatencyRecorder(metricsReporter.getMeterRegistry(), MicrometerOptions.create()));
+        }
+        CommandLatencyRecorder commands = metricsReporter.commandLatencyRecorder();
+        if (commands != null) {
+            recorders.add(commands);
+        }
+        return recorders;
+    }
+
+    private static void applyCommandLatencyRecorders(ClientResources.Builder resourceBuilder,
+            List<CommandLatencyRecorder> recorders) {
+        if (recorders.size() == 1) {
+            resourceBuilder.commandLatencyRecorder(recorders.get(0));
+        } else if (recorders.size() > 1) {
+            // Forwards both overloads, recorders reading the command and its output need the RedisCommand one
+            resourceBuilder.commandLatencyRecorder(new CommandLatencyRecorder() {
+
+                @Override
+                public void recordCommandLatency(SocketAddress local, SocketAddress remote, RedisCommand<?, ?, ?> command,
+                        long firstResponseLatency, long completionLatency) {
+                    for (CommandLatencyRecorder recorder : recorders) {
+                        recorder.recordCommandLatency(local, remote, command, firstResponseLatency, completionLatency);
+                    }
+                }
+
+                @Override
+                public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                        long firstResponseLatency, long completionLatency) {
+                    for (CommandLatencyRecorder recorder : recorders) {
+                        recorder.recordCommandLatency(local, remote, commandType, firstResponseLatency, completionLatency);
+                    }
+                }
 
-        if (config.getCommandLatencyMonitoring() != null && config.getCommandLatencyMonitoring()) {
-            MicrometerCommandLatencyRecorder monitor = new MicrometerCommandLatencyRecorder(metricsReporter.getMeterRegistry(),
-                    options);
-            resourceBuilder.commandLatencyRecorder(monitor).build();
+            });
         }
     }
 
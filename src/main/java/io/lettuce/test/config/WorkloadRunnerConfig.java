@@ -85,6 +85,9 @@ public class WorkloadRunnerConfig {
 
         private Duration timeout;
 
+        // Embedded server started when host is 'embedded'
+        private EmbeddedServerConfig embedded;
+
         // Getters and Setters
         public String getHost() {
             return host;
@@ -94,6 +97,14 @@ public class WorkloadRunnerConfig {
             this.host = host;
         }
 
+        public EmbeddedServerConfig getEmbedded() {
+            return embedded;
+        }
+
+        public void setEmbedded(EmbeddedServerConfig embedded) {
+            this.embedded = embedded;
+        }
+
         public int getPort() {
             return port;
         }
@@ -163,7 +174,62 @@ public class WorkloadRunnerConfig {
             return "RedisConfig{" + "host='" + host + '\'' + ", port=" + port + ", database=" + database + ", username='"
                     + username + '\'' + ", password='"
                     + Optional.ofNullable(password).map(p -> "*".repeat(p.length())).orElse("") + '\'' + ", useTls=" + useTls
-                    + ", verifyPeer=" + verifyPeer + ", clientName='" + clientName + '\'' + ", timeout=" + timeout + '}';
+                    + ", verifyPeer=" + verifyPeer + ", clientName='" + clientName + '\'' + ", timeout=" + timeout
+                    + ", embedded=" + embedded + '}';
+        }
+
+    }
+
+    public static class EmbeddedServerConfig {
+
+        // Artificial latency added to every reply
+        private Duration latency = Duration.ZERO;
+
+        // Random extra latency, uniformly distributed in 0..jitter. Replies of a connection stay in order
+        private Duration jitter = Duration.ZERO;
+
+        // Server event loop threads. Defaults to the number of available processors
+        private Integer threads;
+
+        // Lock stripes of the in-memory data set
+        private int stripes = 64;
+
+        public Duration getLatency() {
+            return latency;
+        }
+
+        public void setLatency(Duration latency) {
+            this.latency = latency;
+        }
+
+        public Duration getJitter() {
+            return jitter;
+        }
+
+        public void setJitter(Duration jitter) {
+            this.jitter = jitter;
+        }
+
+        public Integer getThreads() {
+            return threads;
+        }
+
+        public void setThreads(Integer threads) {
+            this.threads = threads;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        @Override
+        public String toString() {
+            return "EmbeddedServerConfig{" + "latency=" + latency + ", jitter=" + jitter + ", threads=" + threads + ", stripes="
+                    + stripes + '}';
         }
 
     }
@@ -178,6 +244,15 @@ public class WorkloadRunnerConfig {
 
         private int threadsPerConnection;
 
+        // Executor running the workloads: platform (default), fixed or virtual (Java 21+)
+        private String executor;
+
+        // Pool size of the 'fixed' executor. Defaults to the number of workloads
+        private Integer executorThreads;
+
+        // Borrow an exclusive connection from a pool per workload run instead of sharing fixed connections
+        private ConnectionPoolConfig connectionPool;
+
         private WorkloadConfig workload;
 
         // Getters and Setters
@@ -213,6 +288,30 @@ public class WorkloadRunnerConfig {
             this.threadsPerConnection = threadsPerConnection;
         }
 
+        public String getExecutor() {
+            return executor;
+        }
+
+        public void setExecutor(String executor) {
+            this.executor = executor;
+        }
+
+        public Integer getExecutorThreads() {
+            return executorThreads;
+        }
+
+        public void setExecutorThreads(Integer executorThreads) {
+            this.executorThreads = executorThreads;
+        }
+
+        public ConnectionPoolConfig getConnectionPool() {
+            return connectionPool;
+        }
+
+        public void setConnectionPool(ConnectionPoolConfig connectionPool) {
+            this.connectionPool = connectionPool;
+        }
+
         public WorkloadConfig getWorkload() {
             return workload;
         }
@@ -224,7 +323,72 @@ public class WorkloadRunnerConfig {
         @Override
         public String toString() {
             return "TestConfig{" + "mode='" + mode + '\'' + ", clients=" + clients + ", connectionsPerClient="
-                    + connectionsPerClient + ", workload=" + workload + '}';
+                    + connectionsPerClient + ", threadsPerConnection=" + threadsPerConnection + ", executor='" + executor + '\''
+                    + ", executorThreads=" + executorThreads + ", connectionPool=" + connectionPool + ", workload=" + workload
+                    + '}';
+        }
+
+    }
+
+    public static class ConnectionPoolConfig {
+
+        private boolean enabled;
+
+        // Max connections per client. Defaults to connectionsPerClient
+        private Integer maxTotal;
+
+        // Defaults to maxTotal
+        private Integer maxIdle;
+
+        private Integer minIdle;
+
+        // Borrow timeout. Borrowing fails with a pool exhausted error when no connection is returned in time
+        private Duration maxWait = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMaxTotal() {
+            return maxTotal;
+        }
+
+        public void setMaxTotal(Integer maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+
+        public Integer getMaxIdle() {
+            return maxIdle;
+        }
+
+        public void setMaxIdle(Integer maxIdle) {
+            this.maxIdle = maxIdle;
+        }
+
+        public Integer getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(Integer minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        @Override
+        public String toString() {
+            return "ConnectionPoolConfig{" + "enabled=" + enabled + ", maxTotal=" + maxTotal + ", maxIdle=" + maxIdle
+                    + ", minIdle=" + minIdle + ", maxWait=" + maxWait + '}';
         }
 
     }
@@ -235,6 +399,10 @@ public class WorkloadRunnerConfig {
 
         private Duration maxDuration = Duration.ofSeconds(60);
 
+        // Aggregated command rate across all workload threads. When set, commands are issued on a fixed schedule
+        // (open-loop) and latency is measured from the intended start time of each command.
+        private Integer targetOpsPerSecond;
+
         private Map<String, String> options;
 
         // Getters and Setters
@@ -254,6 +422,14 @@ public class WorkloadRunnerConfig {
             this.maxDuration = maxDuration;
         }
 
+        public Integer getTargetOpsPerSecond() {
+            return targetOpsPerSecond;
+        }
+
+        public void setTargetOpsPerSecond(Integer targetOpsPerSecond) {
+            this.targetOpsPerSecond = targetOpsPerSecond;
+        }
+
         public Map<String, String> getOptions() {
             return options;
         }
@@ -264,7 +440,8 @@ public class WorkloadRunnerConfig {
 
         @Override
         public String toString() {
-            return "WorkloadConfig{" + "type='" + type + '\'' + ", maxDuration=" + maxDuration + ", options=" + options + '}';
+            return "WorkloadConfig{" + "type='" + type + '\'' + ", maxDuration=" + maxDuration + ", targetOpsPerSecond="
+                    + targetOpsPerSecond + ", options=" + options + '}';
         }
 
     }
@@ -275,6 +452,14 @@ public class WorkloadRunnerConfig {
 
         private Boolean validateClusterNodeMembership;
 
+        // Node selection for reads, e.g. upstream, replicaPreferred, lowestLatency, any or subnet:10.0.0.0/16
+        private String readFrom;
+
+        private ReplicationLagProbeConfig lagProbe;
+
+        // Records the impact of topology changes into the run summary
+        private boolean topologyTimeline;
+
         // Getters and Setters
         public ClusterTopologyRefreshOptionsConfig getTopologyRefreshOptions() {
             return topologyRefreshOptions;
@@ -292,15 +477,90 @@ public class WorkloadRunnerConfig {
             this.validateClusterNodeMembership = validateClusterNodeMembership;
         }
 
+        public String getReadFrom() {
+            return readFrom;
+        }
+
+        public void setReadFrom(String readFrom) {
+            this.readFrom = readFrom;
+        }
+
+        public ReplicationLagProbeConfig getLagProbe() {
+            return lagProbe;
+        }
+
+        public void setLagProbe(ReplicationLagProbeConfig lagProbe) {
+            this.lagProbe = lagProbe;
+        }
+
+        public boolean isTopologyTimeline() {
+            return topologyTimeline;
+        }
+
+        public void setTopologyTimeline(boolean topologyTimeline) {
+            this.topologyTimeline = topologyTimeline;
+        }
+
         @Override
         public String toString() {
-            return "ClusterClientOptionsConfig{" + "topologyRefreshOptions=" + topologyRefreshOptions + '}';
+            return "ClusterClientOptionsConfig{" + "topologyRefreshOptions=" + topologyRefreshOptions + ", readFrom='"
+                    + readFrom + '\'' + ", lagProbe=" + lagProbe + ", topologyTimeline=" + topologyTimeline + '}';
+        }
+
+        public static class ReplicationLagProbeConfig {
+
+            private boolean enabled;
+
+            // Time between two probes of every shard
+            private Duration interval = Duration.ofSeconds(1);
+
+            // Time to wait for a write to become visible to reads before counting a timeout
+            private Duration timeout = Duration.ofSeconds(1);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getInterval() {
+                return interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+
+            @Override
+            public String toString() {
+                return "ReplicationLagProbeConfig{" + "enabled=" + enabled + ", interval=" + interval + ", timeout=" + timeout
+                        + '}';
+            }
+
         }
 
         public static class ClusterTopologyRefreshOptionsConfig {
 
             private AdaptiveRefreshConfig adaptive;
 
+            private PeriodicRefreshConfig periodic;
+
+            private Boolean dynamicRefreshSources;
+
+            private Boolean closeStaleConnections;
+
+            private Integer refreshTriggersReconnectAttempts;
+
             public AdaptiveRefreshConfig getAdaptive() {
                 return adaptive;
             }
@@ -309,9 +569,73 @@ public class WorkloadRunnerConfig {
                 this.adaptive = adaptive;
             }
 
+            public PeriodicRefreshConfig getPeriodic() {
+                return periodic;
+            }
+
+            public void setPeriodic(PeriodicRefreshConfig periodic) {
+                this.periodic = periodic;
+            }
+
+            public Boolean getDynamicRefreshSources() {
+                return dynamicRefreshSources;
+            }
+
+            public void setDynamicRefreshSources(Boolean dynamicRefreshSources) {
+                this.dynamicRefreshSources = dynamicRefreshSources;
+            }
+
+            public Boolean getCloseStaleConnections() {
+                return closeStaleConnections;
+            }
+
+            public void setCloseStaleConnections(Boolean closeStaleConnections) {
+                this.closeStaleConnections = closeStaleConnections;
+            }
+
+            public Integer getRefreshTriggersReconnectAttempts() {
+                return refreshTriggersReconnectAttempts;
+            }
+
+            public void setRefreshTriggersReconnectAttempts(Integer refreshTriggersReconnectAttempts) {
+                this.refreshTriggersReconnectAttempts = refreshTriggersReconnectAttempts;
+            }
+
             @Override
             public String toString() {
-                return "ClusterTopologyRefreshOptionsConfig{" + "adaptive=" + adaptive + '}';
+                return "ClusterTopologyRefreshOptionsConfig{" + "adaptive=" + adaptive + ", periodic=" + periodic
+                        + ", dynamicRefreshSources=" + dynamicRefreshSources + ", closeStaleConnections="
+                        + closeStaleConnections + ", refreshTriggersReconnectAttempts=" + refreshTriggersReconnectAttempts
+                        + '}';
+            }
+
+            public static class PeriodicRefreshConfig {
+
+                private boolean enabled;
+
+                private Duration refreshPeriod;
+
+                public boolean isEnabled() {
+                    return enabled;
+                }
+
+                public void setEnabled(boolean enabled) {
+                    this.enabled = enabled;
+                }
+
+                public Duration getRefreshPeriod() {
+                    return refreshPeriod;
+                }
+
+                public void setRefreshPeriod(Duration refreshPeriod) {
+                    this.refreshPeriod = refreshPeriod;
+                }
+
+                @Override
+                public String toString() {
+                    return "PeriodicRefreshConfig{" + "enabled=" + enabled + ", refreshPeriod=" + refreshPeriod + '}';
+                }
+
             }
 
             public static class AdaptiveRefreshConfig {
@@ -379,6 +703,18 @@ public class WorkloadRunnerConfig {
 
         private MetricsOptionsConfig metricsOptions;
 
+        // Netty event loop threads. Defaults to the number of available processors
+        private Integer ioThreadPoolSize;
+
+        // Threads completing futures and running reconnect and refresh tasks. Defaults to the number of available processors
+        private Integer computationThreadPoolSize;
+
+        // Share one ClientResources, and its thread pools, across all clients instead of one per client
+        private Boolean shareClientResources;
+
+        // Netty transport: nio, epoll or iouring. Defaults to the best native transport on the classpath
+        private String transport;
+
         // Getters and Setters
         public Boolean getAutoReconnect() {
             return autoReconnect;
@@ -449,7 +785,9 @@ public class WorkloadRunnerConfig {
             return "ClientOptionsConfig{" + "autoReconnect=" + autoReconnect + ", proactiveRebind=" + maintenanceEventsConfig
                     + ", pingBeforeActivate=" + pingBeforeActivate + ", requestQueueSize=" + requestQueueSize
                     + ", timeoutOptions=" + timeoutOptions + ", socketOptions=" + socketOptions + ", disconnectedBehavior='"
-                    + disconnectedBehavior + '\'' + ", reconnectOptions=" + reconnectOptions + '}';
+                    + disconnectedBehavior + '\'' + ", reconnectOptions=" + reconnectOptions + ", ioThreadPoolSize="
+                    + ioThreadPoolSize + ", computationThreadPoolSize=" + computationThreadPoolSize + ", shareClientResources="
+                    + shareClientResources + ", transport='" + transport + '\'' + '}';
         }
 
         public MetricsOptionsConfig getMetricsOptions() {
@@ -460,6 +798,38 @@ public class WorkloadRunnerConfig {
             this.metricsOptions = metricsOptions;
         }
 
+        public Integer getIoThreadPoolSize() {
+            return ioThreadPoolSize;
+        }
+
+        public void setIoThreadPoolSize(Integer ioThreadPoolSize) {
+            this.ioThreadPoolSize = ioThreadPoolSize;
+        }
+
+        public Integer getComputationThreadPoolSize() {
+            return computationThreadPoolSize;
+        }
+
+        public void setComputationThreadPoolSize(Integer computationThreadPoolSize) {
+            this.computationThreadPoolSize = computationThreadPoolSize;
+        }
+
+        public Boolean getShareClientResources() {
+            return shareClientResources;
+        }
+
+        public void setShareClientResources(Boolean shareClientResources) {
+            this.shareClientResources = shareClientResources;
+        }
+
+        public String getTransport() {
+            return transport;
+        }
+
+        public void setTransport(String transport) {
+            this.transport = transport;
+        }
+
     }
 
     public static class MetricsOptionsConfig {
@@ -0,0 +1,68 @@
+package io.lettuce.test.embedded;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Commands of the {@link EmbeddedRedisServer} with their arity as reported by {@code COMMAND INFO}: positive for an exact
+ * number of arguments, negative for a minimum, both counting the command name.
+ */
+enum Command {
+
+    // Connection
+    HELLO(-1), AUTH(-2), SELECT(2), CLIENT(-2), PING(-1), ECHO(2), QUIT(-1), RESET(1),
+    // Strings and keys
+    GET(2), SET(-3), MGET(-2), MSET(-3), INCR(2), INCRBY(3), DECR(2), DEL(-2), EXISTS(-2),
+    // Lists
+    LPUSH(-3), LPOP(2), LRANGE(4), LTRIM(4),
+    // Hashes, sets and sorted sets
+    HSET(-4), HGET(3), HGETALL(2), SADD(-3), SISMEMBER(3), SMEMBERS(2), ZADD(-4), ZSCORE(3), ZRANGE(-4),
+    // Pub/Sub
+    PUBLISH(3), SUBSCRIBE(-2), UNSUBSCRIBE(-1),
+    // Transactions
+    MULTI(1), EXEC(1), DISCARD(1),
+    // Server
+    DBSIZE(1), FLUSHALL(-1), FLUSHDB(-1), INFO(-1), CLUSTER(-2);
+
+    private static final Map<String, Command> COMMANDS = new HashMap<>();
+
+    static {
+        for (Command command : values()) {
+            COMMANDS.put(command.name(), command);
+        }
+    }
+
+    final int arity;
+
+    Command(int arity) {
+        this.arity = arity;
+    }
+
+    /**
+     * @return the command, {@code null} if not supported
+     */
+    static Command of(byte[] name) {
+        return COMMANDS.get(new String(name, StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT));
+    }
+
+    boolean accepts(int argc) {
+        return arity > 0 ? argc == arity : argc >= -arity;
+    }
+
+    /**
+     * @return {@code true} for the commands RESP2 connections are limited to while subscribed
+     */
+    boolean allowedWhileSubscribed() {
+        return this == SUBSCRIBE || this == UNSUBSCRIBE || this == PING || this == QUIT || this == RESET;
+    }
+
+    /**
+     * @return {@code true} for commands executed right away instead of being queued between {@code MULTI} and {@code EXEC}
+     */
+    boolean controlsTransaction() {
+        return this == MULTI || this == EXEC || this == DISCARD || this == QUIT || this == RESET;
+    }
+
+}
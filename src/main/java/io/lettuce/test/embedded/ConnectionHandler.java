@@ -0,0 +1,649 @@
+package io.lettuce.test.embedded;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the commands of one client connection. All state is confined to the event loop of the connection, messages published
+ * by other connections are handed over through {@link #deliver(String, byte[])}.
+ */
+class ConnectionHandler extends ChannelInboundHandlerAdapter {
+
+    private static final String NODE_ID = "e0bedded00000000000000000000000000000001";
+
+    private final EmbeddedRedisServer server;
+
+    private final DataStore store;
+
+    private final long id;
+
+    private ChannelHandlerContext ctx;
+
+    private int protocol = 2;
+
+    private String name;
+
+    private final Set<String> subscriptions = new LinkedHashSet<>();
+
+    // Commands queued since MULTI, null outside of a transaction
+    private List<List<byte[]>> transaction;
+
+    private boolean transactionFailed;
+
+    private final Deque<DelayedReply> delayedReplies = new ArrayDeque<>();
+
+    private long lastReplyDue;
+
+    private boolean flushPending;
+
+    private boolean closing;
+
+    private record DelayedReply(long due, ByteBuf reply) {
+    }
+
+    ConnectionHandler(EmbeddedRedisServer server) {
+        this.server = server;
+        this.store = server.store();
+        this.id = server.nextClientId();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        server.connections().add(this);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        server.connections().remove(this);
+        subscriptions.forEach(channel -> server.unsubscribe(channel, this));
+        subscriptions.clear();
+        delayedReplies.forEach(delayed -> ReferenceCountUtil.release(delayed.reply()));
+        delayedReplies.clear();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (closing) {
+            return;
+        }
+
+        ByteBuf out = ctx.alloc().buffer();
+        dispatch((List<byte[]>) msg, out);
+        reply(out, false);
+        if (closing) {
+            closeAfterReplies();
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        if (flushPending) {
+            flushPending = false;
+            ctx.flush();
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        // Like redis-server, answer protocol errors and drop the connection
+        if (cause instanceof DecoderException && !closing) {
+            ByteBuf out = ctx.alloc().buffer();
+            RespWriter.error(out, "ERR " + cause.getMessage());
+            closing = true;
+            reply(out, true);
+            closeAfterReplies();
+            return;
+        }
+        ctx.close();
+    }
+
+    /**
+     * Sends a Pub/Sub message, called from the event loop of the publishing connection.
+     */
+    void deliver(String channel, byte[] message) {
+        ctx.executor().execute(() -> {
+            if (!ctx.channel().isActive() || !subscriptions.contains(channel)) {
+                return;
+            }
+
+            ByteBuf out = ctx.alloc().buffer();
+            RespWriter.push(out, protocol, 3);
+            RespWriter.bulk(out, protocol, "message");
+            RespWriter.bulk(out, protocol, channel);
+            RespWriter.bulk(out, protocol, message);
+            reply(out, true);
+        });
+    }
+
+    private void dispatch(List<byte[]> args, ByteBuf out) {
+        Command command = Command.of(args.get(0));
+        String name = new String(args.get(0), StandardCharsets.UTF_8);
+        if (command == null) {
+            failCommand(out, "ERR unknown command '" + name + "', with args beginning with: " + describe(args));
+            return;
+        }
+        if (!command.accepts(args.size())) {
+            failCommand(out, "ERR wrong number of arguments for '" + name.toLowerCase(Locale.ROOT) + "' command");
+            return;
+        }
+        if (protocol < 3 && !subscriptions.isEmpty() && !command.allowedWhileSubscribed()) {
+            RespWriter.error(out, "ERR Can't execute '" + name.toLowerCase(Locale.ROOT)
+                    + "': only (P|S)SUBSCRIBE / (P|S)UNSUBSCRIBE / PING / QUIT / RESET are allowed in this context");
+            return;
+        }
+        if (transaction != null && !command.controlsTransaction()) {
+            transaction.add(args);
+            RespWriter.simple(out, "QUEUED");
+            return;
+        }
+
+        execute(command, args, out);
+    }
+
+    /**
+     * Answers a command rejected before execution, which also aborts the current transaction.
+     */
+    private void failCommand(ByteBuf out, String message) {
+        if (transaction != null) {
+            transactionFailed = true;
+        }
+        RespWriter.error(out, message);
+    }
+
+    private void execute(Command command, List<byte[]> args, ByteBuf out) {
+        try {
+            switch (command) {
+                case HELLO -> hello(args, out);
+                case AUTH, SELECT -> RespWriter.simple(out, "OK");
+                case CLIENT -> client(args, out);
+                case PING -> ping(args, out);
+                case ECHO -> RespWriter.bulk(out, protocol, args.get(1));
+                case QUIT -> {
+                    closing = true;
+                    RespWriter.simple(out, "OK");
+                }
+                case RESET -> reset(out);
+                case GET -> RespWriter.bulk(out, protocol, store.get(args.get(1)));
+                case SET -> set(args, out);
+                case MGET -> mget(args, out);
+                case MSET -> mset(args, out);
+                case INCR -> RespWriter.integer(out, store.incrBy(args.get(1), 1));
+                case INCRBY -> RespWriter.integer(out, store.incrBy(args.get(1), parseLong(args.get(2))));
+                case DECR -> RespWriter.integer(out, store.incrBy(args.get(1), -1));
+                case DEL -> RespWriter.integer(out, args.subList(1, args.size()).stream().filter(store::del).count());
+                case EXISTS -> RespWriter.integer(out, args.subList(1, args.size()).stream().filter(store::exists).count());
+                case LPUSH -> RespWriter.integer(out, store.lpush(args.get(1), args.subList(2, args.size())));
+                case LPOP -> RespWriter.bulk(out, protocol, store.lpop(args.get(1)));
+                case LRANGE -> lrange(args, out);
+                case LTRIM -> {
+                    store.ltrim(args.get(1), parseLong(args.get(2)), parseLong(args.get(3)));
+                    RespWriter.simple(out, "OK");
+                }
+                case HSET -> hset(args, out);
+                case HGET -> RespWriter.bulk(out, protocol, store.hget(args.get(1), args.get(2)));
+                case HGETALL -> hgetall(args, out);
+                case SADD -> RespWriter.integer(out, store.sadd(args.get(1), args.subList(2, args.size())));
+                case SISMEMBER -> RespWriter.integer(out, store.sismember(args.get(1), args.get(2)) ? 1 : 0);
+                case SMEMBERS -> smembers(args, out);
+                case ZADD -> zadd(args, out);
+                case ZSCORE -> zscore(args, out);
+                case ZRANGE -> zrange(args, out);
+                case PUBLISH -> RespWriter.integer(out, server.publish(string(args.get(1)), args.get(2)));
+                case SUBSCRIBE -> subscribe(args, out);
+                case UNSUBSCRIBE -> unsubscribe(args, out);
+                case MULTI -> multi(out);
+                case EXEC -> exec(out);
+                case DISCARD -> discard(out);
+                case DBSIZE -> RespWriter.integer(out, store.size());
+                case FLUSHALL, FLUSHDB -> {
+                    store.flushAll();
+                    RespWriter.simple(out, "OK");
+                }
+                case INFO -> RespWriter.bulk(out, protocol, info());
+                case CLUSTER -> cluster(args, out);
+            }
+        } catch (RespException e) {
+            RespWriter.error(out, e.getMessage());
+        }
+    }
+
+    private void hello(List<byte[]> args, ByteBuf out) {
+        if (args.size() > 1) {
+            long version;
+            try {
+                version = parseLong(args.get(1));
+            } catch (RespException e) {
+                throw new RespException("ERR Protocol version is not an integer or out of range");
+            }
+            if (version != 2 && version != 3) {
+                throw new RespException("NOPROTO unsupported protocol version");
+            }
+
+            for (int i = 2; i < args.size(); i++) {
+                String option = string(args.get(i)).toUpperCase(Locale.ROOT);
+                if (option.equals("AUTH") && i + 2 < args.size()) {
+                    i += 2;
+                } else if (option.equals("SETNAME") && i + 1 < args.size()) {
+                    name = string(args.get(++i));
+                } else {
+                    throw new RespException("ERR Syntax error in HELLO option '" + option.toLowerCase(Locale.ROOT) + "'");
+                }
+            }
+            protocol = (int) version;
+        }
+
+        RespWriter.map(out, protocol, 7);
+        RespWriter.bulk(out, protocol, "server");
+        RespWriter.bulk(out, protocol, "redis");
+        RespWriter.bulk(out, protocol, "version");
+        RespWriter.bulk(out, protocol, "7.4.0");
+        RespWriter.bulk(out, protocol, "proto");
+        RespWriter.integer(out, protocol);
+        RespWriter.bulk(out, protocol, "id");
+        RespWriter.integer(out, id);
+        RespWriter.bulk(out, protocol, "mode");
+        RespWriter.bulk(out, protocol, "standalone");
+        RespWriter.bulk(out, protocol, "role");
+        RespWriter.bulk(out, protocol, "master");
+        RespWriter.bulk(out, protocol, "modules");
+        RespWriter.array(out, 0);
+    }
+
+    private void client(List<byte[]> args, ByteBuf out) {
+        switch (string(args.get(1)).toUpperCase(Locale.ROOT)) {
+            case "ID" -> RespWriter.integer(out, id);
+            case "GETNAME" -> RespWriter.bulk(out, protocol, name);
+            case "SETNAME" -> {
+                if (args.size() != 3) {
+                    throw new RespException("ERR wrong number of arguments for 'client|setname' command");
+                }
+                name = string(args.get(2));
+                RespWriter.simple(out, "OK");
+            }
+            case "LIST" -> {
+                StringBuilder list = new StringBuilder();
+                for (ConnectionHandler connection : server.connections()) {
+                    list.append(connection.describeClient()).append('\n');
+                }
+                RespWriter.bulk(out, protocol, list.toString());
+            }
+            // SETINFO, TRACKING, NO-EVICT, ... are accepted and ignored
+            default -> RespWriter.simple(out, "OK");
+        }
+    }
+
+    private String describeClient() {
+        return "id=" + id + " addr=" + ctx.channel().remoteAddress() + " name=" + (name != null ? name : "") + " db=0 sub="
+                + subscriptions.size() + " multi=" + (transaction != null ? transaction.size() : -1) + " resp=" + protocol;
+    }
+
+    private void ping(List<byte[]> args, ByteBuf out) {
+        if (protocol < 3 && !subscriptions.isEmpty()) {
+            RespWriter.array(out, 2);
+            RespWriter.bulk(out, protocol, "pong");
+            RespWriter.bulk(out, protocol, args.size() > 1 ? args.get(1) : new byte[0]);
+        } else if (args.size() > 1) {
+            RespWriter.bulk(out, protocol, args.get(1));
+        } else {
+            RespWriter.simple(out, "PONG");
+        }
+    }
+
+    private void reset(ByteBuf out) {
+        transaction = null;
+        transactionFailed = false;
+        subscriptions.forEach(channel -> server.unsubscribe(channel, this));
+        subscriptions.clear();
+        protocol = 2;
+        name = null;
+        RespWriter.simple(out, "RESET");
+    }
+
+    private void set(List<byte[]> args, ByteBuf out) {
+        boolean onlyIfAbsent = false;
+        boolean onlyIfPresent = false;
+        for (int i = 3; i < args.size(); i++) {
+            String option = string(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "NX" -> onlyIfAbsent = true;
+                case "XX" -> onlyIfPresent = true;
+                case "EX", "PX", "EXAT", "PXAT", "KEEPTTL" -> throw new RespException(
+                        "ERR expiration is not supported by the embedded server");
+                default -> throw new RespException("ERR syntax error");
+            }
+        }
+        if (onlyIfAbsent && onlyIfPresent) {
+            throw new RespException("ERR syntax error");
+        }
+
+        if (store.set(args.get(1), args.get(2), onlyIfAbsent, onlyIfPresent)) {
+            RespWriter.simple(out, "OK");
+        } else {
+            RespWriter.nil(out, protocol);
+        }
+    }
+
+    private void mget(List<byte[]> args, ByteBuf out) {
+        RespWriter.array(out, args.size() - 1);
+        for (byte[] key : args.subList(1, args.size())) {
+            byte[] value;
+            try {
+                value = store.get(key);
+            } catch (RespException e) {
+                // MGET replies nil for keys holding another type
+                value = null;
+            }
+            RespWriter.bulk(out, protocol, value);
+        }
+    }
+
+    private void mset(List<byte[]> args, ByteBuf out) {
+        if (args.size() % 2 == 0) {
+            throw new RespException("ERR wrong number of arguments for 'mset' command");
+        }
+
+        // Atomic like EXEC, no other command sees some of the keys set
+        store.exclusive(() -> {
+            for (int i = 1; i < args.size(); i += 2) {
+                store.set(args.get(i), args.get(i + 1), false, false);
+            }
+            return null;
+        });
+        RespWriter.simple(out, "OK");
+    }
+
+    private void lrange(List<byte[]> args, ByteBuf out) {
+        List<byte[]> values = store.lrange(args.get(1), parseLong(args.get(2)), parseLong(args.get(3)));
+        RespWriter.array(out, values.size());
+        values.forEach(value -> RespWriter.bulk(out, protocol, value));
+    }
+
+    private void hset(List<byte[]> args, ByteBuf out) {
+        if (args.size() % 2 != 0) {
+            throw new RespException("ERR wrong number of arguments for 'hset' command");
+        }
+        RespWriter.integer(out, store.hset(args.get(1), args.subList(2, args.size())));
+    }
+
+    private void hgetall(List<byte[]> args, ByteBuf out) {
+        Map<String, byte[]> hash = store.hgetall(args.get(1));
+        RespWriter.map(out, protocol, hash.size());
+        hash.forEach((field, value) -> {
+            RespWriter.bulk(out, protocol, field.getBytes(StandardCharsets.ISO_8859_1));
+            RespWriter.bulk(out, protocol, value);
+        });
+    }
+
+    private void smembers(List<byte[]> args, ByteBuf out) {
+        List<String> members = store.smembers(args.get(1));
+        RespWriter.array(out, members.size());
+        members.forEach(member -> RespWriter.bulk(out, protocol, member.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private void zadd(List<byte[]> args, ByteBuf out) {
+        if (args.size() % 2 != 0) {
+            if (Character.isLetter(args.get(2)[0])) {
+                throw new RespException("ERR ZADD options are not supported by the embedded server");
+            }
+            throw new RespException("ERR syntax error");
+        }
+
+        int pairs = (args.size() - 2) / 2;
+        double[] scores = new double[pairs];
+        List<byte[]> members = new ArrayList<>(pairs);
+        for (int i = 0; i < pairs; i++) {
+            scores[i] = parseScore(args.get(2 + i * 2));
+            members.add(args.get(3 + i * 2));
+        }
+        RespWriter.integer(out, store.zadd(args.get(1), scores, members));
+    }
+
+    private void zscore(List<byte[]> args, ByteBuf out) {
+        Double score = store.zscore(args.get(1), args.get(2));
+        RespWriter.bulk(out, protocol, score != null ? formatScore(score) : null);
+    }
+
+    private void zrange(List<byte[]> args, ByteBuf out) {
+        boolean withScores = false;
+        for (int i = 4; i < args.size(); i++) {
+            String option = string(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "WITHSCORES" -> withScores = true;
+                case "BYSCORE", "BYLEX", "REV", "LIMIT" -> throw new RespException(
+                        "ERR ZRANGE " + option + " is not supported by the embedded server");
+                default -> throw new RespException("ERR syntax error");
+            }
+        }
+
+        List<DataStore.ScoredMember> members = store.zrange(args.get(1), parseLong(args.get(2)), parseLong(args.get(3)));
+        RespWriter.array(out, withScores ? members.size() * 2 : members.size());
+        for (DataStore.ScoredMember member : members) {
+            RespWriter.bulk(out, protocol, member.memberBytes());
+            if (withScores) {
+                RespWriter.bulk(out, protocol, formatScore(member.score()));
+            }
+        }
+    }
+
+    private void subscribe(List<byte[]> args, ByteBuf out) {
+        for (byte[] channel : args.subList(1, args.size())) {
+            String subscribed = string(channel);
+            if (subscriptions.add(subscribed)) {
+                server.subscribe(subscribed, this);
+            }
+            RespWriter.push(out, protocol, 3);
+            RespWriter.bulk(out, protocol, "subscribe");
+            RespWriter.bulk(out, protocol, channel);
+            RespWriter.integer(out, subscriptions.size());
+        }
+    }
+
+    private void unsubscribe(List<byte[]> args, ByteBuf out) {
+        List<String> channels = new ArrayList<>();
+        if (args.size() > 1) {
+            args.subList(1, args.size()).forEach(channel -> channels.add(string(channel)));
+        } else {
+            channels.addAll(subscriptions);
+        }
+
+        if (channels.isEmpty()) {
+            RespWriter.push(out, protocol, 3);
+            RespWriter.bulk(out, protocol, "unsubscribe");
+            RespWriter.nil(out, protocol);
+            RespWriter.integer(out, 0);
+            return;
+        }
+
+        for (String channel : channels) {
+            if (subscriptions.remove(channel)) {
+                server.unsubscribe(channel, this);
+            }
+            RespWriter.push(out, protocol, 3);
+            RespWriter.bulk(out, protocol, "unsubscribe");
+            RespWriter.bulk(out, protocol, channel);
+            RespWriter.integer(out, subscriptions.size());
+        }
+    }
+
+    private void multi(ByteBuf out) {
+        if (transaction != null) {
+            throw new RespException("ERR MULTI calls can not be nested");
+        }
+        transaction = new ArrayList<>();
+        transactionFailed = false;
+        RespWriter.simple(out, "OK");
+    }
+
+    private void exec(ByteBuf out) {
+        if (transaction == null) {
+            throw new RespException("ERR EXEC without MULTI");
+        }
+
+        List<List<byte[]>> queued = transaction;
+        boolean failed = transactionFailed;
+        transaction = null;
+        transactionFailed = false;
+        if (failed) {
+            throw new RespException("EXECABORT Transaction discarded because of previous errors.");
+        }
+
+        RespWriter.array(out, queued.size());
+        store.exclusive(() -> {
+            for (List<byte[]> args : queued) {
+                execute(Command.of(args.get(0)), args, out);
+            }
+            return null;
+        });
+    }
+
+    private void discard(ByteBuf out) {
+        if (transaction == null) {
+            throw new RespException("ERR DISCARD without MULTI");
+        }
+        transaction = null;
+        transactionFailed = false;
+        RespWriter.simple(out, "OK");
+    }
+
+    private String info() {
+        return "# Server\r\nredis_version:7.4.0\r\nredis_mode:standalone\r\ntcp_port:" + server.port() + "\r\n\r\n"
+                + "# Clients\r\nconnected_clients:" + server.connections().size() + "\r\n\r\n"
+                + "# Replication\r\nrole:master\r\nconnected_slaves:0\r\n\r\n" + "# Keyspace\r\ndb0:keys=" + store.size()
+                + ",expires=0,avg_ttl=0\r\n";
+    }
+
+    private void cluster(List<byte[]> args, ByteBuf out) {
+        switch (string(args.get(1)).toUpperCase(Locale.ROOT)) {
+            case "MYID" -> RespWriter.bulk(out, protocol, NODE_ID);
+            case "NODES" -> RespWriter.bulk(out, protocol, NODE_ID + " " + server.host() + ":" + server.port() + "@"
+                    + (server.port() + 10000) + " myself,master - 0 0 1 connected 0-16383\n");
+            case "INFO" -> RespWriter.bulk(out, protocol,
+                    "cluster_enabled:1\r\ncluster_state:ok\r\ncluster_slots_assigned:16384\r\ncluster_slots_ok:16384\r\n"
+                            + "cluster_known_nodes:1\r\ncluster_size:1\r\ncluster_current_epoch:1\r\ncluster_my_epoch:1\r\n");
+            default -> throw new RespException("ERR unknown subcommand '" + string(args.get(1)) + "'. Try CLUSTER HELP.");
+        }
+    }
+
+    /**
+     * Writes a reply, delayed by the configured latency and jitter. Delayed replies are queued with non-decreasing due times so
+     * they leave in command order even when the jitter of a later reply is smaller.
+     */
+    private void reply(ByteBuf out, boolean flush) {
+        if (!server.delaysReplies()) {
+            ctx.write(out);
+            if (flush) {
+                ctx.flush();
+            } else {
+                flushPending = true;
+            }
+            return;
+        }
+
+        long now = System.nanoTime();
+        long due = Math.max(now + server.replyDelayNanos(), lastReplyDue);
+        lastReplyDue = due;
+        delayedReplies.add(new DelayedReply(due, out));
+        if (delayedReplies.size() == 1) {
+            ctx.executor().schedule(this::writeDueReplies, due - now, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeDueReplies() {
+        long now = System.nanoTime();
+        boolean written = false;
+        while (!delayedReplies.isEmpty() && delayedReplies.peekFirst().due() <= now) {
+            ctx.write(delayedReplies.pollFirst().reply());
+            written = true;
+        }
+        if (written) {
+            ctx.flush();
+        }
+
+        if (!delayedReplies.isEmpty()) {
+            ctx.executor().schedule(this::writeDueReplies, delayedReplies.peekFirst().due() - now, TimeUnit.NANOSECONDS);
+        } else if (closing) {
+            closeAfterReplies();
+        }
+    }
+
+    private void closeAfterReplies() {
+        if (delayedReplies.isEmpty()) {
+            ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private static long parseLong(byte[] value) {
+        try {
+            return Long.parseLong(string(value));
+        } catch (NumberFormatException e) {
+            throw new RespException("ERR value is not an integer or out of range");
+        }
+    }
+
+    private static double parseScore(byte[] value) {
+        String score = string(value).toLowerCase(Locale.ROOT);
+        try {
+            double parsed = switch (score) {
+                case "inf", "+inf" -> Double.POSITIVE_INFINITY;
+                case "-inf" -> Double.NEGATIVE_INFINITY;
+                default -> Double.parseDouble(score);
+            };
+            if (Double.isNaN(parsed)) {
+                throw new NumberFormatException(score);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new RespException("ERR value is not a valid float");
+        }
+    }
+
+    /**
+     * Formats a score like Redis, integral scores without a fraction.
+     */
+    private static String formatScore(double score) {
+        if (Double.isInfinite(score)) {
+            return score > 0 ? "inf" : "-inf";
+        }
+        if (score == Math.rint(score) && Math.abs(score) < 1e15) {
+            return Long.toString((long) score);
+        }
+        return Double.toString(score);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static String describe(List<byte[]> args) {
+        StringBuilder description = new StringBuilder();
+        for (byte[] arg : args.subList(1, Math.min(args.size(), 4))) {
+            description.append('\'').append(string(arg)).append("' ");
+        }
+        return description.toString();
+    }
+
+}
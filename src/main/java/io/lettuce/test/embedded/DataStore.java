@@ -0,0 +1,414 @@
+package io.lettuce.test.embedded;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory data set of the {@link EmbeddedRedisServer}, holding strings ({@code byte[]}), lists, hashes, sets and sorted sets.
+ * Hash fields and set members are kept as ISO-8859-1 strings, like the keys.
+ * <p>
+ * Keys are spread over lock stripes, each guarding a plain {@link HashMap}, so commands on different keys run in parallel.
+ * Single key commands additionally hold the read lock of a data set wide {@link ReentrantReadWriteLock}, whose write lock
+ * {@link #exclusive(Supplier)} takes to run a transaction atomically.
+ */
+class DataStore {
+
+    static final String WRONGTYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+
+    private final ReentrantReadWriteLock global = new ReentrantReadWriteLock();
+
+    private final ReentrantLock[] locks;
+
+    private final Map<String, Object>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    DataStore(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Stripes must be positive, got " + stripes);
+        }
+
+        this.locks = new ReentrantLock[stripes];
+        this.stripes = new Map[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.locks[i] = new ReentrantLock();
+            this.stripes[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Runs {@code action} with no other command running concurrently.
+     */
+    <T> T exclusive(Supplier<T> action) {
+        global.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            global.writeLock().unlock();
+        }
+    }
+
+    byte[] get(byte[] key) {
+        return withStripe(key, data -> string(data.get(key(key))));
+    }
+
+    /**
+     * @return {@code false} if not set because of the {@code NX} or {@code XX} condition
+     */
+    boolean set(byte[] key, byte[] value, boolean onlyIfAbsent, boolean onlyIfPresent) {
+        return withStripe(key, data -> {
+            String k = key(key);
+            boolean present = data.containsKey(k);
+            if ((onlyIfAbsent && present) || (onlyIfPresent && !present)) {
+                return false;
+            }
+            data.put(k, value);
+            return true;
+        });
+    }
+
+    long incrBy(byte[] key, long increment) {
+        return withStripe(key, data -> {
+            String k = key(key);
+            byte[] current = string(data.get(k));
+            long value;
+            try {
+                value = current == null ? 0 : Long.parseLong(new String(current, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new RespException("ERR value is not an integer or out of range");
+            }
+
+            try {
+                value = Math.addExact(value, increment);
+            } catch (ArithmeticException e) {
+                throw new RespException("ERR increment or decrement would overflow");
+            }
+            data.put(k, Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return value;
+        });
+    }
+
+    boolean del(byte[] key) {
+        return withStripe(key, data -> data.remove(key(key)) != null);
+    }
+
+    boolean exists(byte[] key) {
+        return withStripe(key, data -> data.containsKey(key(key)));
+    }
+
+    long lpush(byte[] key, List<byte[]> values) {
+        return withStripe(key, data -> {
+            Deque<byte[]> list = list(data.computeIfAbsent(key(key), k -> new ArrayDeque<byte[]>()));
+            values.forEach(list::addFirst);
+            return (long) list.size();
+        });
+    }
+
+    byte[] lpop(byte[] key) {
+        return withStripe(key, data -> {
+            String k = key(key);
+            Deque<byte[]> list = list(data.get(k));
+            if (list == null) {
+                return null;
+            }
+
+            byte[] value = list.pollFirst();
+            if (list.isEmpty()) {
+                data.remove(k);
+            }
+            return value;
+        });
+    }
+
+    List<byte[]> lrange(byte[] key, long start, long stop) {
+        return withStripe(key, data -> {
+            Deque<byte[]> list = list(data.get(key(key)));
+            if (list == null) {
+                return List.of();
+            }
+
+            long[] range = range(list.size(), start, stop);
+            List<byte[]> values = new ArrayList<>((int) Math.max(0, range[1] - range[0] + 1));
+            Iterator<byte[]> iterator = list.iterator();
+            for (long i = 0; i <= range[1]; i++) {
+                byte[] value = iterator.next();
+                if (i >= range[0]) {
+                    values.add(value);
+                }
+            }
+            return values;
+        });
+    }
+
+    void ltrim(byte[] key, long start, long stop) {
+        withStripe(key, data -> {
+            String k = key(key);
+            Deque<byte[]> list = list(data.get(k));
+            if (list == null) {
+                return null;
+            }
+
+            long[] range = range(list.size(), start, stop);
+            long tail = list.size() - 1 - range[1];
+            for (long i = 0; i < range[0] && !list.isEmpty(); i++) {
+                list.pollFirst();
+            }
+            for (long i = 0; i < tail && !list.isEmpty(); i++) {
+                list.pollLast();
+            }
+            if (list.isEmpty()) {
+                data.remove(k);
+            }
+            return null;
+        });
+    }
+
+    long hset(byte[] key, List<byte[]> fieldsAndValues) {
+        return withStripe(key, data -> {
+            Map<String, byte[]> hash = hash(data.computeIfAbsent(key(key), k -> new HashMap<String, byte[]>()));
+            long added = 0;
+            for (int i = 0; i < fieldsAndValues.size(); i += 2) {
+                if (hash.put(key(fieldsAndValues.get(i)), fieldsAndValues.get(i + 1)) == null) {
+                    added++;
+                }
+            }
+            return added;
+        });
+    }
+
+    byte[] hget(byte[] key, byte[] field) {
+        return withStripe(key, data -> {
+            Map<String, byte[]> hash = hash(data.get(key(key)));
+            return hash != null ? hash.get(key(field)) : null;
+        });
+    }
+
+    /**
+     * @return copy of the hash, empty if the key does not exist
+     */
+    Map<String, byte[]> hgetall(byte[] key) {
+        return withStripe(key, data -> {
+            Map<String, byte[]> hash = hash(data.get(key(key)));
+            return hash != null ? new HashMap<>(hash) : Map.of();
+        });
+    }
+
+    long sadd(byte[] key, List<byte[]> members) {
+        return withStripe(key, data -> {
+            Set<String> set = set(data.computeIfAbsent(key(key), k -> new HashSet<String>()));
+            return members.stream().filter(member -> set.add(key(member))).count();
+        });
+    }
+
+    boolean sismember(byte[] key, byte[] member) {
+        return withStripe(key, data -> {
+            Set<String> set = set(data.get(key(key)));
+            return set != null && set.contains(key(member));
+        });
+    }
+
+    /**
+     * @return copy of the set, empty if the key does not exist
+     */
+    List<String> smembers(byte[] key) {
+        return withStripe(key, data -> {
+            Set<String> set = set(data.get(key(key)));
+            return set != null ? new ArrayList<>(set) : List.of();
+        });
+    }
+
+    /**
+     * @return the number of members added, members already present get their score updated
+     */
+    long zadd(byte[] key, double[] scores, List<byte[]> members) {
+        return withStripe(key, data -> {
+            SortedSet zset = sortedSet(data.computeIfAbsent(key(key), k -> new SortedSet()));
+            long added = 0;
+            for (int i = 0; i < scores.length; i++) {
+                if (zset.add(key(members.get(i)), scores[i])) {
+                    added++;
+                }
+            }
+            return added;
+        });
+    }
+
+    Double zscore(byte[] key, byte[] member) {
+        return withStripe(key, data -> {
+            SortedSet zset = sortedSet(data.get(key(key)));
+            return zset != null ? zset.scores.get(key(member)) : null;
+        });
+    }
+
+    /**
+     * @return members of the inclusive rank range, ordered by score and then member
+     */
+    List<ScoredMember> zrange(byte[] key, long start, long stop) {
+        return withStripe(key, data -> {
+            SortedSet zset = sortedSet(data.get(key(key)));
+            if (zset == null) {
+                return List.of();
+            }
+
+            long[] range = range(zset.ordered.size(), start, stop);
+            List<ScoredMember> members = new ArrayList<>((int) Math.max(0, range[1] - range[0] + 1));
+            Iterator<ScoredMember> iterator = zset.ordered.iterator();
+            for (long i = 0; i <= range[1]; i++) {
+                ScoredMember member = iterator.next();
+                if (i >= range[0]) {
+                    members.add(member);
+                }
+            }
+            return members;
+        });
+    }
+
+    long size() {
+        global.readLock().lock();
+        try {
+            long size = 0;
+            for (int i = 0; i < stripes.length; i++) {
+                locks[i].lock();
+                try {
+                    size += stripes[i].size();
+                } finally {
+                    locks[i].unlock();
+                }
+            }
+            return size;
+        } finally {
+            global.readLock().unlock();
+        }
+    }
+
+    void flushAll() {
+        exclusive(() -> {
+            for (Map<String, Object> stripe : stripes) {
+                stripe.clear();
+            }
+            return null;
+        });
+    }
+
+    private <T> T withStripe(byte[] key, Function<Map<String, Object>, T> action) {
+        int stripe = Math.floorMod(Arrays.hashCode(key), stripes.length);
+        global.readLock().lock();
+        locks[stripe].lock();
+        try {
+            return action.apply(stripes[stripe]);
+        } finally {
+            locks[stripe].unlock();
+            global.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keys are kept as ISO-8859-1 strings, a lossless one char per byte mapping with cached hash codes.
+     */
+    private static String key(byte[] key) {
+        return new String(key, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] string(Object value) {
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        throw new RespException(WRONGTYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Deque<byte[]> list(Object value) {
+        if (value == null || value instanceof Deque) {
+            return (Deque<byte[]>) value;
+        }
+        throw new RespException(WRONGTYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, byte[]> hash(Object value) {
+        if (value == null || value instanceof Map) {
+            return (Map<String, byte[]>) value;
+        }
+        throw new RespException(WRONGTYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> set(Object value) {
+        if (value == null || value instanceof Set) {
+            return (Set<String>) value;
+        }
+        throw new RespException(WRONGTYPE);
+    }
+
+    private static SortedSet sortedSet(Object value) {
+        if (value == null || value instanceof SortedSet) {
+            return (SortedSet) value;
+        }
+        throw new RespException(WRONGTYPE);
+    }
+
+    /**
+     * Member of a sorted set, members compare by score and then by their bytes, as ISO-8859-1 strings compare unsigned bytes.
+     */
+    record ScoredMember(double score, String member) implements Comparable<ScoredMember> {
+
+        @Override
+        public int compareTo(ScoredMember other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : member.compareTo(other.member);
+        }
+
+        byte[] memberBytes() {
+            return member.getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+    }
+
+    private static final class SortedSet {
+
+        private final Map<String, Double> scores = new HashMap<>();
+
+        private final TreeSet<ScoredMember> ordered = new TreeSet<>();
+
+        /**
+         * @return {@code true} if the member was added, {@code false} if only its score was updated
+         */
+        boolean add(String member, double score) {
+            Double previous = scores.put(member, score);
+            if (previous != null) {
+                ordered.remove(new ScoredMember(previous, member));
+            }
+            ordered.add(new ScoredMember(score, member));
+            return previous == null;
+        }
+
+    }
+
+    /**
+     * Resolves negative (from the end) indexes of an inclusive range, an empty range has start greater than stop.
+     */
+    private static long[] range(int size, long start, long stop) {
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (stop < 0) {
+            stop = size + stop;
+        }
+        stop = Math.min(stop, size - 1);
+        return start > stop ? new long[] { 0, -1 } : new long[] { start, stop };
+    }
+
+}
@@ -0,0 +1,162 @@
+package io.lettuce.test.embedded;
+
+import io.lettuce.test.config.WorkloadRunnerConfig.EmbeddedServerConfig;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process Redis server, started for {@code redis.host: embedded} to run workloads without a Redis deployment.
+ * <p>
+ * Speaks RESP2 and RESP3 (through {@code HELLO}) on a loopback port and implements the commands of the built-in workloads: GET,
+ * SET, INCR, DEL, LPUSH, LRANGE, LTRIM, PUBLISH, SUBSCRIBE and MULTI/EXEC, see {@link Command}. Data is kept in a lock striped
+ * in-memory map without expiration, persistence or replication. Replies can be delayed by a fixed latency plus a random jitter
+ * to emulate a remote server, replies of a connection are still sent in command order.
+ * <p>
+ * {@code CLUSTER NODES} reports a single node serving all slots, so cluster workloads run against it as well.
+ */
+public class EmbeddedRedisServer implements AutoCloseable {
+
+    public static final String HOST = "embedded";
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedRedisServer.class);
+
+    private final DataStore store;
+
+    private final long latencyNanos;
+
+    private final long jitterNanos;
+
+    private final EventLoopGroup group;
+
+    private final Channel channel;
+
+    private final AtomicLong clientIds = new AtomicLong();
+
+    private final Set<ConnectionHandler> connections = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Set<ConnectionHandler>> subscribers = new ConcurrentHashMap<>();
+
+    public EmbeddedRedisServer(EmbeddedServerConfig config) throws InterruptedException {
+        EmbeddedServerConfig options = config != null ? config : new EmbeddedServerConfig();
+        this.store = new DataStore(options.getStripes());
+        this.latencyNanos = nanos(options.getLatency());
+        this.jitterNanos = nanos(options.getJitter());
+
+        int threads = options.getThreads() != null ? options.getThreads() : Runtime.getRuntime().availableProcessors();
+        this.group = new NioEventLoopGroup(threads, new DefaultThreadFactory("embedded-redis", true));
+        try {
+            this.channel = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                    .childOption(ChannelOption.TCP_NODELAY, true).childHandler(new ChannelInitializer<SocketChannel>() {
+
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new RespDecoder(), new ConnectionHandler(EmbeddedRedisServer.this));
+                        }
+
+                    }).bind("127.0.0.1", 0).sync().channel();
+        } catch (InterruptedException | RuntimeException e) {
+            group.shutdownGracefully();
+            throw e;
+        }
+
+        log.info("Embedded Redis server listening on {} (threads={}, stripes={}, latency={}, jitter={})", address(), threads,
+                options.getStripes(), options.getLatency(), options.getJitter());
+    }
+
+    public static boolean isEmbedded(String host) {
+        return HOST.equalsIgnoreCase(host);
+    }
+
+    public String host() {
+        return address().getHostString();
+    }
+
+    public int port() {
+        return address().getPort();
+    }
+
+    private InetSocketAddress address() {
+        return (InetSocketAddress) channel.localAddress();
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+        log.info("Embedded Redis server stopped");
+    }
+
+    DataStore store() {
+        return store;
+    }
+
+    long nextClientId() {
+        return clientIds.incrementAndGet();
+    }
+
+    Set<ConnectionHandler> connections() {
+        return connections;
+    }
+
+    /**
+     * @return delay of the next reply, {@code 0} if replies are not delayed
+     */
+    long replyDelayNanos() {
+        return jitterNanos > 0 ? latencyNanos + ThreadLocalRandom.current().nextLong(jitterNanos + 1) : latencyNanos;
+    }
+
+    boolean delaysReplies() {
+        return latencyNanos > 0 || jitterNanos > 0;
+    }
+
+    void subscribe(String channel, ConnectionHandler subscriber) {
+        subscribers.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    }
+
+    void unsubscribe(String channel, ConnectionHandler subscriber) {
+        subscribers.computeIfPresent(channel, (c, handlers) -> {
+            handlers.remove(subscriber);
+            return handlers.isEmpty() ? null : handlers;
+        });
+    }
+
+    /**
+     * @return number of subscribers the message was delivered to
+     */
+    long publish(String channel, byte[] message) {
+        Set<ConnectionHandler> handlers = subscribers.get(channel);
+        if (handlers == null) {
+            return 0;
+        }
+
+        long receivers = 0;
+        for (ConnectionHandler handler : handlers) {
+            handler.deliver(channel, message);
+            receivers++;
+        }
+        return receivers;
+    }
+
+    private static long nanos(Duration duration) {
+        return duration != null ? Math.max(0, duration.toNanos()) : 0;
+    }
+
+}
@@ -0,0 +1,114 @@
+package io.lettuce.test.embedded;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.DecoderException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes client commands, RESP arrays of bulk strings or inline commands, into their arguments ({@code List<byte[]>}).
+ */
+class RespDecoder extends ByteToMessageDecoder {
+
+    // Limits of redis-server (proto-max-bulk-len, client-query-buffer-limit)
+    static final int MAX_BULK_LENGTH = 512 * 1024 * 1024;
+
+    static final int MAX_INLINE_LENGTH = 64 * 1024;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (in.isReadable()) {
+            in.markReaderIndex();
+            List<byte[]> command = in.getByte(in.readerIndex()) == '*' ? decodeArray(in) : decodeInline(in);
+            if (command == null) {
+                in.resetReaderIndex();
+                return;
+            }
+            if (!command.isEmpty()) {
+                out.add(command);
+            }
+        }
+    }
+
+    private static List<byte[]> decodeArray(ByteBuf in) {
+        long argc = readNumber(in, '*');
+        if (argc < 0) {
+            return null;
+        }
+
+        List<byte[]> args = new ArrayList<>((int) Math.min(argc, 1024));
+        for (long i = 0; i < argc; i++) {
+            long length = readNumber(in, '$');
+            if (length < 0) {
+                return null;
+            }
+            if (length > MAX_BULK_LENGTH) {
+                throw new DecoderException("Protocol error: invalid bulk length");
+            }
+            if (in.readableBytes() < length + 2) {
+                return null;
+            }
+
+            byte[] arg = new byte[(int) length];
+            in.readBytes(arg);
+            in.skipBytes(2);
+            args.add(arg);
+        }
+        return args;
+    }
+
+    /**
+     * Inline command as sent by {@code telnet} or {@code redis-cli} pipes: arguments separated by spaces.
+     */
+    private static List<byte[]> decodeInline(ByteBuf in) {
+        int lineEnd = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) '\n');
+        if (lineEnd < 0) {
+            if (in.readableBytes() > MAX_INLINE_LENGTH) {
+                throw new DecoderException("Protocol error: too big inline request");
+            }
+            return null;
+        }
+
+        String line = in.readCharSequence(lineEnd - in.readerIndex(), StandardCharsets.ISO_8859_1).toString();
+        in.skipBytes(1);
+
+        List<byte[]> args = new ArrayList<>();
+        for (String arg : line.trim().split("\\s+")) {
+            if (!arg.isEmpty()) {
+                args.add(arg.getBytes(StandardCharsets.ISO_8859_1));
+            }
+        }
+        return args;
+    }
+
+    /**
+     * @return the number of a {@code <type><number>\r\n} line, {@code -1} if not fully received
+     */
+    private static long readNumber(ByteBuf in, char type) {
+        int lineEnd = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) '\n');
+        if (lineEnd < 0) {
+            return -1;
+        }
+
+        byte actual = in.readByte();
+        if (actual != type) {
+            throw new DecoderException("Protocol error: expected '" + type + "', got '" + (char) actual + "'");
+        }
+
+        long number = 0;
+        while (in.readerIndex() < lineEnd - 1) {
+            byte digit = in.readByte();
+            if (digit < '0' || digit > '9') {
+                throw new DecoderException("Protocol error: invalid length");
+            }
+            number = number * 10 + (digit - '0');
+        }
+        in.readerIndex(lineEnd + 1);
+        return number;
+    }
+
+}
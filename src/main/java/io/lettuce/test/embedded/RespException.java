@@ -0,0 +1,13 @@
+package io.lettuce.test.embedded;
+
+/**
+ * Command failure answered with a RESP error reply. The message starts with the error code, e.g. {@code ERR} or
+ * {@code WRONGTYPE}.
+ */
+class RespException extends RuntimeException {
+
+    RespException(String message) {
+        super(message, null, false, false);
+    }
+
+}
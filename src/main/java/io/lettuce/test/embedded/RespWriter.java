@@ -0,0 +1,86 @@
+package io.lettuce.test.embedded;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes replies in the protocol version negotiated by the connection through {@code HELLO}. RESP2 has no null, map or push
+ * types, they are written as the null bulk string, flat arrays and arrays respectively.
+ */
+final class RespWriter {
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private RespWriter() {
+    }
+
+    static void simple(ByteBuf out, String value) {
+        out.writeByte('+');
+        out.writeCharSequence(value, StandardCharsets.US_ASCII);
+        out.writeBytes(CRLF);
+    }
+
+    static void error(ByteBuf out, String message) {
+        out.writeByte('-');
+        out.writeCharSequence(message.replace('\r', ' ').replace('\n', ' '), StandardCharsets.UTF_8);
+        out.writeBytes(CRLF);
+    }
+
+    static void integer(ByteBuf out, long value) {
+        header(out, ':', value);
+    }
+
+    static void bulk(ByteBuf out, int protocol, byte[] value) {
+        if (value == null) {
+            nil(out, protocol);
+            return;
+        }
+
+        header(out, '$', value.length);
+        out.writeBytes(value);
+        out.writeBytes(CRLF);
+    }
+
+    static void bulk(ByteBuf out, int protocol, String value) {
+        bulk(out, protocol, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void nil(ByteBuf out, int protocol) {
+        if (protocol >= 3) {
+            out.writeByte('_');
+            out.writeBytes(CRLF);
+        } else {
+            header(out, '$', -1);
+        }
+    }
+
+    static void array(ByteBuf out, int size) {
+        header(out, '*', size);
+    }
+
+    /**
+     * Header of a map of {@code size} key value pairs, followed by the keys and values.
+     */
+    static void map(ByteBuf out, int protocol, int size) {
+        if (protocol >= 3) {
+            header(out, '%', size);
+        } else {
+            header(out, '*', size * 2L);
+        }
+    }
+
+    /**
+     * Header of an out of band message such as a Pub/Sub message.
+     */
+    static void push(ByteBuf out, int protocol, int size) {
+        header(out, protocol >= 3 ? '>' : '*', size);
+    }
+
+    private static void header(ByteBuf out, char type, long value) {
+        out.writeByte(type);
+        out.writeCharSequence(Long.toString(value), StandardCharsets.US_ASCII);
+        out.writeBytes(CRLF);
+    }
+
+}
@@ -0,0 +1,53 @@
+package io.lettuce.test.generator;
+
+/**
+ * Base class for generators that pick a key index in {@code rangeMin..rangeMax} and render it with the key pattern.
+ */
+public abstract class AbstractKeyGenerator implements KeyGenerator {
+
+    protected final String pattern;
+
+    protected final int rangeMin;
+
+    protected final int rangeMax;
+
+    private KeyRenderer renderer;
+
+    protected AbstractKeyGenerator(String pattern, int rangeMin, int rangeMax) {
+        if (rangeMax < rangeMin) {
+            throw new IllegalArgumentException("keyRangeMax must not be lower than keyRangeMin");
+        }
+
+        this.pattern = pattern;
+        this.rangeMin = rangeMin;
+        this.rangeMax = rangeMax;
+        this.renderer = KeyRenderer.create(KeyRenderer.Mode.AUTO, pattern, rangeMin, rangeMax);
+    }
+
+    /**
+     * Sets how key indexes are rendered into keys. Defaults to {@link KeyRenderer.Mode#AUTO}.
+     */
+    public void keyRenderer(KeyRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * @return next key index in {@code rangeMin..rangeMax}
+     */
+    protected abstract int nextIndex();
+
+    @Override
+    public String nextKey() {
+        return renderer.render(nextIndex());
+    }
+
+    @Override
+    public byte[] nextKeyBytes() {
+        return renderer.renderBytes(nextIndex());
+    }
+
+    protected long rangeSize() {
+        return (long) rangeMax - rangeMin + 1;
+    }
+
+}
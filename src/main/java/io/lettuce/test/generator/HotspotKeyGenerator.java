@@ -0,0 +1,41 @@
+package io.lettuce.test.generator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends {@code hotOpnFraction} of the operations to the first {@code hotsetFraction} of the key range, picking uniformly within
+ * the hot and the cold set. E.g. 0.8 and 0.2 send 80% of the operations to 20% of the keys.
+ */
+public class HotspotKeyGenerator extends AbstractKeyGenerator {
+
+    private final double hotOpnFraction;
+
+    private final long hotsetSize;
+
+    private final long coldsetSize;
+
+    public HotspotKeyGenerator(String pattern, int rangeMin, int rangeMax, double hotsetFraction, double hotOpnFraction) {
+        super(pattern, rangeMin, rangeMax);
+        if (hotsetFraction < 0 || hotsetFraction > 1) {
+            throw new IllegalArgumentException("Hotset fraction must be between 0 and 1, but was " + hotsetFraction);
+        }
+        if (hotOpnFraction < 0 || hotOpnFraction > 1) {
+            throw new IllegalArgumentException("Hot operation fraction must be between 0 and 1, but was " + hotOpnFraction);
+        }
+
+        this.hotOpnFraction = hotOpnFraction;
+        this.hotsetSize = Math.max(1, (long) (rangeSize() * hotsetFraction));
+        this.coldsetSize = rangeSize() - hotsetSize;
+    }
+
+    @Override
+    protected int nextIndex() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (coldsetSize == 0 || random.nextDouble() < hotOpnFraction) {
+            return (int) (rangeMin + random.nextLong(hotsetSize));
+        }
+        return (int) (rangeMin + hotsetSize + random.nextLong(coldsetSize));
+    }
+
+}
@@ -1,9 +1,28 @@
 package io.lettuce.test.generator;
 
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates keys for workloads. Implementations are safe for concurrent use.
+ */
 public interface KeyGenerator {
 
     default String nextKey() {
         return "key";
     }
 
+    /**
+     * @return next key as UTF-8 bytes
+     */
+    default byte[] nextKeyBytes() {
+        return nextKey().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Restricts the generator to partition {@code index} of {@code count} of the key range. Generators that pick keys at random
+     * ignore partitions.
+     */
+    default void partition(int index, int count) {
+    }
+
 }
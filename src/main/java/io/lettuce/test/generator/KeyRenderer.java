@@ -0,0 +1,65 @@
+package io.lettuce.test.generator;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renders a key index into a key using the key pattern.
+ * <ul>
+ * <li>{@code FORMAT} - {@link String#format(String, Object...)} on every key</li>
+ * <li>{@code PREFIX} - concatenates the text around a single {@code %d} with the index, without parsing the pattern per key.
+ * Only supports patterns containing exactly one {@code %d} and no other format specifier</li>
+ * <li>{@code POOL} - renders the whole key range once and returns the pre-rendered keys. Pools are shared by all generators
+ * using the same pattern and range</li>
+ * <li>{@code AUTO} (default) - {@code POOL} for ranges up to {@value #AUTO_POOL_MAX_SIZE} keys, otherwise {@code PREFIX} when
+ * the pattern allows it and {@code FORMAT} for all other patterns</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface KeyRenderer {
+
+    int AUTO_POOL_MAX_SIZE = 100_000;
+
+    int POOL_MAX_SIZE = 50_000_000;
+
+    enum Mode {
+        AUTO, FORMAT, PREFIX, POOL
+    }
+
+    String render(int index);
+
+    /**
+     * Renders the key as UTF-8 bytes for workloads using a {@code byte[]} codec.
+     */
+    default byte[] renderBytes(int index) {
+        return render(index).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static KeyRenderer create(String mode, String pattern, int rangeMin, int rangeMax) {
+        Mode parsed;
+        try {
+            parsed = Mode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown key renderer: " + mode, e);
+        }
+
+        return create(parsed, pattern, rangeMin, rangeMax);
+    }
+
+    static KeyRenderer create(Mode mode, String pattern, int rangeMin, int rangeMax) {
+        long rangeSize = (long) rangeMax - rangeMin + 1;
+
+        return switch (mode) {
+            case FORMAT -> index -> String.format(pattern, index);
+            case PREFIX -> PrefixKeyRenderer.of(pattern);
+            case POOL -> PooledKeyRenderer.of(pattern, rangeMin, rangeMax);
+            case AUTO -> {
+                if (rangeSize <= AUTO_POOL_MAX_SIZE) {
+                    yield PooledKeyRenderer.of(pattern, rangeMin, rangeMax);
+                }
+                yield PrefixKeyRenderer.supports(pattern) ? PrefixKeyRenderer.of(pattern)
+                        : create(Mode.FORMAT, pattern, rangeMin, rangeMax);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,40 @@
+package io.lettuce.test.generator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Favours the most recently inserted keys. {@code insertRatio} of the operations insert a new key, which becomes the latest
+ * one, the others pick a key with a Zipfian distributed distance behind the latest. Keys wrap around at the end of the range.
+ */
+public class LatestKeyGenerator extends AbstractKeyGenerator {
+
+    private final ZipfianDistribution zipfian;
+
+    private final double insertRatio;
+
+    private final AtomicLong latest = new AtomicLong();
+
+    public LatestKeyGenerator(String pattern, int rangeMin, int rangeMax, double zipfianConstant, double insertRatio) {
+        super(pattern, rangeMin, rangeMax);
+        if (insertRatio < 0 || insertRatio > 1) {
+            throw new IllegalArgumentException("Insert ratio must be between 0 and 1, but was " + insertRatio);
+        }
+
+        this.zipfian = new ZipfianDistribution(rangeSize(), zipfianConstant);
+        this.insertRatio = insertRatio;
+    }
+
+    @Override
+    protected int nextIndex() {
+        long offset;
+        if (ThreadLocalRandom.current().nextDouble() < insertRatio) {
+            offset = latest.incrementAndGet();
+        } else {
+            offset = latest.get() - zipfian.next();
+        }
+
+        return (int) (rangeMin + Math.floorMod(offset, rangeSize()));
+    }
+
+}
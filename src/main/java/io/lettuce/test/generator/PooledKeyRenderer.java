@@ -0,0 +1,79 @@
+package io.lettuce.test.generator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Returns keys from a pool holding the whole key range, rendered once per pattern and range. The UTF-8 encoded keys are pooled
+ * separately on first use by a {@code byte[]} workload.
+ */
+final class PooledKeyRenderer implements KeyRenderer {
+
+    private record PoolKey(String pattern, int rangeMin, int rangeMax) {
+    }
+
+    private static final Map<PoolKey, String[]> POOLS = new ConcurrentHashMap<>();
+
+    private static final Map<PoolKey, byte[][]> BYTE_POOLS = new ConcurrentHashMap<>();
+
+    private final PoolKey poolKey;
+
+    private final String[] keys;
+
+    private final int rangeMin;
+
+    private volatile byte[][] keyBytes;
+
+    private PooledKeyRenderer(PoolKey poolKey, String[] keys) {
+        this.poolKey = poolKey;
+        this.keys = keys;
+        this.rangeMin = poolKey.rangeMin();
+    }
+
+    static PooledKeyRenderer of(String pattern, int rangeMin, int rangeMax) {
+        long rangeSize = (long) rangeMax - rangeMin + 1;
+        if (rangeSize > POOL_MAX_SIZE) {
+            throw new IllegalArgumentException(
+                    "Key range of " + rangeSize + " keys is too large for a key pool, at most " + POOL_MAX_SIZE);
+        }
+
+        PoolKey poolKey = new PoolKey(pattern, rangeMin, rangeMax);
+        return new PooledKeyRenderer(poolKey, POOLS.computeIfAbsent(poolKey, PooledKeyRenderer::render));
+    }
+
+    private static String[] render(PoolKey key) {
+        KeyRenderer renderer = PrefixKeyRenderer.supports(key.pattern()) ? PrefixKeyRenderer.of(key.pattern())
+                : index -> String.format(key.pattern(), index);
+
+        String[] keys = new String[key.rangeMax() - key.rangeMin() + 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = renderer.render(key.rangeMin() + i);
+        }
+        return keys;
+    }
+
+    @Override
+    public String render(int index) {
+        return keys[index - rangeMin];
+    }
+
+    @Override
+    public byte[] renderBytes(int index) {
+        byte[][] pool = keyBytes;
+        if (pool == null) {
+            pool = BYTE_POOLS.computeIfAbsent(poolKey, key -> encode(keys));
+            keyBytes = pool;
+        }
+        return pool[index - rangeMin];
+    }
+
+    private static byte[][] encode(String[] keys) {
+        byte[][] encoded = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            encoded[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+}
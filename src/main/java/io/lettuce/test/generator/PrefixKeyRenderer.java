@@ -0,0 +1,39 @@
+package io.lettuce.test.generator;
+
+/**
+ * Builds keys by concatenating the text around the single {@code %d} of the pattern with the index.
+ */
+final class PrefixKeyRenderer implements KeyRenderer {
+
+    private static final String PLACEHOLDER = "%d";
+
+    private final String prefix;
+
+    private final String suffix;
+
+    private PrefixKeyRenderer(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    static boolean supports(String pattern) {
+        int placeholder = pattern.indexOf(PLACEHOLDER);
+        return placeholder >= 0 && pattern.indexOf('%') == placeholder && pattern.indexOf('%', placeholder + 1) < 0;
+    }
+
+    static PrefixKeyRenderer of(String pattern) {
+        if (!supports(pattern)) {
+            throw new IllegalArgumentException(
+                    "Key pattern must contain exactly one %d and no other format specifier, but was " + pattern);
+        }
+
+        int placeholder = pattern.indexOf(PLACEHOLDER);
+        return new PrefixKeyRenderer(pattern.substring(0, placeholder), pattern.substring(placeholder + PLACEHOLDER.length()));
+    }
+
+    @Override
+    public String render(int index) {
+        return suffix.isEmpty() ? prefix + index : prefix + index + suffix;
+    }
+
+}
@@ -0,0 +1,35 @@
+package io.lettuce.test.generator;
+
+/**
+ * Picks keys following a Zipfian distribution with the popular keys scattered across the range by hashing the rank with FNV-1a.
+ * The popularity skew is kept, but hot keys are not adjacent, which spreads them across cluster slots.
+ */
+public class ScrambledZipfianKeyGenerator extends AbstractKeyGenerator {
+
+    private static final long FNV_OFFSET_BASIS_64 = 0xCBF29CE484222325L;
+
+    private static final long FNV_PRIME_64 = 0x100000001B3L;
+
+    private final ZipfianDistribution zipfian;
+
+    public ScrambledZipfianKeyGenerator(String pattern, int rangeMin, int rangeMax, double zipfianConstant) {
+        super(pattern, rangeMin, rangeMax);
+        this.zipfian = new ZipfianDistribution(rangeSize(), zipfianConstant);
+    }
+
+    @Override
+    protected int nextIndex() {
+        return (int) (rangeMin + Long.remainderUnsigned(fnvHash64(zipfian.next()), rangeSize()));
+    }
+
+    static long fnvHash64(long value) {
+        long hash = FNV_OFFSET_BASIS_64;
+        for (int i = 0; i < 8; i++) {
+            hash ^= value & 0xff;
+            hash *= FNV_PRIME_64;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+}
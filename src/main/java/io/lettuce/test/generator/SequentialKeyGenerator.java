@@ -1,30 +1,50 @@
 package io.lettuce.test.generator;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class SequentialKeyGenerator implements KeyGenerator {
+/**
+ * Walks the key range in order and starts over at the end.
+ * <p>
+ * With a {@link #partition(int, int) partition} set, the generator walks the range with a stride of {@code count} starting at
+ * {@code rangeMin + index}, so generators of all partitions together cover every key of the range exactly once per pass. Each
+ * key is derived from a single counter, so the generator never leaves its partition, even when shared between threads. There
+ * can be at most as many partitions as keys in the range, so that no partition is empty.
+ */
+public class SequentialKeyGenerator extends AbstractKeyGenerator {
 
-    private String pattern = "key-%d";
+    private final AtomicLong counter = new AtomicLong();
 
-    private int rangeMin = 0;
+    private volatile int offset;
 
-    private int rangeMax = 10000;
+    private volatile int stride = 1;
 
-    private AtomicInteger current = new AtomicInteger();
+    private volatile long partitionSize;
 
     public SequentialKeyGenerator(String pattern, int rangeMin, int rangeMax) {
-        this.pattern = pattern;
-        this.rangeMin = rangeMin;
-        this.rangeMax = rangeMax;
+        super(pattern, rangeMin, rangeMax);
+        this.partitionSize = rangeSize();
     }
 
-    public String nextKey() {
-        int idx = current.getAndIncrement();
-        if (idx > rangeMax) {
-            current.set(rangeMin);
-            idx = rangeMin;
+    @Override
+    public void partition(int index, int count) {
+        if (count <= 0 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid partition " + index + " of " + count);
         }
-        return String.format(pattern, idx);
+        if (count > rangeSize()) {
+            throw new IllegalArgumentException("Cannot partition " + rangeSize() + " keys into " + count
+                    + " sequential workloads, widen the key range or run fewer workloads");
+        }
+
+        this.offset = index;
+        this.stride = count;
+        this.partitionSize = (rangeSize() - offset + stride - 1) / stride;
+        counter.set(0);
+    }
+
+    @Override
+    protected int nextIndex() {
+        long step = Math.floorMod(counter.getAndIncrement(), partitionSize);
+        return (int) (rangeMin + offset + step * stride);
     }
 
 }
@@ -0,0 +1,280 @@
+package io.lettuce.test.generator;
+
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks keys of the key range by the cluster slot they hash to, using the live {@link Partitions} of the cluster client.
+ * <ul>
+ * <li>{@code EVEN} - picks an upstream node uniformly, then a key served by that node, so every primary receives the same share
+ * of the operations regardless of how the key range hashes onto the slots</li>
+ * <li>{@code NODE} - only keys served by one node, given by node id or {@code host:port}</li>
+ * <li>{@code SLOTS} - only keys hashing into the given slot ranges, e.g. {@code 0-5460,10923}</li>
+ * </ul>
+ * The slot of every key of the range is computed once and shared by all generators using the same pattern and range. Keys are
+ * picked uniformly within the selection. The slot to node assignment is checked against the partitions every
+ * {@value #TOPOLOGY_CHECK_INTERVAL_MS} ms, after a topology change the keys are grouped again.
+ */
+public class SlotAwareKeyGenerator implements KeyGenerator {
+
+    public enum Strategy {
+        NONE, EVEN, NODE, SLOTS
+    }
+
+    static final long TOPOLOGY_CHECK_INTERVAL_MS = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(SlotAwareKeyGenerator.class);
+
+    private record SlotIndexKey(String pattern, int rangeMin, int rangeMax) {
+    }
+
+    private static final Map<SlotIndexKey, SlotIndex> SLOT_INDEXES = new ConcurrentHashMap<>();
+
+    private final Strategy strategy;
+
+    private final String targetNode;
+
+    private final BitSet targetSlots;
+
+    private final Partitions partitions;
+
+    private final KeyRenderer renderer;
+
+    private final SlotIndex slotIndex;
+
+    private volatile Selection selection;
+
+    private volatile long nextTopologyCheck;
+
+    /**
+     * Key indexes grouped by slot: the indexes of slot {@code s} are {@code indexes[slotStart[s]..slotStart[s + 1])}.
+     */
+    private record SlotIndex(int[] slotStart, int[] indexes) {
+
+        int count(int slot) {
+            return slotStart[slot + 1] - slotStart[slot];
+        }
+
+    }
+
+    /**
+     * Key indexes to pick from, one group per node for {@code EVEN}, a single group otherwise.
+     */
+    private record Selection(String[] owners, int[][] groups) {
+    }
+
+    /**
+     * @param target node id or {@code host:port} for {@code NODE}, slot ranges for {@code SLOTS}, ignored otherwise
+     */
+    public SlotAwareKeyGenerator(String pattern, int rangeMin, int rangeMax, Strategy strategy, String target,
+            Partitions partitions) {
+        if (rangeMax < rangeMin) {
+            throw new IllegalArgumentException("keyRangeMax must not be lower than keyRangeMin");
+        }
+        if (strategy == Strategy.NONE) {
+            throw new IllegalArgumentException("Strategy NONE does not select keys by slot");
+        }
+        if (strategy != Strategy.EVEN && (target == null || target.isBlank())) {
+            throw new IllegalArgumentException("Strategy " + strategy + " requires a target, set "
+                    + (strategy == Strategy.NODE ? "keyTargetNode" : "keySlotRange"));
+        }
+
+        this.strategy = strategy;
+        this.targetNode = strategy == Strategy.NODE ? target.trim() : null;
+        this.targetSlots = strategy == Strategy.SLOTS ? parseSlots(target) : null;
+        this.partitions = partitions;
+        this.renderer = KeyRenderer.create(KeyRenderer.Mode.AUTO, pattern, rangeMin, rangeMax);
+        this.slotIndex = SLOT_INDEXES.computeIfAbsent(new SlotIndexKey(pattern, rangeMin, rangeMax),
+                key -> index(renderer, rangeMin, rangeMax));
+
+        this.selection = select(owners());
+        if (selection.groups().length == 0) {
+            throw new IllegalArgumentException("No key of the range " + rangeMin + ".." + rangeMax + " hashes to "
+                    + (strategy == Strategy.NODE ? "node " + targetNode : "the selected slots"));
+        }
+        this.nextTopologyCheck = System.currentTimeMillis() + TOPOLOGY_CHECK_INTERVAL_MS;
+    }
+
+    public static Strategy parseStrategy(String strategy) {
+        try {
+            return Strategy.valueOf(strategy.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unknown key slot strategy '" + strategy + "'. Supported: none, even, node, slots", e);
+        }
+    }
+
+    @Override
+    public String nextKey() {
+        return renderer.render(nextIndex());
+    }
+
+    @Override
+    public byte[] nextKeyBytes() {
+        return renderer.renderBytes(nextIndex());
+    }
+
+    private int nextIndex() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[][] groups = current().groups();
+        int[] group = groups.length == 1 ? groups[0] : groups[random.nextInt(groups.length)];
+        return group[random.nextInt(group.length)];
+    }
+
+    private Selection current() {
+        Selection current = selection;
+        if (strategy == Strategy.SLOTS || System.currentTimeMillis() < nextTopologyCheck) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (System.currentTimeMillis() >= nextTopologyCheck) {
+                nextTopologyCheck = System.currentTimeMillis() + TOPOLOGY_CHECK_INTERVAL_MS;
+                String[] owners = owners();
+                if (!Arrays.equals(owners, selection.owners())) {
+                    Selection changed = select(owners);
+                    if (changed.groups().length > 0) {
+                        selection = changed;
+                        log.info("Cluster topology changed, keys regrouped into {} node group(s)", changed.groups().length);
+                    } else {
+                        log.warn("After the topology change no key hashes to node {}, keeping the previous keys", targetNode);
+                    }
+                }
+            }
+            return selection;
+        }
+    }
+
+    /**
+     * @return node id serving each slot, {@code null} for uncovered slots
+     */
+    private String[] owners() {
+        String[] owners = new String[SlotHash.SLOT_COUNT];
+        for (int slot = 0; slot < SlotHash.SLOT_COUNT; slot++) {
+            RedisClusterNode node = partitions.getPartitionBySlot(slot);
+            owners[slot] = node != null ? node.getNodeId() : null;
+        }
+        return owners;
+    }
+
+    private Selection select(String[] owners) {
+        return switch (strategy) {
+            case EVEN -> {
+                Map<String, List<Integer>> slotsByNode = new LinkedHashMap<>();
+                for (int slot = 0; slot < owners.length; slot++) {
+                    if (owners[slot] != null) {
+                        slotsByNode.computeIfAbsent(owners[slot], node -> new ArrayList<>()).add(slot);
+                    }
+                }
+
+                List<int[]> groups = new ArrayList<>();
+                for (List<Integer> slots : slotsByNode.values()) {
+                    int[] group = keysOf(slots);
+                    if (group.length > 0) {
+                        groups.add(group);
+                    }
+                }
+                yield new Selection(owners, groups.toArray(new int[0][]));
+            }
+            case NODE -> {
+                String nodeId = resolveTargetNode();
+                List<Integer> slots = new ArrayList<>();
+                for (int slot = 0; slot < owners.length; slot++) {
+                    if (nodeId != null && nodeId.equals(owners[slot])) {
+                        slots.add(slot);
+                    }
+                }
+                yield selection(owners, keysOf(slots));
+            }
+            case SLOTS -> selection(owners, keysOf(targetSlots.stream().boxed().toList()));
+            case NONE -> throw new IllegalStateException();
+        };
+    }
+
+    private static Selection selection(String[] owners, int[] keys) {
+        return new Selection(owners, keys.length > 0 ? new int[][] { keys } : new int[0][]);
+    }
+
+    private String resolveTargetNode() {
+        for (RedisClusterNode node : partitions) {
+            String address = node.getUri() != null ? node.getUri().getHost() + ":" + node.getUri().getPort() : null;
+            if (targetNode.equals(node.getNodeId()) || targetNode.equalsIgnoreCase(address)) {
+                return node.getNodeId();
+            }
+        }
+        return null;
+    }
+
+    private int[] keysOf(List<Integer> slots) {
+        int count = 0;
+        for (int slot : slots) {
+            count += slotIndex.count(slot);
+        }
+
+        int[] keys = new int[count];
+        int offset = 0;
+        for (int slot : slots) {
+            int slotCount = slotIndex.count(slot);
+            System.arraycopy(slotIndex.indexes(), slotIndex.slotStart()[slot], keys, offset, slotCount);
+            offset += slotCount;
+        }
+        return keys;
+    }
+
+    private static SlotIndex index(KeyRenderer renderer, int rangeMin, int rangeMax) {
+        long rangeSize = (long) rangeMax - rangeMin + 1;
+        if (rangeSize > KeyRenderer.POOL_MAX_SIZE) {
+            throw new IllegalArgumentException("Key range of " + rangeSize + " keys is too large for slot aware keys, at most "
+                    + KeyRenderer.POOL_MAX_SIZE);
+        }
+
+        // Counting sort of the key indexes by slot
+        short[] slots = new short[(int) rangeSize];
+        int[] slotStart = new int[SlotHash.SLOT_COUNT + 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = (short) SlotHash.getSlot(renderer.renderBytes(rangeMin + i));
+            slotStart[slots[i] + 1]++;
+        }
+        for (int slot = 0; slot < SlotHash.SLOT_COUNT; slot++) {
+            slotStart[slot + 1] += slotStart[slot];
+        }
+
+        int[] next = Arrays.copyOf(slotStart, SlotHash.SLOT_COUNT);
+        int[] indexes = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            indexes[next[slots[i]]++] = rangeMin + i;
+        }
+        return new SlotIndex(slotStart, indexes);
+    }
+
+    static BitSet parseSlots(String ranges) {
+        BitSet slots = new BitSet(SlotHash.SLOT_COUNT);
+        for (String range : ranges.split(",")) {
+            String[] bounds = range.trim().split("-");
+            try {
+                int from = Integer.parseInt(bounds[0].trim());
+                int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+                if (bounds.length > 2 || from < 0 || to >= SlotHash.SLOT_COUNT || from > to) {
+                    throw new IllegalArgumentException("Invalid slot range '" + range.trim() + "'");
+                }
+                slots.set(from, to + 1);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid slot range '" + range.trim() + "'", e);
+            }
+        }
+        return slots;
+    }
+
+}
@@ -0,0 +1,76 @@
+package io.lettuce.test.generator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Zipfian distribution over {@code 0..items-1}, where lower values are the most popular, following the algorithm from Gray et
+ * al. "Quickly Generating Billion-Record Synthetic Databases" as used by YCSB.
+ * <p>
+ * All constants are computed once, so drawing a value is constant time. The O(n) zeta sum is cached per item count and
+ * constant, as workloads create their generators on every run.
+ */
+class ZipfianDistribution {
+
+    private record ZetaKey(long items, double theta) {
+    }
+
+    private static final Map<ZetaKey, Double> ZETA_CACHE = new ConcurrentHashMap<>();
+
+    private final long items;
+
+    private final double theta;
+
+    private final double alpha;
+
+    private final double zetan;
+
+    private final double eta;
+
+    private final double halfPowTheta;
+
+    ZipfianDistribution(long items, double zipfianConstant) {
+        if (items <= 0) {
+            throw new IllegalArgumentException("Number of items must be greater than 0, but was " + items);
+        }
+        if (zipfianConstant <= 0 || zipfianConstant >= 1) {
+            throw new IllegalArgumentException("Zipfian constant must be between 0 and 1, but was " + zipfianConstant);
+        }
+
+        this.items = items;
+        this.theta = zipfianConstant;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetan = ZETA_CACHE.computeIfAbsent(new ZetaKey(items, theta), k -> zeta(k.items(), k.theta()));
+        double zeta2theta = zeta(2, theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
+        this.halfPowTheta = 1 + Math.pow(0.5, theta);
+    }
+
+    long items() {
+        return items;
+    }
+
+    long next() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        double uz = u * zetan;
+
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < halfPowTheta) {
+            return Math.min(1, items - 1);
+        }
+
+        return Math.min((long) (items * Math.pow(eta * u - eta + 1, alpha)), items - 1);
+    }
+
+    static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, theta);
+        }
+        return sum;
+    }
+
+}
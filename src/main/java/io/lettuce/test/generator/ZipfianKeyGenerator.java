@@ -0,0 +1,21 @@
+package io.lettuce.test.generator;
+
+/**
+ * Picks keys following a Zipfian distribution. The lowest keys of the range are the most popular, so hot keys are also adjacent
+ * in the key space.
+ */
+public class ZipfianKeyGenerator extends AbstractKeyGenerator {
+
+    private final ZipfianDistribution zipfian;
+
+    public ZipfianKeyGenerator(String pattern, int rangeMin, int rangeMax, double zipfianConstant) {
+        super(pattern, rangeMin, rangeMax);
+        this.zipfian = new ZipfianDistribution(rangeSize(), zipfianConstant);
+    }
+
+    @Override
+    protected int nextIndex() {
+        return (int) (rangeMin + zipfian.next());
+    }
+
+}
@@ -0,0 +1,131 @@
+package io.lettuce.test.metrics;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end latency of multi-key batches on a cluster, from invocation until the replies of all nodes are merged, grouped by
+ * the number of nodes the batch fans out to. Shows what scattering a batch across the cluster costs compared to a batch
+ * co-located by hash tag.
+ */
+class BatchMetrics {
+
+    static final String REDIS_BATCH_DURATION = "redis.batch.duration";
+
+    static final String REDIS_BATCH_FANOUT_NODES = "redis.batch.fanout.nodes";
+
+    static final String REDIS_BATCH_FANOUT_SLOTS = "redis.batch.fanout.slots";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int significantDigits;
+
+    private final Map<BatchKey, BatchStats> batches = new ConcurrentHashMap<>();
+
+    private record BatchKey(String command, int nodes) {
+    }
+
+    private final class BatchStats {
+
+        final Timer success;
+
+        final Timer error;
+
+        final DistributionSummary slots;
+
+        final Histogram latencies;
+
+        final LongAdder colocated = new LongAdder();
+
+        final LongAdder errors = new LongAdder();
+
+        BatchStats(BatchKey key) {
+            this.success = timer(key, OperationStatus.SUCCESS);
+            this.error = timer(key, OperationStatus.ERROR);
+            this.slots = DistributionSummary.builder(REDIS_BATCH_FANOUT_SLOTS)
+                    .description("Number of cluster slots a multi-key batch is split into").tag("command", key.command())
+                    .tag("nodes", String.valueOf(key.nodes())).publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+            this.latencies = new ConcurrentHistogram(significantDigits);
+        }
+
+    }
+
+    BatchMetrics(MeterRegistry meterRegistry, int significantDigits) {
+        this.meterRegistry = meterRegistry;
+        this.significantDigits = significantDigits;
+    }
+
+    void record(String command, int nodes, int slots, boolean colocated, long timeNs, OperationStatus status) {
+        BatchKey key = new BatchKey(command, nodes);
+        BatchStats stats = batches.get(key);
+        if (stats == null) {
+            stats = batches.computeIfAbsent(key, BatchStats::new);
+        }
+
+        DistributionSummary.builder(REDIS_BATCH_FANOUT_NODES)
+                .description("Number of cluster nodes a multi-key batch fans out to").tag("command", command)
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry).record(nodes);
+        stats.slots.record(slots);
+        if (colocated) {
+            stats.colocated.increment();
+        }
+
+        if (status == OperationStatus.SUCCESS) {
+            stats.success.record(timeNs, TimeUnit.NANOSECONDS);
+            stats.latencies.recordValue(Math.max(0, timeNs));
+        } else {
+            stats.error.record(timeNs, TimeUnit.NANOSECONDS);
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * Adds a {@code batches} object with the batches, errors and latency percentiles in milliseconds per command and fan-out,
+     * e.g. {@code mget.nodes_3}.
+     */
+    void putSummary(ObjectNode result) {
+        ObjectNode summary = result.putObject("batches");
+        batches.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<BatchKey, BatchStats> entry) -> entry.getKey().command())
+                        .thenComparingInt(entry -> entry.getKey().nodes()))
+                .forEach(entry -> {
+                    BatchStats stats = entry.getValue();
+                    Histogram latencies = stats.latencies.copy();
+
+                    ObjectNode command = summary.has(entry.getKey().command())
+                            ? (ObjectNode) summary.get(entry.getKey().command())
+                            : summary.putObject(entry.getKey().command());
+                    ObjectNode batch = command.putObject("nodes_" + entry.getKey().nodes());
+                    batch.put("batches", latencies.getTotalCount() + stats.errors.sum());
+                    batch.put("colocated", stats.colocated.sum());
+                    batch.put("errors", stats.errors.sum());
+                    batch.put("avg_slots", stats.slots.mean());
+                    batch.put("median_latency_ms", latencies.getValueAtPercentile(50) / 1e6);
+                    batch.put("p95_latency_ms", latencies.getValueAtPercentile(95) / 1e6);
+                    batch.put("p99_latency_ms", latencies.getValueAtPercentile(99) / 1e6);
+                    batch.put("max_latency_ms", latencies.getMaxValue() / 1e6);
+                });
+    }
+
+    boolean isEmpty() {
+        return batches.isEmpty();
+    }
+
+    private Timer timer(BatchKey key, OperationStatus status) {
+        return Timer.builder(REDIS_BATCH_DURATION)
+                .description("Measures the end-to-end time of multi-key batches until the replies of all nodes are merged")
+                .tag("command", key.command()).tag("nodes", String.valueOf(key.nodes()))
+                .tag("status", status.name().toLowerCase()).publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+    }
+
+}
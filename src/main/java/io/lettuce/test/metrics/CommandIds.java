@@ -0,0 +1,60 @@
+package io.lettuce.test.metrics;
+
+import io.lettuce.test.metrics.MetricsReporter.CommandKey;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assigns dense integer ids to command names, so per-command state can be kept in arrays instead of maps keyed by
+ * {@link CommandKey}. Ids and their keys are created once per command name and never change.
+ */
+class CommandIds {
+
+    static final int MAX_COMMANDS = 1024;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final AtomicReferenceArray<String> names = new AtomicReferenceArray<>(MAX_COMMANDS);
+
+    private final AtomicReferenceArray<CommandKey> successKeys = new AtomicReferenceArray<>(MAX_COMMANDS);
+
+    private final AtomicReferenceArray<CommandKey> errorKeys = new AtomicReferenceArray<>(MAX_COMMANDS);
+
+    int idOf(String commandName) {
+        Integer id = ids.get(commandName);
+        return id != null ? id : ids.computeIfAbsent(commandName, this::register);
+    }
+
+    String name(int id) {
+        return names.get(id);
+    }
+
+    CommandKey key(int id, OperationStatus status) {
+        return status == OperationStatus.SUCCESS ? successKeys.get(id) : errorKeys.get(id);
+    }
+
+    /**
+     * @return number of registered ids, all ids are lower than this value
+     */
+    int size() {
+        return Math.min(nextId.get(), MAX_COMMANDS);
+    }
+
+    private int register(String commandName) {
+        int id = nextId.getAndIncrement();
+        if (id >= MAX_COMMANDS) {
+            throw new IllegalStateException("Too many distinct commands, at most " + MAX_COMMANDS + " are supported");
+        }
+
+        names.set(id, commandName);
+        successKeys.set(id, MetricsReporter.cmdKeyOk(commandName));
+        errorKeys.set(id, MetricsReporter.cmdKeyError(commandName, null));
+        return id;
+    }
+
+}
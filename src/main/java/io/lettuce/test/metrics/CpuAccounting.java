@@ -0,0 +1,204 @@
+package io.lettuce.test.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Client side CPU and allocation accounting of a test run.
+ * <p>
+ * Process CPU and GC time are read from the platform MXBeans at the start and at the end of the run. CPU time and allocated
+ * bytes per thread are sampled periodically through {@link #sample()} and grouped by {@link ThreadCategory}, threads
+ * terminating between two samples lose what they used since the last sample. Virtual threads are not visible to
+ * {@link ThreadMXBean}, their CPU time is accounted to their carrier threads.
+ */
+class CpuAccounting {
+
+    enum ThreadCategory {
+
+        // Netty I/O threads: lettuce-nioEventLoop-*, lettuce-epollEventLoop-*, ...
+        EVENT_LOOP,
+        // Lettuce computation threads: lettuce-eventExecutorLoop-*
+        COMPUTATION,
+        // Workload threads and carrier threads of virtual workload threads
+        WORKLOAD, OTHER;
+
+        static ThreadCategory of(String threadName) {
+            String name = threadName.toLowerCase();
+            if (name.startsWith("lettuce-")) {
+                if (name.contains("eventexecutor")) {
+                    return COMPUTATION;
+                }
+                if (name.contains("eventloop")) {
+                    return EVENT_LOOP;
+                }
+            }
+            // The common pool is named ForkJoinPool.commonPool-worker-*, virtual thread carriers ForkJoinPool-1-worker-*
+            if (name.startsWith("workload-") || name.startsWith("forkjoinpool-")) {
+                return WORKLOAD;
+            }
+            return OTHER;
+        }
+
+    }
+
+    /**
+     * Resource usage between {@link #start()} and the time of {@link #usage()}.
+     */
+    record Usage(long processCpuNanos, long gcTimeMillis, long gcCount, long allocatedBytes,
+            Map<ThreadCategory, Long> threadCpuNanos, Map<ThreadCategory, Long> threadAllocatedBytes) {
+    }
+
+    private static final class ThreadUsage {
+
+        final ThreadCategory category;
+
+        final long startCpuNanos;
+
+        final long startAllocatedBytes;
+
+        long cpuNanos;
+
+        long allocatedBytes;
+
+        ThreadUsage(ThreadCategory category, long startCpuNanos, long startAllocatedBytes) {
+            this.category = category;
+            this.startCpuNanos = startCpuNanos;
+            this.startAllocatedBytes = startAllocatedBytes;
+            this.cpuNanos = startCpuNanos;
+            this.allocatedBytes = startAllocatedBytes;
+        }
+
+    }
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+    private final Map<Long, ThreadUsage> threadUsage = new HashMap<>();
+
+    private Usage start;
+
+    CpuAccounting() {
+        if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    synchronized void start() {
+        threadUsage.clear();
+        sample(true);
+        start = current();
+    }
+
+    /**
+     * Updates the CPU time of live threads.
+     */
+    synchronized void sample() {
+        sample(false);
+    }
+
+    private void sample(boolean starting) {
+        if (!threads.isThreadCpuTimeSupported()) {
+            return;
+        }
+
+        long[] ids = threads.getAllThreadIds();
+        long[] cpuNanos = threadCpuNanos(ids);
+        long[] allocatedBytes = threadAllocatedBytes(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (cpuNanos[i] < 0) {
+                continue;
+            }
+
+            ThreadUsage usage = threadUsage.get(ids[i]);
+            if (usage == null) {
+                String name = threadName(ids[i]);
+                if (name == null) {
+                    continue;
+                }
+                // Threads started during the run are accounted from their start
+                usage = starting ? new ThreadUsage(ThreadCategory.of(name), cpuNanos[i], allocatedBytes[i])
+                        : new ThreadUsage(ThreadCategory.of(name), 0, 0);
+                threadUsage.put(ids[i], usage);
+            }
+            usage.cpuNanos = cpuNanos[i];
+            usage.allocatedBytes = Math.max(usage.allocatedBytes, allocatedBytes[i]);
+        }
+    }
+
+    private long[] threadCpuNanos(long[] ids) {
+        if (threads instanceof com.sun.management.ThreadMXBean sunThreads) {
+            return sunThreads.getThreadCpuTime(ids);
+        }
+
+        long[] cpuNanos = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            cpuNanos[i] = threads.getThreadCpuTime(ids[i]);
+        }
+        return cpuNanos;
+    }
+
+    private long[] threadAllocatedBytes(long[] ids) {
+        if (allocationSupported()) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids);
+        }
+        return new long[ids.length];
+    }
+
+    private String threadName(long id) {
+        var info = threads.getThreadInfo(id);
+        return info != null ? info.getThreadName() : null;
+    }
+
+    /**
+     * @return usage since {@link #start()}, {@code null} if not started
+     */
+    synchronized Usage usage() {
+        if (start == null) {
+            return null;
+        }
+
+        sample(false);
+        Usage now = current();
+        return new Usage(now.processCpuNanos() - start.processCpuNanos(), now.gcTimeMillis() - start.gcTimeMillis(),
+                now.gcCount() - start.gcCount(), now.allocatedBytes() - start.allocatedBytes(), now.threadCpuNanos(),
+                now.threadAllocatedBytes());
+    }
+
+    private Usage current() {
+        long gcTime = 0;
+        long gcCount = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcTime += Math.max(0, gc.getCollectionTime());
+            gcCount += Math.max(0, gc.getCollectionCount());
+        }
+
+        Map<ThreadCategory, Long> threadCpu = new EnumMap<>(ThreadCategory.class);
+        Map<ThreadCategory, Long> threadAllocated = new EnumMap<>(ThreadCategory.class);
+        for (ThreadUsage usage : threadUsage.values()) {
+            threadCpu.merge(usage.category, usage.cpuNanos - usage.startCpuNanos, Long::sum);
+            threadAllocated.merge(usage.category, usage.allocatedBytes - usage.startAllocatedBytes, Long::sum);
+        }
+
+        long allocatedBytes = threadAllocated.values().stream().mapToLong(Long::longValue).sum();
+        return new Usage(processCpuNanos(), gcTime, gcCount, allocatedBytes, threadCpu, threadAllocated);
+    }
+
+    private long processCpuNanos() {
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return Math.max(0, sunOs.getProcessCpuTime());
+        }
+        return 0;
+    }
+
+    private boolean allocationSupported() {
+        return threads instanceof com.sun.management.ThreadMXBean sunThreads && sunThreads.isThreadAllocatedMemorySupported()
+                && sunThreads.isThreadAllocatedMemoryEnabled();
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.lettuce.test.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records command latencies into per-command HdrHistogram {@link Recorder}s and {@link LongAdder} counters indexed by
+ * {@link CommandIds command id}.
+ * <p>
+ * Recording is wait-free and does not allocate once a command was seen for the first time. Recorded values are handed over to
+ * the Micrometer meters by {@link #publish(IntervalConsumer)}, which is expected to run periodically on a single thread.
+ */
+class HdrCommandRecorder {
+
+    interface IntervalConsumer {
+
+        /**
+         * @param interval latencies in nanoseconds recorded since the previous publish
+         * @param count number of commands completed since the previous publish
+         */
+        void accept(int commandId, OperationStatus status, Histogram interval, long count);
+
+    }
+
+    private final AtomicReferenceArray<CommandHistograms> histograms = new AtomicReferenceArray<>(CommandIds.MAX_COMMANDS);
+
+    private final CommandIds commandIds;
+
+    private final int significantDigits;
+
+    HdrCommandRecorder(CommandIds commandIds, int significantDigits) {
+        this.commandIds = commandIds;
+        this.significantDigits = significantDigits;
+    }
+
+    void recordSuccess(int commandId, long timeNs) {
+        histograms(commandId).success.record(timeNs);
+    }
+
+    void recordError(int commandId, long timeNs) {
+        histograms(commandId).error.record(timeNs);
+    }
+
+    synchronized void publish(IntervalConsumer consumer) {
+        for (int id = 0; id < commandIds.size(); id++) {
+            CommandHistograms command = histograms.get(id);
+            if (command != null) {
+                command.success.publish(id, OperationStatus.SUCCESS, consumer);
+                command.error.publish(id, OperationStatus.ERROR, consumer);
+            }
+        }
+    }
+
+    private CommandHistograms histograms(int commandId) {
+        CommandHistograms command = histograms.get(commandId);
+        if (command == null) {
+            histograms.compareAndSet(commandId, null, new CommandHistograms(significantDigits));
+            command = histograms.get(commandId);
+        }
+        return command;
+    }
+
+    private static class CommandHistograms {
+
+        final Outcome success;
+
+        final Outcome error;
+
+        CommandHistograms(int significantDigits) {
+            this.success = new Outcome(significantDigits);
+            this.error = new Outcome(significantDigits);
+        }
+
+    }
+
+    private static class Outcome {
+
+        private final Recorder recorder;
+
+        private final LongAdder count = new LongAdder();
+
+        // recycled by the publishing thread
+        private Histogram interval;
+
+        Outcome(int significantDigits) {
+            this.recorder = new Recorder(significantDigits);
+        }
+
+        void record(long timeNs) {
+            recorder.recordValue(Math.max(0, timeNs));
+            count.increment();
+        }
+
+        void publish(int commandId, OperationStatus status, IntervalConsumer consumer) {
+            interval = recorder.getIntervalHistogram(interval);
+            long completed = count.sumThenReset();
+            if (completed > 0 || interval.getTotalCount() > 0) {
+                consumer.accept(commandId, status, interval, completed);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+package io.lettuce.test.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Exact, mergeable latency distributions per command and across all commands.
+ * <p>
+ * Latencies are recorded into per-command {@link Recorder}s, or handed over as interval histograms by the {@code hdr} command
+ * recorder. {@link #collect()} moves the recorded intervals into cumulative histograms and appends them to the interval log,
+ * when one is set. Per-command intervals are tagged with the command name, the interval across all commands is not tagged.
+ */
+class LatencyHistograms {
+
+    static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    // when no interval log is written
+    static final Duration DEFAULT_COLLECT_INTERVAL = Duration.ofSeconds(1);
+
+    private final CommandIds commandIds;
+
+    private final int significantDigits;
+
+    private final AtomicReferenceArray<Recorder> recorders = new AtomicReferenceArray<>(CommandIds.MAX_COMMANDS);
+
+    // guarded by this
+    private final Histogram[] recycled = new Histogram[CommandIds.MAX_COMMANDS];
+
+    private final Histogram[] pending = new Histogram[CommandIds.MAX_COMMANDS];
+
+    private final Histogram[] cumulative = new Histogram[CommandIds.MAX_COMMANDS];
+
+    private final Histogram total;
+
+    private HistogramLogWriter intervalLog;
+
+    private long lastCollect = System.currentTimeMillis();
+
+    LatencyHistograms(CommandIds commandIds, int significantDigits) {
+        this.commandIds = commandIds;
+        this.significantDigits = significantDigits;
+        this.total = new Histogram(significantDigits);
+    }
+
+    int significantDigits() {
+        return significantDigits;
+    }
+
+    void record(int commandId, long timeNs) {
+        Recorder recorder = recorders.get(commandId);
+        if (recorder == null) {
+            recorders.compareAndSet(commandId, null, new Recorder(significantDigits));
+            recorder = recorders.get(commandId);
+        }
+        recorder.recordValue(Math.max(0, timeNs));
+    }
+
+    /**
+     * Adds latencies that were already collected into an interval histogram.
+     */
+    synchronized void add(int commandId, Histogram interval) {
+        pending(commandId).add(interval);
+    }
+
+    synchronized void intervalLog(HistogramLogWriter intervalLog) {
+        this.intervalLog = intervalLog;
+    }
+
+    /**
+     * Moves latencies recorded since the previous call into the cumulative histograms.
+     */
+    synchronized void collect() {
+        long now = System.currentTimeMillis();
+        Histogram totalInterval = null;
+
+        for (int id = 0; id < commandIds.size(); id++) {
+            Recorder recorder = recorders.get(id);
+            if (recorder != null) {
+                recycled[id] = recorder.getIntervalHistogram(recycled[id]);
+                pending(id).add(recycled[id]);
+            }
+
+            Histogram interval = pending[id];
+            if (interval == null || interval.getTotalCount() == 0) {
+                continue;
+            }
+
+            if (cumulative[id] == null) {
+                cumulative[id] = new Histogram(significantDigits);
+            }
+            cumulative[id].add(interval);
+            total.add(interval);
+
+            if (totalInterval == null) {
+                totalInterval = new Histogram(significantDigits);
+            }
+            totalInterval.add(interval);
+
+            writeInterval(interval, commandIds.name(id), now);
+            interval.reset();
+        }
+
+        if (totalInterval != null) {
+            writeInterval(totalInterval, null, now);
+        }
+        lastCollect = now;
+    }
+
+    /**
+     * @return copy of the cumulative histogram across all commands
+     */
+    synchronized Histogram total() {
+        return total.copy();
+    }
+
+    /**
+     * @return copy of the cumulative histogram of the command, or {@code null} if no latency was recorded for it
+     */
+    synchronized Histogram command(int commandId) {
+        return cumulative[commandId] != null ? cumulative[commandId].copy() : null;
+    }
+
+    private Histogram pending(int commandId) {
+        if (pending[commandId] == null) {
+            pending[commandId] = new Histogram(significantDigits);
+        }
+        return pending[commandId];
+    }
+
+    private void writeInterval(Histogram interval, String tag, long now) {
+        if (intervalLog == null) {
+            return;
+        }
+
+        interval.setStartTimeStamp(lastCollect);
+        interval.setEndTimeStamp(now);
+        interval.setTag(tag);
+        intervalLog.outputIntervalHistogram(interval);
+    }
+
+}
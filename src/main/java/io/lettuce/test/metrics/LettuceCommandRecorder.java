@@ -0,0 +1,69 @@
+package io.lettuce.test.metrics;
+
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.output.CommandOutput;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.lettuce.core.protocol.RedisCommand;
+
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Command recorder of the {@code lettuce} backend, installed as the {@link CommandLatencyRecorder} of the client resources. The
+ * connection handler reports each command once its reply is decoded, so the command interfaces are used without
+ * {@link MetricsProxy}: no reflection and no completion callback per command.
+ * <p>
+ * The id of each {@link CommandType} is resolved once into a preallocated array, latencies and counts go to the
+ * {@link HdrCommandRecorder}, so recording does not allocate. Latency runs from writing the command to the channel until its
+ * reply is decoded. Commands failing without a reply, e.g. timeouts, are not recorded. MOVED and ASK replies followed by the
+ * cluster client are not recorded either, the redirected command is.
+ */
+class LettuceCommandRecorder implements CommandLatencyRecorder {
+
+    private static final int UNRESOLVED = -1;
+
+    private final MetricsReporter metricsReporter;
+
+    // Command id per CommandType ordinal, racy but idempotent resolution
+    private final int[] commandTypeIds = new int[CommandType.values().length];
+
+    LettuceCommandRecorder(MetricsReporter metricsReporter) {
+        this.metricsReporter = metricsReporter;
+        Arrays.fill(commandTypeIds, UNRESOLVED);
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, RedisCommand<?, ?, ?> command,
+            long firstResponseLatency, long completionLatency) {
+        CommandOutput<?, ?, ?> output = command.getOutput();
+        String error = output != null ? output.getError() : null;
+        if (error != null && (error.startsWith("MOVED ") || error.startsWith("ASK "))) {
+            return;
+        }
+        metricsReporter.recordHandledCommand(commandId(command.getType()), completionLatency, error != null);
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+            long firstResponseLatency, long completionLatency) {
+        metricsReporter.recordHandledCommand(commandId(commandType), completionLatency, false);
+    }
+
+    /**
+     * Commands are recorded under their lower case name, like the API methods and the dispatched commands of the proxy.
+     */
+    private int commandId(ProtocolKeyword keyword) {
+        if (keyword instanceof CommandType type) {
+            int id = commandTypeIds[type.ordinal()];
+            if (id == UNRESOLVED) {
+                id = metricsReporter.commandId(type.name().toLowerCase(Locale.ROOT));
+                commandTypeIds[type.ordinal()] = id;
+            }
+            return id;
+        }
+        return metricsReporter.commandId(keyword.toString().toLowerCase(Locale.ROOT));
+    }
+
+}
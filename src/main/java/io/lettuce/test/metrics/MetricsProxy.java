@@ -1,35 +1,91 @@
 package io.lettuce.test.metrics;
 
+import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.RedisFuture;
-import io.micrometer.core.instrument.Timer;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.lettuce.test.util.RatePacer;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-
-import static io.lettuce.test.metrics.MetricsReporter.cmdKeyError;
-import static io.lettuce.test.metrics.MetricsReporter.cmdKeyOk;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MetricsProxy<T> implements InvocationHandler {
 
     private static final Logger log = LoggerFactory.getLogger(MetricsProxy.class);
 
+    // Methods of the command interfaces not sending a command, invoked without pacing and metrics
+    private static final Set<String> NON_COMMAND_METHODS = Set.of("getStatefulConnection", "getConnection", "getJsonParser",
+            "setTimeout", "setAutoFlushCommands", "flushCommands", "isOpen", "reset", "masters", "upstream", "slaves",
+            "replicas", "all", "readonly", "nodes");
+
     private final T target;
 
     private final MetricsReporter metricsReporter;
 
+    private final RatePacer pacer;
+
+    private final Partitions partitions;
+
+    private static final int NOT_A_COMMAND = -1;
+
+    private static final int DISPATCH = -2;
+
+    // Command id per method, resolved on the first invocation so each call costs a single lookup
+    private final Map<Method, Integer> methodCommandIds = new ConcurrentHashMap<>();
+
+    private final Map<ProtocolKeyword, Integer> dispatchedCommandIds = new ConcurrentHashMap<>();
+
     public MetricsProxy(T target, MetricsReporter metricsReporter) {
+        this(target, metricsReporter, null);
+    }
+
+    /**
+     * @param pacer optional pacer. When set, each command waits for its slot and latency is measured from the intended start
+     *        time of the slot instead of the actual invocation time.
+     */
+    public MetricsProxy(T target, MetricsReporter metricsReporter, RatePacer pacer) {
+        this(target, metricsReporter, pacer, null);
+    }
+
+    /**
+     * @param partitions optional cluster partitions. When set, single key commands are also recorded per node serving the key.
+     */
+    public MetricsProxy(T target, MetricsReporter metricsReporter, RatePacer pacer, Partitions partitions) {
         this.target = target;
         this.metricsReporter = metricsReporter;
+        this.pacer = pacer;
+        this.partitions = partitions;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        String commandName = method.getName();
+        int commandId = commandId(method, args);
+        if (commandId == NOT_A_COMMAND) {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        RedisClusterNode node = partitions != null ? NodeMetrics.nodeOf(partitions, args) : null;
 
-        Timer.Sample sample = metricsReporter.startCommandTimer();
+        if (Publisher.class.isAssignableFrom(method.getReturnType())) {
+            return invokeReactive(commandId, node, method, args);
+        }
+
+        long startTime = pacer != null ? pacer.acquire() : metricsReporter.commandStartTime();
         Object result;
         try {
             result = method.invoke(target, args);
@@ -41,24 +97,106 @@ public class MetricsProxy<T> implements InvocationHandler {
 
                 command.whenComplete((res, ex) -> {
                     if (ex != null) {
-                        metricsReporter.incrementCommandError(commandName);
-                        metricsReporter.recordCommandLatency(cmdKeyError(commandName, ex), sample);
-                        log.error("Command failed", ex);
+                        recordError(commandId, node, startTime, ex);
                     } else {
-                        metricsReporter.recordCommandLatency(cmdKeyOk(commandName), sample);
+                        recordSuccess(commandId, node, startTime, args, res);
                     }
                 });
                 return result;
             }
 
-            metricsReporter.recordCommandLatency(cmdKeyOk(commandName), sample);
+            recordSuccess(commandId, node, startTime, args, result);
             return result;
         } catch (InvocationTargetException ex) {
-            metricsReporter.incrementCommandError(commandName);
-            metricsReporter.recordCommandLatency(cmdKeyError(commandName, ex.getCause()), sample);
-            log.error("Command failed", ex.getCause());
+            recordError(commandId, node, startTime, ex.getCause());
             throw ex.getCause();
         }
     }
 
+    /**
+     * Reactive commands are lazy, the command is sent on subscription. Latency is measured from subscription until the
+     * publisher terminates. Commands are not paced, as waiting for a slot would block the subscribing (event loop) thread. The
+     * payload size of {@link Flux} results is not counted towards the size bucket.
+     */
+    private Object invokeReactive(int commandId, RedisClusterNode node, Method method, Object[] args) throws Throwable {
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            recordError(commandId, node, metricsReporter.commandStartTime(), ex.getCause());
+            throw ex.getCause();
+        }
+
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long startTime = metricsReporter.commandStartTime();
+                return mono.doOnSuccess(res -> recordSuccess(commandId, node, startTime, args, res))
+                        .doOnError(ex -> recordError(commandId, node, startTime, ex));
+            });
+        }
+
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long startTime = metricsReporter.commandStartTime();
+                return flux.doOnComplete(() -> recordSuccess(commandId, node, startTime, args, null))
+                        .doOnError(ex -> recordError(commandId, node, startTime, ex));
+            });
+        }
+
+        return result;
+    }
+
+    static boolean isCommand(Method method) {
+        return method.getDeclaringClass() != Object.class && !NON_COMMAND_METHODS.contains(method.getName());
+    }
+
+    /**
+     * Commands issued through {@code dispatch} are recorded under the dispatched command, like the equivalent API method.
+     *
+     * @return the command id, or {@link #NOT_A_COMMAND}
+     */
+    private int commandId(Method method, Object[] args) {
+        Integer id = methodCommandIds.get(method);
+        if (id == null) {
+            id = methodCommandIds.computeIfAbsent(method, m -> !isCommand(m) ? NOT_A_COMMAND
+                    : "dispatch".equals(m.getName()) ? DISPATCH : metricsReporter.commandId(m.getName()));
+        }
+        if (id != DISPATCH) {
+            return id;
+        }
+
+        if (args != null && args.length > 0 && args[0]instanceof ProtocolKeyword keyword) {
+            return dispatchedCommandIds.computeIfAbsent(keyword,
+                    k -> metricsReporter.commandId(k.toString().toLowerCase(Locale.ROOT)));
+        }
+        return metricsReporter.commandId(method.getName());
+    }
+
+    private void recordSuccess(int commandId, RedisClusterNode node, long startTime, Object[] args, Object result) {
+        if (node != null) {
+            metricsReporter.recordNodeCommand(node, startTime, OperationStatus.SUCCESS);
+        }
+        if (metricsReporter.sizeBucketsEnabled()) {
+            long payloadBytes = SizeBuckets.payloadSize(args) + SizeBuckets.payloadSize(result);
+            metricsReporter.recordCommandSuccess(commandId, startTime, payloadBytes);
+        } else {
+            metricsReporter.recordCommandSuccess(commandId, startTime);
+        }
+    }
+
+    private void recordError(int commandId, RedisClusterNode node, long startTime, Throwable ex) {
+        if (node != null) {
+            metricsReporter.recordNodeCommand(node, startTime, OperationStatus.ERROR);
+        }
+        metricsReporter.recordCommandError(commandId, startTime);
+        if (ex instanceof RedisCommandExecutionException && ex.getMessage() != null) {
+            if (ex.getMessage().startsWith("MOVED ")) {
+                metricsReporter.recordRedirection(false, "error");
+            } else if (ex.getMessage().startsWith("ASK ")) {
+                metricsReporter.recordRedirection(true, "error");
+            }
+        }
+        log.error("Command failed", ex);
+    }
+
 }
@@ -1,15 +1,27 @@
 package io.lettuce.test.metrics;
 
 import io.lettuce.core.LettuceVersion;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.test.NettyTransport;
 import io.lettuce.test.config.TestRunProperties;
+import io.lettuce.test.util.RatePacer;
 import io.lettuce.test.workloads.BaseWorkload;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionTimer;
 import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.distribution.HistogramSnapshot;
 import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
@@ -30,12 +42,14 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.OptionalDouble;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Component
 public class MetricsReporter {
@@ -48,12 +62,16 @@ public class MetricsReporter {
 
     public static final String REDIS_OPERATIONS_TOTAL = "redis.operations.total";
 
+    public static final String REDIS_OPERATION_SIZE_DURATION = "redis.operation.size.duration";
+
     public static final String REDIS_RECONNECTION_DURATION = "redis.reconnection.duration";
 
     public static final String REDIS_TEST_DURATION = "redis.test.duration";
 
     public static final String LETTUCE_RECONNECT_TOTAL_ATTEMPTS = "lettuce.reconnect.total.attempts";
 
+    public static final String LATENCY_LOG_FILE = "test-run-latency.hlog";
+
     private final MeterRegistry meterRegistry;
 
     private final SimpleMeterRegistry simpleMeterRegistry;
@@ -71,8 +89,75 @@ public class MetricsReporter {
     @Value("${runner.test.workload.type}")
     private String workloadType;
 
+    /**
+     * Backend recording command latencies. {@code micrometer} records each command directly into the Micrometer meters,
+     * {@code hdr} records into HdrHistogram recorders and publishes them to the same meters every
+     * {@code metrics.command.publishRate}. {@code lettuce} records into the same recorders from the connection handler, see
+     * {@link LettuceCommandRecorder}.
+     */
+    @Value("${metrics.command.recorder:micrometer}")
+    private String commandRecorder = "micrometer";
+
+    @Value("${metrics.command.publishRate:PT1S}")
+    private Duration commandPublishRate = Duration.ofSeconds(1);
+
+    private final CommandIds commandIds = new CommandIds();
+
+    private volatile HdrCommandRecorder hdrCommandRecorder;
+
+    private volatile LettuceCommandRecorder lettuceCommandRecorder;
+
+    /**
+     * Number of significant value digits kept by HdrHistogram, trading precision for memory.
+     */
+    @Value("${metrics.latency.significantDigits:3}")
+    private int latencySignificantDigits = LatencyHistograms.DEFAULT_SIGNIFICANT_DIGITS;
+
+    /**
+     * Interval of the latency histograms written to the {@code .hlog} file next to the test run summary. Zero disables the log.
+     */
+    @Value("${metrics.latency.logInterval:PT1S}")
+    private Duration latencyLogInterval = Duration.ofSeconds(1);
+
+    /**
+     * Payload size buckets, e.g. {@code 1KB,16KB,128KB}. When set, successful command latencies are also recorded per command
+     * and size bucket. Empty disables the breakdown.
+     */
+    @Value("${metrics.latency.sizeBuckets:}")
+    private String latencySizeBuckets = "";
+
+    private volatile SizeBuckets sizeBuckets;
+
+    private volatile AtomicReferenceArray<Timer> sizeBucketTimers;
+
+    private volatile LatencyHistograms latencyHistograms = new LatencyHistograms(commandIds,
+            LatencyHistograms.DEFAULT_SIGNIFICANT_DIGITS);
+
+    private HistogramLogWriter latencyLogWriter;
+
+    private volatile NodeMetrics nodeMetrics;
+
+    private volatile BatchMetrics batchMetrics;
+
+    private volatile RoleMetrics roleMetrics;
+
+    private volatile ReplicationLagMetrics replicationLagMetrics;
+
+    private volatile TopologyTimeline topologyTimeline;
+
+    private volatile TopologyRefreshMetrics topologyRefreshMetrics;
+
     private final Map<CommandKey, Timer> commandLatencyTimers = new ConcurrentHashMap<>();
 
+    // hdr backend only, guarded by this: exported latencies per command id and status, and across all commands
+    private final PublishedLatencies[] publishedLatencies = new PublishedLatencies[CommandIds.MAX_COMMANDS * 2];
+
+    private PublishedLatencies publishedTotal;
+
+    private Histogram publishedInterval;
+
+    private long publishedCount;
+
     private final Timer commandLatencyTotalTimer;
 
     private final Map<String, Counter> commandErrorCounters = new ConcurrentHashMap<>();
@@ -107,6 +192,17 @@ public class MetricsReporter {
 
     private volatile Instant testRunEnd;
 
+    private volatile ProcessIo processIoStart;
+
+    private volatile ProcessIo processIoEnd;
+
+    private final CpuAccounting cpuAccounting = new CpuAccounting();
+
+    private ScheduledFuture<?> cpuSampling;
+
+    // CPU and allocations of the completed run, excluding the shutdown
+    private volatile CpuAccounting.Usage cpuUsage;
+
     /**
      * maxLatency is used to tracks max latency holds the true maximum since app start. Note: Miicrometer SimpleRegistry Timer
      * max is rolled over every 1 minute.
@@ -138,16 +234,25 @@ public class MetricsReporter {
         return Timer.start(meterRegistry);
     }
 
-    Timer.Sample startCommandTimer() {
-        return Timer.start(meterRegistry);
+    long commandStartTime() {
+        return meterRegistry.config().clock().monotonicTime();
     }
 
     public void recordStartTime() {
         this.testRunStart = Instant.now();
+        this.processIoStart = ProcessIo.read();
+        cpuAccounting.start();
+        // Sample thread CPU time while the run is in progress, before short-lived threads terminate
+        cpuSampling = taskScheduler.scheduleAtFixedRate(cpuAccounting::sample, Duration.ofSeconds(1));
     }
 
     public void recordEndTime() {
         this.testRunEnd = Instant.now();
+        this.processIoEnd = ProcessIo.read();
+        this.cpuUsage = cpuAccounting.usage();
+        if (cpuSampling != null) {
+            cpuSampling.cancel(false);
+        }
         Timer.builder(REDIS_TEST_DURATION).description("Measures the duration of the test run").register(meterRegistry)
                 .record(Duration.between(testRunStart, testRunEnd));
     }
@@ -160,6 +265,28 @@ public class MetricsReporter {
         Timer timer = commandLatencyTimers.computeIfAbsent(commandKey, this::createCommandLatencyTimer);
         long timeNs = sample.stop(timer);
 
+        recordCommandTotals(commandIds.idOf(commandKey.commandName()), commandKey, timeNs);
+    }
+
+    /**
+     * Records the latency of a command started at {@code startTime}.
+     *
+     * @param commandId the command id, see {@link #commandId(String)}
+     * @param status the outcome of the command
+     * @param startTime start time in {@link io.micrometer.core.instrument.Clock#monotonicTime()} units, either the actual
+     *        invocation time or the intended start time when commands are paced
+     */
+    void recordCommandLatency(int commandId, OperationStatus status, long startTime) {
+        CommandKey commandKey = commandIds.key(commandId, status);
+        Timer timer = commandLatencyTimers.computeIfAbsent(commandKey, this::createCommandLatencyTimer);
+        long timeNs = meterRegistry.config().clock().monotonicTime() - startTime;
+        timer.record(timeNs, TimeUnit.NANOSECONDS);
+
+        recordCommandTotals(commandId, commandKey, timeNs);
+    }
+
+    private void recordCommandTotals(int commandId, CommandKey commandKey, long timeNs) {
+        latencyHistograms.record(commandId, timeNs);
         commandLatencyTotalTimer.record(Duration.ofNanos(timeNs));
         maxLatencyNs.updateAndGet(currentMax -> Math.max(currentMax, timeNs));
 
@@ -167,6 +294,270 @@ public class MetricsReporter {
         counter.increment();
     }
 
+    /**
+     * Records a single key command per cluster node serving the key, see {@link NodeMetrics}.
+     */
+    void recordNodeCommand(RedisClusterNode node, long startTime, OperationStatus status) {
+        NodeMetrics metrics = nodeMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                if (nodeMetrics == null) {
+                    nodeMetrics = new NodeMetrics(meterRegistry, latencyHistograms.significantDigits());
+                }
+                metrics = nodeMetrics;
+            }
+        }
+        metrics.record(node, commandStartTime() - startTime, status);
+    }
+
+    /**
+     * Records a multi-key batch on a cluster by the number of nodes and slots it fans out to, see {@link BatchMetrics}.
+     */
+    public void recordBatch(String command, int nodes, int slots, boolean colocated, long durationNs, OperationStatus status) {
+        BatchMetrics metrics = batchMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                if (batchMetrics == null) {
+                    batchMetrics = new BatchMetrics(meterRegistry, latencyHistograms.significantDigits());
+                }
+                metrics = batchMetrics;
+            }
+        }
+        metrics.record(command, nodes, slots, colocated, durationNs, status);
+    }
+
+    /**
+     * @return the command latency recorder by role and address of the serving cluster node, see {@link RoleMetrics}
+     */
+    public synchronized RoleMetrics roleMetrics() {
+        if (roleMetrics == null) {
+            roleMetrics = new RoleMetrics(meterRegistry, latencyHistograms.significantDigits());
+        }
+        return roleMetrics;
+    }
+
+    /**
+     * @return the duration, connections and reply bytes of the cluster topology refreshes, see {@link TopologyRefreshMetrics}
+     */
+    public synchronized TopologyRefreshMetrics topologyRefreshMetrics() {
+        if (topologyRefreshMetrics == null) {
+            topologyRefreshMetrics = new TopologyRefreshMetrics(meterRegistry, latencyHistograms.significantDigits());
+        }
+        return topologyRefreshMetrics;
+    }
+
+    /**
+     * Records a probe of the replication lag of a shard, see {@link ReplicationLagMetrics}.
+     *
+     * @param shard address of the upstream of the shard
+     * @param lagNs time from the acknowledged write until it was read, or until the probe gave up
+     * @param staleReads reads returning the previous value meanwhile
+     * @param visible {@code false} if the write was not read before the probe timeout
+     */
+    public void recordReplicationLag(String shard, long lagNs, int staleReads, boolean visible) {
+        ReplicationLagMetrics metrics = replicationLagMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                if (replicationLagMetrics == null) {
+                    replicationLagMetrics = new ReplicationLagMetrics(meterRegistry, latencyHistograms.significantDigits());
+                }
+                metrics = replicationLagMetrics;
+            }
+        }
+        metrics.record(shard, lagNs, staleReads, visible);
+    }
+
+    /**
+     * Starts the per second timeline of the run, to analyze the impact of cluster topology changes, see
+     * {@link TopologyTimeline}. Enabled by {@code clusterClientOptions.topologyTimeline}.
+     */
+    public synchronized void enableTopologyTimeline() {
+        if (topologyTimeline == null) {
+            topologyTimeline = new TopologyTimeline(meterRegistry, latencyHistograms.significantDigits());
+            taskScheduler.scheduleAtFixedRate(() -> topologyTimeline.tick(System.currentTimeMillis()), Duration.ofSeconds(1));
+        }
+    }
+
+    public void recordTopologyRefresh() {
+        TopologyTimeline timeline = topologyTimeline;
+        if (timeline != null) {
+            timeline.refreshStarted(System.currentTimeMillis());
+        }
+    }
+
+    public void recordTopologyChange(List<RedisClusterNode> before, List<RedisClusterNode> after) {
+        TopologyTimeline timeline = topologyTimeline;
+        if (timeline != null) {
+            timeline.topologyChanged(before, after, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Records a MOVED or ASK redirection, followed by the client ({@code event}) or failing the command ({@code error}).
+     */
+    public void recordRedirection(boolean ask, String source) {
+        TopologyTimeline timeline = topologyTimeline;
+        if (timeline != null) {
+            timeline.redirection(ask, source);
+        }
+    }
+
+    int commandId(String commandName) {
+        return commandIds.idOf(commandName);
+    }
+
+    /**
+     * Records a successful command started at {@code startTime}, see {@link #recordCommandLatency(int, OperationStatus, long)}.
+     */
+    void recordCommandSuccess(int commandId, long startTime) {
+        TopologyTimeline timeline = topologyTimeline;
+        if (timeline != null) {
+            timeline.record(commandStartTime() - startTime, false);
+        }
+
+        HdrCommandRecorder recorder = hdrCommandRecorder;
+        if (recorder != null) {
+            recorder.recordSuccess(commandId, commandStartTime() - startTime);
+        } else {
+            recordCommandLatency(commandId, OperationStatus.SUCCESS, startTime);
+        }
+    }
+
+    /**
+     * Records a successful command and, when size buckets are enabled, its latency in the bucket of {@code payloadBytes}.
+     */
+    void recordCommandSuccess(int commandId, long startTime, long payloadBytes) {
+        recordCommandSuccess(commandId, startTime);
+
+        SizeBuckets buckets = sizeBuckets;
+        if (buckets != null) {
+            int bucket = buckets.bucketOf(payloadBytes);
+            int index = commandId * buckets.count() + bucket;
+
+            Timer timer = sizeBucketTimers.get(index);
+            if (timer == null) {
+                timer = createSizeBucketTimer(commandIds.name(commandId), buckets.tag(bucket));
+                sizeBucketTimers.set(index, timer);
+            }
+            timer.record(commandStartTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    boolean sizeBucketsEnabled() {
+        return sizeBuckets != null;
+    }
+
+    /**
+     * Enables the per size bucket latency breakdown, see {@link SizeBuckets}.
+     */
+    void enableSizeBuckets(String bounds) {
+        SizeBuckets buckets = SizeBuckets.parse(bounds);
+        sizeBucketTimers = new AtomicReferenceArray<>(CommandIds.MAX_COMMANDS * buckets.count());
+        sizeBuckets = buckets;
+    }
+
+    void recordCommandError(int commandId, long startTime) {
+        TopologyTimeline timeline = topologyTimeline;
+        if (timeline != null) {
+            timeline.record(commandStartTime() - startTime, true);
+        }
+
+        HdrCommandRecorder recorder = hdrCommandRecorder;
+        if (recorder != null) {
+            recorder.recordError(commandId, commandStartTime() - startTime);
+        } else {
+            incrementCommandError(commandIds.name(commandId));
+            recordCommandLatency(commandId, OperationStatus.ERROR, startTime);
+        }
+    }
+
+    /**
+     * Records a command completed after {@code durationNs} as reported by the connection handler, see
+     * {@link LettuceCommandRecorder}.
+     */
+    void recordHandledCommand(int commandId, long durationNs, boolean error) {
+        TopologyTimeline timeline = topologyTimeline;
+        if (timeline != null) {
+            timeline.record(durationNs, error);
+        }
+
+        if (error) {
+            hdrCommandRecorder.recordError(commandId, durationNs);
+        } else {
+            hdrCommandRecorder.recordSuccess(commandId, durationNs);
+        }
+    }
+
+    /**
+     * @return the recorder to install into the client resources when commands are recorded by the connection handler,
+     *         {@code null} when they are recorded by {@link #withMetrics(Object)}
+     */
+    public CommandLatencyRecorder commandLatencyRecorder() {
+        return lettuceCommandRecorder;
+    }
+
+    /**
+     * Switches command recording to the connection handler, into the recorders of the {@code hdr} backend. The command
+     * interfaces are no longer wrapped by {@link #withMetrics(Object)}.
+     */
+    synchronized void enableLettuceCommandRecorder() {
+        enableHdrCommandRecorder();
+        lettuceCommandRecorder = new LettuceCommandRecorder(this);
+    }
+
+    /**
+     * Switches command recording to HdrHistogram recorders. Recorded latencies only show up in the meters once
+     * {@link #publishCommandLatencies()} ran. The command timers are exported as {@link PublishedLatencies} instead.
+     */
+    synchronized void enableHdrCommandRecorder() {
+        meterRegistry.remove(commandLatencyTotalTimer);
+        publishedTotal = new PublishedLatencies(meterRegistry, REDIS_OPERATION_DURATION_TOTAL,
+                "Measures the execution time of Redis commands from API invocation until command completion", Tags.empty());
+        publishedInterval = new Histogram(latencySignificantDigits);
+        hdrCommandRecorder = new HdrCommandRecorder(commandIds, latencySignificantDigits);
+    }
+
+    /**
+     * Publishes the interval histograms recorded by the {@code hdr} backend since the previous call to the command meters.
+     */
+    synchronized void publishCommandLatencies() {
+        HdrCommandRecorder recorder = hdrCommandRecorder;
+        if (recorder != null) {
+            publishedInterval.reset();
+            publishedCount = 0;
+            recorder.publish(this::publishCommandInterval);
+            publishedTotal.publish(publishedInterval, publishedCount);
+        }
+    }
+
+    private void publishCommandInterval(int commandId, OperationStatus status, Histogram interval, long count) {
+        latencyHistograms.add(commandId, interval);
+        publishedInterval.add(interval);
+        publishedCount += count;
+
+        int index = commandId * 2 + (status == OperationStatus.SUCCESS ? 0 : 1);
+        PublishedLatencies latencies = publishedLatencies[index];
+        if (latencies == null) {
+            latencies = new PublishedLatencies(meterRegistry, REDIS_OPERATION_DURATION,
+                    "Measures the execution time of Redis commands from API invocation until command completion per command",
+                    Tags.of("command", commandIds.name(commandId), "status", status.name().toLowerCase()));
+            publishedLatencies[index] = latencies;
+        }
+        latencies.publish(interval, count);
+
+        CommandKey commandKey = commandIds.key(commandId, status);
+        if (interval.getTotalCount() > 0) {
+            long maxNs = interval.getMaxValue();
+            maxLatencyNs.updateAndGet(currentMax -> Math.max(currentMax, maxNs));
+        }
+
+        commandTotalCounter.computeIfAbsent(commandKey, this::createCommandTotalCounter).increment(count);
+        if (status == OperationStatus.ERROR) {
+            commandErrorCounters.computeIfAbsent(commandIds.name(commandId), this::createCommandErrorCounter).increment(count);
+            commandErrorTotalCounter.increment(count);
+        }
+    }
+
     void incrementCommandError(String commandName) {
         commandErrorCounters.computeIfAbsent(commandName, this::createCommandErrorCounter).increment();
         commandErrorTotalCounter.increment();
@@ -179,6 +570,44 @@ public class MetricsReporter {
         sample.stop(workloadDuration);
     }
 
+    public void recordVirtualThreadPinned(Duration duration) {
+        Timer.builder("redis.workload.thread.pinned")
+                .description("Measures the duration and count of virtual threads pinned to their carrier thread")
+                .register(meterRegistry).record(duration);
+    }
+
+    public void recordPipelineFlush(long durationNs, int batchSize) {
+        Timer.builder("redis.pipeline.flush.duration")
+                .description("Measures the time taken to flush a batch of pipelined commands to the transport")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry).record(durationNs, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("redis.pipeline.batch.size")
+                .description("Number of commands written to the transport per pipeline flush")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry).record(batchSize);
+    }
+
+    public void recordPoolBorrow(Timer.Sample sample, OperationStatus status) {
+        sample.stop(Timer.builder("redis.pool.borrow.duration")
+                .description("Measures the time taken to borrow a connection from the pool, including the wait for a free one")
+                .tag("status", status.name().toLowerCase()).publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry));
+    }
+
+    public void incrementPoolExhausted() {
+        Counter.builder("redis.pool.exhausted")
+                .description("Counts the connection borrow attempts that timed out because the pool was exhausted")
+                .register(meterRegistry).increment();
+    }
+
+    public void registerConnectionPool(String pool, GenericObjectPool<?> connectionPool) {
+        Gauge.builder("redis.pool.connections.active", connectionPool, GenericObjectPool::getNumActive)
+                .description("Number of connections currently borrowed from the pool").tag("pool", pool)
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.connections.idle", connectionPool, GenericObjectPool::getNumIdle)
+                .description("Number of idle connections in the pool").tag("pool", pool).register(meterRegistry);
+        Gauge.builder("redis.pool.waiters", connectionPool, GenericObjectPool::getNumWaiters)
+                .description("Number of threads waiting to borrow a connection from the pool").tag("pool", pool)
+                .register(meterRegistry);
+    }
+
     public void recordSuccessfulConnection(Timer.Sample sample) {
         sample.stop(connectionSuccessTimer);
     }
@@ -232,6 +661,13 @@ public class MetricsReporter {
                 .publishPercentileHistogram(true).publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
     }
 
+    private Timer createSizeBucketTimer(String commandName, String sizeBucket) {
+        return Timer.builder(REDIS_OPERATION_SIZE_DURATION).description(
+                "Measures the execution time of successful Redis commands per command and payload size of arguments and result")
+                .tag("command", commandName).tag("size", sizeBucket).publishPercentileHistogram(true)
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+    }
+
     private Timer createCommandLatencyTotalTimer() {
         return Timer.builder(REDIS_OPERATION_DURATION_TOTAL)
                 .description("Measures the execution time of Redis commands from API invocation until command completion")
@@ -300,10 +736,29 @@ public class MetricsReporter {
                 .description("Counts the number of failed Redis reconnect attempts").register(meterRegistry);
     }
 
-    @SuppressWarnings("unchecked")
     public <T> T withMetrics(T target) {
+        return withMetrics(target, null);
+    }
+
+    /**
+     * Wraps the command interface with metrics collection, optionally pacing each command with the given {@link RatePacer}.
+     */
+    public <T> T withMetrics(T target, RatePacer pacer) {
+        return withMetrics(target, pacer, null);
+    }
+
+    /**
+     * Wraps the command interface of a cluster connection with metrics collection, additionally recording single key commands
+     * per node serving the key when {@code partitions} is set. Returns {@code target} itself when commands are recorded by the
+     * connection handler.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T withMetrics(T target, RatePacer pacer, Partitions partitions) {
+        if (lettuceCommandRecorder != null) {
+            return target;
+        }
         return (T) Proxy.newProxyInstance(target.getClass().getClassLoader(), target.getClass().getInterfaces(),
-                new MetricsProxy<>(target, this));
+                new MetricsProxy<>(target, this, pacer, partitions));
     }
 
     // @Scheduled(fixedRateString = "${simple.metrics.dumpRate}")
@@ -321,6 +776,9 @@ public class MetricsReporter {
                 Timer timer = (Timer) meter;
                 log.info("Timer: " + timer.getId() + " count: " + timer.count() + " total time: "
                         + timer.totalTime(TimeUnit.MILLISECONDS));
+            } else if (meter instanceof FunctionTimer timer) {
+                log.info("Timer: " + timer.getId() + " count: " + (long) timer.count() + " total time: "
+                        + timer.totalTime(TimeUnit.MILLISECONDS));
             } else if (meter instanceof Gauge) {
                 Gauge gauge = (Gauge) meter;
                 log.info("Gauge: " + gauge.getId() + " value: " + gauge.value());
@@ -330,6 +788,41 @@ public class MetricsReporter {
 
     @PostConstruct
     public void startScheduledTask() {
+        if (latencySignificantDigits != latencyHistograms.significantDigits()) {
+            latencyHistograms = new LatencyHistograms(commandIds, latencySignificantDigits);
+        }
+        startLatencyLog();
+        // The only periodic collection, so the logged intervals are regular; the results read the last collected state
+        taskScheduler.scheduleAtFixedRate(latencyHistograms::collect,
+                latencyLogInterval.isZero() ? LatencyHistograms.DEFAULT_COLLECT_INTERVAL : latencyLogInterval);
+
+        if (!latencySizeBuckets.isBlank()) {
+            log.info("Recording command latencies per payload size bucket {}", latencySizeBuckets);
+            enableSizeBuckets(latencySizeBuckets);
+        }
+
+        switch (commandRecorder.toLowerCase()) {
+            case "micrometer":
+                break;
+            case "hdr":
+                log.info("Recording command latencies with HdrHistogram, publishing every {}", commandPublishRate);
+                enableHdrCommandRecorder();
+                taskScheduler.scheduleAtFixedRate(this::publishCommandLatencies, commandPublishRate);
+                break;
+            case "lettuce":
+                if (sizeBuckets != null) {
+                    throw new IllegalArgumentException(
+                            "metrics.latency.sizeBuckets is not supported by the lettuce command recorder");
+                }
+                log.info("Recording command latencies in the connection handler with HdrHistogram, publishing every {}",
+                        commandPublishRate);
+                enableLettuceCommandRecorder();
+                taskScheduler.scheduleAtFixedRate(this::publishCommandLatencies, commandPublishRate);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid command recorder specified: " + commandRecorder);
+        }
+
         scheduledFuture = taskScheduler.scheduleAtFixedRate(this::dumpMetrics, dumpRate);
         taskScheduler.scheduleAtFixedRate(this::dumpFinalResult, dumpRate);
     }
@@ -337,7 +830,11 @@ public class MetricsReporter {
     @PreDestroy
     public void shutdown() {
         log.info("MetricsReporter is shutting down.");
+        collectLatencies();
         dumpFinalResult();
+        if (latencyLogWriter != null) {
+            latencyLogWriter.close();
+        }
         if (scheduledFuture != null) {
             scheduledFuture.cancel(true);
             dumpMetrics();
@@ -364,6 +861,31 @@ public class MetricsReporter {
         }
     }
 
+    private void startLatencyLog() {
+        if (latencyLogInterval.isZero()) {
+            return;
+        }
+
+        try {
+            Path logDir = Files.createDirectories(Paths.get(logPath));
+            Path hlogFile = logDir.resolve(LATENCY_LOG_FILE);
+
+            long startTime = System.currentTimeMillis();
+            latencyLogWriter = new HistogramLogWriter(hlogFile.toFile());
+            latencyLogWriter.outputComment("[Latency histograms in nanoseconds, instance_id: "
+                    + testRunProperties.getInstanceId() + ", run_id: " + testRunProperties.getRunId() + "]");
+            latencyLogWriter.outputLogFormatVersion();
+            latencyLogWriter.outputStartTime(startTime);
+            latencyLogWriter.setBaseTime(startTime);
+            latencyLogWriter.outputLegend();
+
+            latencyHistograms.intervalLog(latencyLogWriter);
+            log.info("Latency histograms written to: {}", hlogFile.toAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to create latency histogram log", e);
+        }
+    }
+
     private void writeResultsToFile(String jsonResult) {
         try {
             // Create logs directory if it doesn't exist
@@ -391,6 +913,7 @@ public class MetricsReporter {
         result.put("instance_id", testRunProperties.getInstanceId());
         result.put("run_id", testRunProperties.getRunId());
         result.put("version", LettuceVersion.getVersion());
+        result.put("transport", NettyTransport.active().name().toLowerCase());
 
         // Test duration
         result.put("workload_name", workloadType != null ? workloadType : "unknown");
@@ -405,6 +928,62 @@ public class MetricsReporter {
                         ? (redisOperationsStatsSummary.successfulCommands * 100.0 / redisOperationsStatsSummary.totalCommands)
                         : 0.0));
 
+        // Read and write system calls of the process during the run
+        ProcessIo start = processIoStart;
+        ProcessIo end = processIoEnd != null ? processIoEnd : ProcessIo.read();
+        if (start != null && end != null) {
+            ProcessIo io = end.since(start);
+            long commands = redisOperationsStatsSummary.totalCommands;
+            ObjectNode syscalls = result.putObject("syscalls");
+            syscalls.put("read", io.readSyscalls());
+            syscalls.put("write", io.writeSyscalls());
+            syscalls.put("read_per_op", commands > 0 ? (double) io.readSyscalls() / commands : 0.0);
+            syscalls.put("write_per_op", commands > 0 ? (double) io.writeSyscalls() / commands : 0.0);
+        }
+
+        // Client side CPU and allocations
+        CpuAccounting.Usage usage = cpuUsage != null ? cpuUsage : cpuAccounting.usage();
+        if (usage != null) {
+            putCpuUsage(result, usage, redisOperationsStatsSummary.totalCommands);
+        }
+
+        // Per cluster node throughput and latency
+        NodeMetrics nodes = nodeMetrics;
+        if (nodes != null && !nodes.isEmpty()) {
+            Instant runEnd = testRunEnd != null ? testRunEnd : Instant.now();
+            nodes.putSummary(result, testRunStart != null ? Duration.between(testRunStart, runEnd).toNanos() / 1e9 : 0);
+        }
+
+        // Multi-key batch latency by fan-out
+        BatchMetrics batches = batchMetrics;
+        if (batches != null && !batches.isEmpty()) {
+            batches.putSummary(result);
+        }
+
+        // Latency by role of the serving node, and replication lag per shard
+        RoleMetrics roles = roleMetrics;
+        if (roles != null && !roles.isEmpty()) {
+            Instant runEnd = testRunEnd != null ? testRunEnd : Instant.now();
+            roles.putSummary(result, testRunStart != null ? Duration.between(testRunStart, runEnd).toNanos() / 1e9 : 0);
+        }
+        ReplicationLagMetrics replicationLag = replicationLagMetrics;
+        if (replicationLag != null && !replicationLag.isEmpty()) {
+            replicationLag.putSummary(result);
+        }
+
+        // Impact of cluster topology changes
+        TopologyTimeline timeline = topologyTimeline;
+        if (timeline != null && !timeline.isEmpty()) {
+            timeline.putSummary(result);
+        }
+
+        // Cost of the cluster topology refreshes
+        TopologyRefreshMetrics refreshes = topologyRefreshMetrics;
+        if (refreshes != null && !refreshes.isEmpty()) {
+            Instant runEnd = testRunEnd != null ? testRunEnd : Instant.now();
+            refreshes.putSummary(result, testRunStart != null ? Duration.between(testRunStart, runEnd).toNanos() / 1e9 : 0);
+        }
+
         // Reconnection metrics
         result.put("avg_reconnection_duration_ms", getAverageReconnectionDuration().orElseGet(() -> 0.0));
 
@@ -420,6 +999,27 @@ public class MetricsReporter {
         result.put("median_latency_ms", latencyStats.median());
         result.put("p95_latency_ms", latencyStats.p95());
         result.put("p99_latency_ms", latencyStats.p99());
+        result.put("p999_latency_ms", latencyStats.p999());
+        result.put("p9999_latency_ms", latencyStats.p9999());
+        result.put("latency_significant_digits", latencyHistograms.significantDigits());
+
+        // Per command latency statistics
+        ObjectNode commands = result.putObject("command_latency_ms");
+        for (int id = 0; id < commandIds.size(); id++) {
+            Histogram histogram = latencyHistograms.command(id);
+            if (histogram != null) {
+                LatencyStats stats = latencyStats(histogram, histogram.getMaxValue());
+                ObjectNode command = commands.putObject(commandIds.name(id));
+                command.put("count", histogram.getTotalCount());
+                command.put("min", stats.min());
+                command.put("max", stats.max());
+                command.put("median", stats.median());
+                command.put("p95", stats.p95());
+                command.put("p99", stats.p99());
+                command.put("p999", stats.p999());
+                command.put("p9999", stats.p9999());
+            }
+        }
 
         return result;
     }
@@ -432,23 +1032,25 @@ public class MetricsReporter {
         long totalCommands = 0;
         long successfulCommands = 0;
         long failedCommands = 0;
-        Collection<Timer> operationDurationTimers = simpleMeterRegistry.find(REDIS_OPERATION_DURATION).timers();
-        for (Timer m : operationDurationTimers) {
+        // Timers of the micrometer backend, function timers of the hdr backend
+        Collection<Meter> operationDurationMeters = simpleMeterRegistry.find(REDIS_OPERATION_DURATION).meters();
+        for (Meter m : operationDurationMeters) {
+            long count = m instanceof Timer timer ? timer.count() : m instanceof FunctionTimer timer ? (long) timer.count() : 0;
             String status = m.getId().getTag("status");
             if (status == null) {
-                totalCommands += m.count();
+                totalCommands += count;
             } else {
                 switch (status) {
                     case "success":
-                        totalCommands += m.count();
-                        successfulCommands += m.count();
+                        totalCommands += count;
+                        successfulCommands += count;
                         break;
                     case "error":
-                        totalCommands += m.count();
-                        failedCommands += m.count();
+                        totalCommands += count;
+                        failedCommands += count;
                         break;
                     default:
-                        totalCommands += m.count();
+                        totalCommands += count;
                         break;
                 }
             }
@@ -457,31 +1059,40 @@ public class MetricsReporter {
         return new RedisOperationsStatsSummary(totalCommands, successfulCommands, failedCommands);
     }
 
-    public record LatencyStats(double min, double max, double median, double p95, double p99) {
+    public record LatencyStats(double min, double max, double median, double p95, double p99, double p999, double p9999) {
+    }
+
+    /**
+     * Publishes the latencies of the {@code hdr} backend and collects the latency histograms, closing the current interval.
+     * Runs on shutdown, periodically it is left to the publishing and collecting tasks.
+     */
+    void collectLatencies() {
+        publishCommandLatencies();
+        latencyHistograms.collect();
     }
 
+    /**
+     * @return latencies across all commands as of the last collection of the latency histograms
+     */
     public LatencyStats getLatencyStats() {
-        Timer durationTotalTimer = simpleMeterRegistry.find(REDIS_OPERATION_DURATION_TOTAL).timer();
-        if (durationTotalTimer == null) {
-            return new LatencyStats(-1, -1, -1, -1, -1);
-        }
-        HistogramSnapshot snapshot = durationTotalTimer.takeSnapshot();
-        ValueAtPercentile[] percentiles = snapshot.percentileValues();
-        double max = Duration.ofNanos(maxLatencyNs.get()).toMillis();
-        double median = -1;
-        double p95 = -1;
-        double p99 = -1;
-        for (ValueAtPercentile p : percentiles) {
-            if (p.percentile() == 0.5) {
-                median = p.value(TimeUnit.MILLISECONDS);
-            } else if (p.percentile() == 0.95) {
-                p95 = p.value(TimeUnit.MILLISECONDS);
-            } else if (p.percentile() == 0.99) {
-                p99 = p.value(TimeUnit.MILLISECONDS);
-            }
+        Histogram total = latencyHistograms.total();
+        if (total.getTotalCount() == 0) {
+            return new LatencyStats(0, 0, 0, 0, 0, 0, 0);
         }
 
-        return new LatencyStats(0, max, median, p95, p99);
+        // max is tracked exactly, the histogram max is rounded up to its precision
+        return latencyStats(total, maxLatencyNs.get());
+    }
+
+    private static LatencyStats latencyStats(Histogram histogram, long maxNs) {
+        return new LatencyStats(toMillis(histogram.getMinValue()), toMillis(maxNs),
+                toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(95)),
+                toMillis(histogram.getValueAtPercentile(99)), toMillis(histogram.getValueAtPercentile(99.9)),
+                toMillis(histogram.getValueAtPercentile(99.99)));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
     }
 
     private OptionalDouble getAverageReconnectionDuration() {
@@ -490,6 +1101,34 @@ public class MetricsReporter {
 
     }
 
+    private void putCpuUsage(ObjectNode result, CpuAccounting.Usage usage, long commands) {
+        result.put("cpu_ns_per_op", perOp(usage.processCpuNanos(), commands));
+        result.put("alloc_bytes_per_op", perOp(usage.allocatedBytes(), commands));
+
+        Instant end = testRunEnd != null ? testRunEnd : Instant.now();
+        double seconds = testRunStart != null ? Duration.between(testRunStart, end).toNanos() / 1e9 : 0;
+
+        ObjectNode cpu = result.putObject("cpu");
+        cpu.put("process_cpu_ms", usage.processCpuNanos() / 1e6);
+        cpu.put("gc_time_ms", usage.gcTimeMillis());
+        cpu.put("gc_count", usage.gcCount());
+        cpu.put("allocated_bytes", usage.allocatedBytes());
+        cpu.put("allocation_rate_bytes_per_sec", seconds > 0 ? usage.allocatedBytes() / seconds : 0.0);
+
+        ObjectNode threads = cpu.putObject("threads");
+        usage.threadCpuNanos().forEach((category, nanos) -> {
+            long allocated = usage.threadAllocatedBytes().getOrDefault(category, 0L);
+            ObjectNode thread = threads.putObject(category.name().toLowerCase());
+            thread.put("cpu_ms", nanos / 1e6);
+            thread.put("cpu_ns_per_op", perOp(nanos, commands));
+            thread.put("alloc_bytes_per_op", perOp(allocated, commands));
+        });
+    }
+
+    private static double perOp(long value, long commands) {
+        return commands > 0 ? (double) value / commands : 0.0;
+    }
+
     public static CommandKey cmdKeyOk(String commandName) {
         return new CommandKey(commandName, OperationStatus.SUCCESS);
     }
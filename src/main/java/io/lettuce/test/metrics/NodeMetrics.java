@@ -0,0 +1,130 @@
+package io.lettuce.test.metrics;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and latency of single key commands per cluster node, the upstream serving the slot of the command key when the
+ * command is invoked. Isolates the saturation of one primary, which the totals across the cluster average out.
+ */
+class NodeMetrics {
+
+    static final String REDIS_NODE_OPERATION_DURATION = "redis.node.operation.duration";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int significantDigits;
+
+    private final Map<String, NodeStats> nodes = new ConcurrentHashMap<>();
+
+    private final class NodeStats {
+
+        final String address;
+
+        final Timer success;
+
+        final Timer error;
+
+        final Histogram latencies;
+
+        final LongAdder errors = new LongAdder();
+
+        NodeStats(RedisClusterNode node) {
+            RedisURI uri = node.getUri();
+            this.address = uri != null ? uri.getHost() + ":" + uri.getPort() : node.getNodeId();
+            this.success = timer(address, OperationStatus.SUCCESS);
+            this.error = timer(address, OperationStatus.ERROR);
+            this.latencies = new ConcurrentHistogram(significantDigits);
+        }
+
+    }
+
+    NodeMetrics(MeterRegistry meterRegistry, int significantDigits) {
+        this.meterRegistry = meterRegistry;
+        this.significantDigits = significantDigits;
+    }
+
+    /**
+     * @return the node serving the key of a command, {@code null} if the first argument is not a key or its slot is not covered
+     */
+    static RedisClusterNode nodeOf(Partitions partitions, Object[] args) {
+        if (args == null || args.length == 0) {
+            return null;
+        }
+
+        int slot;
+        if (args[0]instanceof String key) {
+            slot = SlotHash.getSlot(key);
+        } else if (args[0]instanceof byte[] key) {
+            slot = SlotHash.getSlot(key);
+        } else if (args[0]instanceof ByteBuffer key) {
+            slot = SlotHash.getSlot(key.duplicate());
+        } else {
+            return null;
+        }
+        return partitions.getPartitionBySlot(slot);
+    }
+
+    void record(RedisClusterNode node, long timeNs, OperationStatus status) {
+        NodeStats stats = nodes.get(node.getNodeId());
+        if (stats == null) {
+            stats = nodes.computeIfAbsent(node.getNodeId(), id -> new NodeStats(node));
+        }
+
+        if (status == OperationStatus.SUCCESS) {
+            stats.success.record(timeNs, TimeUnit.NANOSECONDS);
+            stats.latencies.recordValue(Math.max(0, timeNs));
+        } else {
+            stats.error.record(timeNs, TimeUnit.NANOSECONDS);
+            stats.errors.increment();
+        }
+    }
+
+    boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Adds a {@code nodes} object with the operations, errors, throughput and latency percentiles in milliseconds per node.
+     */
+    void putSummary(ObjectNode result, double seconds) {
+        ObjectNode summary = result.putObject("nodes");
+        nodes.entrySet().stream().sorted(Comparator.comparing(entry -> entry.getValue().address)).forEach(entry -> {
+            NodeStats stats = entry.getValue();
+            Histogram latencies = stats.latencies.copy();
+            long operations = latencies.getTotalCount() + stats.errors.sum();
+
+            ObjectNode node = summary.putObject(stats.address);
+            node.put("node_id", entry.getKey());
+            node.put("operations", operations);
+            node.put("errors", stats.errors.sum());
+            node.put("throughput_ops_sec", seconds > 0 ? operations / seconds : 0.0);
+            node.put("median_latency_ms", latencies.getValueAtPercentile(50) / 1e6);
+            node.put("p95_latency_ms", latencies.getValueAtPercentile(95) / 1e6);
+            node.put("p99_latency_ms", latencies.getValueAtPercentile(99) / 1e6);
+            node.put("max_latency_ms", latencies.getMaxValue() / 1e6);
+        });
+    }
+
+    private Timer timer(String address, OperationStatus status) {
+        return Timer.builder(REDIS_NODE_OPERATION_DURATION)
+                .description("Measures the execution time of single key Redis commands per cluster node serving the key")
+                .tag("node", address).tag("status", status.name().toLowerCase()).publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,57 @@
+package io.lettuce.test.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * I/O counters of the JVM process, read from {@code /proc/self/io} (Linux only).
+ * <p>
+ * {@code syscr} and {@code syscw} count the read and write family system calls ({@code read}, {@code readv}, {@code recvmsg},
+ * {@code write}, {@code sendmsg}, ...) of all threads, including the file system and logging. Operations submitted through an
+ * io_uring ring are not counted, as they do not enter the kernel through these system calls.
+ */
+record ProcessIo(long readSyscalls, long writeSyscalls) {
+
+    static final Path PROC_SELF_IO = Path.of("/proc/self/io");
+
+    /**
+     * @return the current counters, {@code null} if {@code /proc/self/io} is not available
+     */
+    static ProcessIo read() {
+        return read(PROC_SELF_IO);
+    }
+
+    static ProcessIo read(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+
+        long readSyscalls = -1;
+        long writeSyscalls = -1;
+        for (String line : lines) {
+            int separator = line.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+
+            String name = line.substring(0, separator).trim();
+            if (name.equals("syscr")) {
+                readSyscalls = Long.parseLong(line.substring(separator + 1).trim());
+            } else if (name.equals("syscw")) {
+                writeSyscalls = Long.parseLong(line.substring(separator + 1).trim());
+            }
+        }
+
+        return readSyscalls < 0 || writeSyscalls < 0 ? null : new ProcessIo(readSyscalls, writeSyscalls);
+    }
+
+    ProcessIo since(ProcessIo start) {
+        return new ProcessIo(readSyscalls - start.readSyscalls, writeSyscalls - start.writeSyscalls);
+    }
+
+}
@@ -0,0 +1,60 @@
+package io.lettuce.test.metrics;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of the {@code hdr} command recorder as exported to Micrometer. Each published interval histogram updates a
+ * {@link FunctionTimer} with the cumulative count and total time, and {@link TimeGauge}s with the percentiles and max of the
+ * interval, so publishing costs the same whatever the number of commands in the interval.
+ * <p>
+ * Updated by a single publishing thread, read by the registries.
+ */
+class PublishedLatencies {
+
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+    private volatile long count;
+
+    private volatile double totalTimeNs;
+
+    // of the last interval with commands
+    private final double[] percentileNs = new double[PERCENTILES.length];
+
+    private volatile double maxNs;
+
+    PublishedLatencies(MeterRegistry meterRegistry, String name, String description, Tags tags) {
+        FunctionTimer
+                .builder(name, this, latencies -> latencies.count, latencies -> latencies.totalTimeNs, TimeUnit.NANOSECONDS)
+                .description(description).tags(tags).register(meterRegistry);
+
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            int index = i;
+            TimeGauge.builder(name + ".percentile", this, TimeUnit.NANOSECONDS, latencies -> latencies.percentileNs[index])
+                    .description(description).tags(tags).tag("phi", String.valueOf(PERCENTILES[i])).register(meterRegistry);
+        }
+        TimeGauge.builder(name + ".max", this, TimeUnit.NANOSECONDS, latencies -> latencies.maxNs).description(description)
+                .tags(tags).register(meterRegistry);
+    }
+
+    /**
+     * @param interval latencies in nanoseconds recorded since the previous publish
+     * @param completed commands completed since the previous publish
+     */
+    void publish(Histogram interval, long completed) {
+        if (interval.getTotalCount() > 0) {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                percentileNs[i] = interval.getValueAtPercentile(PERCENTILES[i] * 100);
+            }
+            maxNs = interval.getMaxValue();
+            totalTimeNs += interval.getMean() * interval.getTotalCount();
+        }
+        count += completed;
+    }
+
+}
@@ -0,0 +1,109 @@
+package io.lettuce.test.metrics;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time until a write acknowledged by the upstream of a shard becomes visible to reads routed by {@code readFrom}, and the stale
+ * reads seen meanwhile, measured by the replication lag probe.
+ */
+class ReplicationLagMetrics {
+
+    static final String REDIS_REPLICATION_LAG = "redis.replication.lag";
+
+    static final String REDIS_REPLICATION_STALE_READS = "redis.replication.stale.reads";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int significantDigits;
+
+    private final Map<String, ShardStats> shards = new ConcurrentHashMap<>();
+
+    private final class ShardStats {
+
+        final Timer visible;
+
+        final Timer timeout;
+
+        final Counter staleReads;
+
+        final Histogram lags;
+
+        final LongAdder timeouts = new LongAdder();
+
+        final LongAdder staleReadCount = new LongAdder();
+
+        ShardStats(String shard) {
+            this.visible = timer(shard, "visible");
+            this.timeout = timer(shard, "timeout");
+            this.staleReads = Counter.builder(REDIS_REPLICATION_STALE_READS)
+                    .description("Counts the reads returning the value before the last acknowledged write of the lag probe")
+                    .tag("shard", shard).register(meterRegistry);
+            this.lags = new ConcurrentHistogram(significantDigits);
+        }
+
+    }
+
+    ReplicationLagMetrics(MeterRegistry meterRegistry, int significantDigits) {
+        this.meterRegistry = meterRegistry;
+        this.significantDigits = significantDigits;
+    }
+
+    void record(String shard, long lagNs, int staleReads, boolean visible) {
+        ShardStats stats = shards.get(shard);
+        if (stats == null) {
+            stats = shards.computeIfAbsent(shard, ShardStats::new);
+        }
+
+        stats.staleReads.increment(staleReads);
+        stats.staleReadCount.add(staleReads);
+        if (visible) {
+            stats.visible.record(lagNs, TimeUnit.NANOSECONDS);
+            stats.lags.recordValue(Math.max(0, lagNs));
+        } else {
+            stats.timeout.record(lagNs, TimeUnit.NANOSECONDS);
+            stats.timeouts.increment();
+        }
+    }
+
+    boolean isEmpty() {
+        return shards.isEmpty();
+    }
+
+    /**
+     * Adds a {@code replication_lag} object with the probes, timeouts, stale reads and lag percentiles in milliseconds per
+     * shard, keyed by the address of its upstream.
+     */
+    void putSummary(ObjectNode result) {
+        ObjectNode summary = result.putObject("replication_lag");
+        shards.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            ShardStats stats = entry.getValue();
+            Histogram lags = stats.lags.copy();
+
+            ObjectNode shard = summary.putObject(entry.getKey());
+            shard.put("probes", lags.getTotalCount() + stats.timeouts.sum());
+            shard.put("timeouts", stats.timeouts.sum());
+            shard.put("stale_reads", stats.staleReadCount.sum());
+            shard.put("median_lag_ms", lags.getValueAtPercentile(50) / 1e6);
+            shard.put("p95_lag_ms", lags.getValueAtPercentile(95) / 1e6);
+            shard.put("p99_lag_ms", lags.getValueAtPercentile(99) / 1e6);
+            shard.put("max_lag_ms", lags.getMaxValue() / 1e6);
+        });
+    }
+
+    private Timer timer(String shard, String status) {
+        return Timer.builder(REDIS_REPLICATION_LAG)
+                .description("Measures the time until a write acknowledged by the upstream is visible to routed reads")
+                .tag("shard", shard).tag("status", status).publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+    }
+
+}
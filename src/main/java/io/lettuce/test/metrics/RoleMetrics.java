@@ -0,0 +1,167 @@
+package io.lettuce.test.metrics;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the commands per role and address of the node that actually served them, as reported by the Lettuce command
+ * handler of each node connection. With {@code readFrom} routing reads to replicas, this splits the latency and throughput of
+ * the replicas from the upstreams, which the key based {@link NodeMetrics} cannot see.
+ * <p>
+ * The role of an address is looked up in the partitions of the cluster client, refreshed every
+ * {@value #ROLE_REFRESH_INTERVAL_MS} ms so a failover moves the node to its new role.
+ */
+public class RoleMetrics implements CommandLatencyRecorder {
+
+    static final String REDIS_ROLE_OPERATION_DURATION = "redis.role.operation.duration";
+
+    static final long ROLE_REFRESH_INTERVAL_MS = 1000;
+
+    static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int significantDigits;
+
+    private volatile Partitions partitions;
+
+    private volatile Map<String, String> roles = Map.of();
+
+    private volatile long nextRoleRefresh;
+
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<NodeKey, Histogram> latencies = new ConcurrentHashMap<>();
+
+    private record TimerKey(String role, String node, String command) {
+    }
+
+    private record NodeKey(String role, String node) {
+    }
+
+    RoleMetrics(MeterRegistry meterRegistry, int significantDigits) {
+        this.meterRegistry = meterRegistry;
+        this.significantDigits = significantDigits;
+    }
+
+    /**
+     * Partitions to resolve the role of the nodes from, the latest of the cluster connections.
+     */
+    public void partitions(Partitions partitions) {
+        this.partitions = partitions;
+        this.nextRoleRefresh = 0;
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+            long firstResponseLatency, long completionLatency) {
+        String node = address(remote);
+        String role = roleOf(remote, node);
+
+        timers.computeIfAbsent(new TimerKey(role, node, commandType.toString()), this::timer).record(completionLatency,
+                TimeUnit.NANOSECONDS);
+        latencies.computeIfAbsent(new NodeKey(role, node), key -> new ConcurrentHistogram(significantDigits))
+                .recordValue(Math.max(0, completionLatency));
+    }
+
+    boolean isEmpty() {
+        return latencies.isEmpty();
+    }
+
+    /**
+     * Adds a {@code roles} object with the operations, throughput and latency percentiles in milliseconds per role, and per
+     * node of the role.
+     */
+    void putSummary(ObjectNode result, double seconds) {
+        Map<String, Histogram> totals = new HashMap<>();
+        latencies.forEach((key, histogram) -> totals.computeIfAbsent(key.role(), role -> new Histogram(significantDigits))
+                .add(histogram.copy()));
+
+        ObjectNode summary = result.putObject("roles");
+        totals.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(total -> {
+            ObjectNode role = summary.putObject(total.getKey());
+            putLatencies(role, total.getValue(), seconds);
+
+            ObjectNode nodes = role.putObject("nodes");
+            latencies.entrySet().stream().filter(entry -> entry.getKey().role().equals(total.getKey()))
+                    .sorted(Comparator.comparing(entry -> entry.getKey().node()))
+                    .forEach(entry -> putLatencies(nodes.putObject(entry.getKey().node()), entry.getValue().copy(), seconds));
+        });
+    }
+
+    private static void putLatencies(ObjectNode node, Histogram latencies, double seconds) {
+        node.put("operations", latencies.getTotalCount());
+        node.put("throughput_ops_sec", seconds > 0 ? latencies.getTotalCount() / seconds : 0.0);
+        node.put("median_latency_ms", latencies.getValueAtPercentile(50) / 1e6);
+        node.put("p95_latency_ms", latencies.getValueAtPercentile(95) / 1e6);
+        node.put("p99_latency_ms", latencies.getValueAtPercentile(99) / 1e6);
+        node.put("max_latency_ms", latencies.getMaxValue() / 1e6);
+    }
+
+    private String roleOf(SocketAddress remote, String node) {
+        if (System.currentTimeMillis() >= nextRoleRefresh) {
+            refreshRoles();
+        }
+
+        Map<String, String> current = roles;
+        String role = current.get(node);
+        if (role == null && remote instanceof InetSocketAddress address && address.getAddress() != null) {
+            // Connected by host name, the partitions may list the IP address
+            role = current.get(address.getAddress().getHostAddress() + ":" + address.getPort());
+        }
+        return role != null ? role : UNKNOWN;
+    }
+
+    private synchronized void refreshRoles() {
+        if (System.currentTimeMillis() < nextRoleRefresh) {
+            return;
+        }
+
+        nextRoleRefresh = System.currentTimeMillis() + ROLE_REFRESH_INTERVAL_MS;
+        Partitions current = partitions;
+        if (current == null) {
+            return;
+        }
+
+        Map<String, String> refreshed = new HashMap<>();
+        for (RedisClusterNode node : current) {
+            RedisURI uri = node.getUri();
+            if (uri != null && node.getRole() != null) {
+                refreshed.put(uri.getHost() + ":" + uri.getPort(),
+                        node.getRole().isUpstream() ? "upstream" : node.getRole().isReplica() ? "replica" : UNKNOWN);
+            }
+        }
+        roles = refreshed;
+    }
+
+    private static String address(SocketAddress remote) {
+        if (remote instanceof InetSocketAddress address) {
+            return address.getHostString() + ":" + address.getPort();
+        }
+        return String.valueOf(remote);
+    }
+
+    private Timer timer(TimerKey key) {
+        return Timer.builder(REDIS_ROLE_OPERATION_DURATION)
+                .description("Measures the execution time of Redis commands per role and address of the node serving them")
+                .tag("role", key.role()).tag("node", key.node()).tag("command", key.command())
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,98 @@
+package io.lettuce.test.metrics;
+
+import io.lettuce.core.Value;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Payload size buckets for the {@code metrics.latency.sizeBuckets} property, a comma separated list of inclusive upper bounds
+ * such as {@code 1KB,16KB,128KB}. Commands larger than the last bound fall into an overflow bucket.
+ */
+final class SizeBuckets {
+
+    private final long[] upperBounds;
+
+    private final String[] tags;
+
+    private SizeBuckets(long[] upperBounds, String[] tags) {
+        this.upperBounds = upperBounds;
+        this.tags = tags;
+    }
+
+    static SizeBuckets parse(String bounds) {
+        String[] values = Arrays.stream(bounds.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
+        if (values.length == 0) {
+            throw new IllegalArgumentException("At least one size bucket bound is required");
+        }
+
+        long[] upperBounds = new long[values.length];
+        String[] tags = new String[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            upperBounds[i] = DataSize.parse(values[i]).toBytes();
+            if (i > 0 && upperBounds[i] <= upperBounds[i - 1]) {
+                throw new IllegalArgumentException("Size bucket bounds must be ascending: " + bounds);
+            }
+            tags[i] = "<=" + values[i];
+        }
+        tags[values.length] = ">" + values[values.length - 1];
+
+        return new SizeBuckets(upperBounds, tags);
+    }
+
+    int count() {
+        return tags.length;
+    }
+
+    int bucketOf(long bytes) {
+        for (int i = 0; i < upperBounds.length; i++) {
+            if (bytes <= upperBounds[i]) {
+                return i;
+            }
+        }
+        return upperBounds.length;
+    }
+
+    String tag(int bucket) {
+        return tags[bucket];
+    }
+
+    /**
+     * Approximates the payload size of command arguments or results. Binary and string values are counted, also within arrays,
+     * collections, maps and {@link Value values}. Strings count one byte per character, all other types count as zero.
+     */
+    static long payloadSize(Object value) {
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        } else if (value instanceof String string) {
+            return string.length();
+        } else if (value instanceof ByteBuffer buffer) {
+            return buffer.remaining();
+        } else if (value instanceof Object[] array) {
+            long size = 0;
+            for (Object element : array) {
+                size += payloadSize(element);
+            }
+            return size;
+        } else if (value instanceof Collection<?> collection) {
+            long size = 0;
+            for (Object element : collection) {
+                size += payloadSize(element);
+            }
+            return size;
+        } else if (value instanceof Map<?, ?> map) {
+            long size = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += payloadSize(entry.getKey()) + payloadSize(entry.getValue());
+            }
+            return size;
+        } else if (value instanceof Value<?> wrapped && wrapped.hasValue()) {
+            return payloadSize(wrapped.getValue());
+        }
+        return 0;
+    }
+
+}
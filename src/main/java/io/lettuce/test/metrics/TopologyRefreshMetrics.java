@@ -0,0 +1,158 @@
+package io.lettuce.test.metrics;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.output.CommandOutput;
+import io.lettuce.core.protocol.CommandKeyword;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.lettuce.core.protocol.RedisCommand;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of the cluster topology refreshes: how long loading the topology from the nodes takes, how many node connections each
+ * refresh opens, and the bytes of the {@code CLUSTER NODES} and {@code INFO} replies parsed. The reply bytes are read from the
+ * commands completed on any connection of the clients, attributed to the next refresh completing; with concurrent refreshes of
+ * several clients the total is exact, the split per refresh is not.
+ */
+public class TopologyRefreshMetrics implements CommandLatencyRecorder {
+
+    static final String REDIS_CLUSTER_TOPOLOGY_LOAD_DURATION = "redis.cluster.topology.load.duration";
+
+    static final String REDIS_CLUSTER_TOPOLOGY_LOAD_CONNECTIONS = "redis.cluster.topology.load.connections";
+
+    static final String REDIS_CLUSTER_TOPOLOGY_LOAD_BYTES = "redis.cluster.topology.load.bytes";
+
+    private final Timer success;
+
+    private final Timer error;
+
+    private final DistributionSummary connections;
+
+    private final DistributionSummary bytesPerRefresh;
+
+    private final Counter clusterNodesBytes;
+
+    private final Counter infoBytes;
+
+    private final Histogram durations;
+
+    private final LongAdder pendingBytes = new LongAdder();
+
+    private final LongAdder totalBytes = new LongAdder();
+
+    private final LongAdder totalConnections = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    TopologyRefreshMetrics(MeterRegistry meterRegistry, int significantDigits) {
+        this.success = timer(meterRegistry, OperationStatus.SUCCESS);
+        this.error = timer(meterRegistry, OperationStatus.ERROR);
+        this.connections = DistributionSummary.builder(REDIS_CLUSTER_TOPOLOGY_LOAD_CONNECTIONS)
+                .description("Number of node connections opened per topology refresh").publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.bytesPerRefresh = DistributionSummary.builder(REDIS_CLUSTER_TOPOLOGY_LOAD_BYTES)
+                .description("Bytes of CLUSTER NODES and INFO replies parsed per topology refresh").baseUnit("bytes")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+        this.clusterNodesBytes = bytesCounter(meterRegistry, "cluster_nodes");
+        this.infoBytes = bytesCounter(meterRegistry, "info");
+        this.durations = new ConcurrentHistogram(significantDigits);
+    }
+
+    /**
+     * Records a topology refresh loading the views of the nodes.
+     *
+     * @param durationNs time to load the views of all nodes
+     * @param nodeConnections connections opened, one per node queried
+     * @param failed {@code true} if no view could be loaded
+     */
+    public void recordRefresh(long durationNs, int nodeConnections, boolean failed) {
+        long bytes = pendingBytes.sumThenReset();
+
+        (failed ? error : success).record(durationNs, TimeUnit.NANOSECONDS);
+        connections.record(nodeConnections);
+        bytesPerRefresh.record(bytes);
+        durations.recordValue(Math.max(0, durationNs));
+        totalConnections.add(nodeConnections);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, RedisCommand<?, ?, ?> command,
+            long firstResponseLatency, long completionLatency) {
+        ProtocolKeyword type = command.getType();
+        if (type != CommandType.CLUSTER && type != CommandType.INFO) {
+            return;
+        }
+
+        CommandOutput<?, ?, ?> output = command.getOutput();
+        if (output == null || !(output.get()instanceof String reply)) {
+            return;
+        }
+
+        if (type == CommandType.INFO) {
+            infoBytes.increment(reply.length());
+        } else if (command.getArgs() != null && command.getArgs().toCommandString().startsWith(CommandKeyword.NODES.name())) {
+            clusterNodesBytes.increment(reply.length());
+        } else {
+            return;
+        }
+        pendingBytes.add(reply.length());
+        totalBytes.add(reply.length());
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+            long firstResponseLatency, long completionLatency) {
+        // Only the commands are of interest, see above
+    }
+
+    boolean isEmpty() {
+        return durations.getTotalCount() == 0;
+    }
+
+    /**
+     * Adds a {@code topology_refresh} object with the refreshes, their duration in milliseconds, and the connections and reply
+     * bytes per refresh.
+     */
+    void putSummary(ObjectNode result, double seconds) {
+        Histogram latencies = durations.copy();
+        long refreshes = latencies.getTotalCount();
+
+        ObjectNode summary = result.putObject("topology_refresh");
+        summary.put("refreshes", refreshes);
+        summary.put("errors", errors.sum());
+        summary.put("refreshes_per_minute", seconds > 0 ? refreshes * 60 / seconds : 0.0);
+        summary.put("median_duration_ms", latencies.getValueAtPercentile(50) / 1e6);
+        summary.put("p99_duration_ms", latencies.getValueAtPercentile(99) / 1e6);
+        summary.put("max_duration_ms", latencies.getMaxValue() / 1e6);
+        summary.put("connections_opened", totalConnections.sum());
+        summary.put("avg_connections_per_refresh", refreshes > 0 ? (double) totalConnections.sum() / refreshes : 0.0);
+        summary.put("bytes_parsed", totalBytes.sum());
+        summary.put("avg_bytes_per_refresh", refreshes > 0 ? (double) totalBytes.sum() / refreshes : 0.0);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, OperationStatus status) {
+        return Timer.builder(REDIS_CLUSTER_TOPOLOGY_LOAD_DURATION)
+                .description("Measures the time of a topology refresh to load the topology views from the cluster nodes")
+                .tag("status", status.name().toLowerCase()).publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+    }
+
+    private static Counter bytesCounter(MeterRegistry meterRegistry, String reply) {
+        return Counter.builder(REDIS_CLUSTER_TOPOLOGY_LOAD_BYTES + ".total")
+                .description("Counts the bytes of topology replies parsed by the topology refreshes").baseUnit("bytes")
+                .tag("reply", reply).register(meterRegistry);
+    }
+
+}
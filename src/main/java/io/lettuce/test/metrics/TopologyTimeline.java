@@ -0,0 +1,387 @@
+package io.lettuce.test.metrics;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timeline of a cluster run: throughput, errors, latency and MOVED/ASK redirections per second, and the topology changes seen
+ * by the clients. Only the last {@value #BASELINE_SECONDS} + {@value #MAX_IMPACT_SECONDS} seconds are kept, enough for the
+ * impact of any open topology change. Each topology change gets an impact record once it is finished, comparing the seconds
+ * from the start of the topology refresh with the {@value #BASELINE_SECONDS} seconds before:
+ * <ul>
+ * <li>a second is degraded if its throughput is below {@value #THROUGHPUT_DIP} of the baseline median, its p99 above
+ * {@value #P99_SPIKE} times the baseline median p99, or commands were redirected</li>
+ * <li>the degradation ends with the last degraded second before {@value #RECOVERY_SECONDS} healthy seconds in a row, at most
+ * {@value #MAX_IMPACT_SECONDS} seconds after the start</li>
+ * <li>operations lost are the throughput missing to the baseline over the degraded seconds</li>
+ * </ul>
+ */
+class TopologyTimeline {
+
+    static final String REDIS_CLUSTER_REDIRECTIONS = "redis.cluster.redirections";
+
+    static final String REDIS_CLUSTER_TOPOLOGY_CHANGES = "redis.cluster.topology.changes";
+
+    static final String REDIS_CLUSTER_TOPOLOGY_REFRESH_DURATION = "redis.cluster.topology.refresh.duration";
+
+    static final int BASELINE_SECONDS = 10;
+
+    static final double THROUGHPUT_DIP = 0.8;
+
+    static final double P99_SPIKE = 2.0;
+
+    static final int RECOVERY_SECONDS = 3;
+
+    static final int MAX_IMPACT_SECONDS = 120;
+
+    // Baseline and impact of a change whose refresh started up to MAX_REFRESH_MS before
+    static final int KEPT_SECONDS = BASELINE_SECONDS + MAX_IMPACT_SECONDS;
+
+    // Changes seen by several clients within this time are one event
+    static final long COALESCE_MS = 1000;
+
+    // A refresh started longer ago did not cause the change
+    static final long MAX_REFRESH_MS = 60_000;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Recorder latencies;
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder moved = new LongAdder();
+
+    private final LongAdder ask = new LongAdder();
+
+    private final Timer refreshDuration;
+
+    private volatile long refreshStartMs = -1;
+
+    // guarded by this, the last KEPT_SECONDS seconds
+    private final ArrayDeque<Second> seconds = new ArrayDeque<>(KEPT_SECONDS);
+
+    // guarded by this
+    private long redirectionsMoved;
+
+    // guarded by this
+    private long redirectionsAsk;
+
+    // guarded by this
+    private final List<TopologyEvent> events = new ArrayList<>();
+
+    // guarded by this
+    private Histogram recycled;
+
+    /**
+     * One second of the run, ending at {@code endMs}.
+     */
+    record Second(long endMs, long ops, long errors, long p99Ns, long maxNs, long moved, long ask) {
+
+        boolean redirected() {
+            return moved > 0 || ask > 0;
+        }
+
+    }
+
+    private static final class TopologyEvent {
+
+        final long timeMs;
+
+        final String kind;
+
+        final int nodesBefore;
+
+        final int nodesAfter;
+
+        final int slotsMoved;
+
+        final long refreshMs;
+
+        int notifications = 1;
+
+        // Set once the impact is finished, then the event only waits for the summary
+        boolean finished;
+
+        ObjectNode impact;
+
+        TopologyEvent(long timeMs, String kind, int nodesBefore, int nodesAfter, int slotsMoved, long refreshMs) {
+            this.timeMs = timeMs;
+            this.kind = kind;
+            this.nodesBefore = nodesBefore;
+            this.nodesAfter = nodesAfter;
+            this.slotsMoved = slotsMoved;
+            this.refreshMs = refreshMs;
+        }
+
+    }
+
+    TopologyTimeline(MeterRegistry meterRegistry, int significantDigits) {
+        this.meterRegistry = meterRegistry;
+        this.latencies = new Recorder(significantDigits);
+        this.refreshDuration = Timer.builder(REDIS_CLUSTER_TOPOLOGY_REFRESH_DURATION)
+                .description("Measures the time from the start of a topology refresh until the changed topology is applied")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+    }
+
+    void record(long timeNs, boolean error) {
+        latencies.recordValue(Math.max(0, timeNs));
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * @param source {@code event} for redirections followed by Lettuce, {@code error} for redirections failing the command
+     */
+    void redirection(boolean isAsk, String source) {
+        (isAsk ? ask : moved).increment();
+        Counter.builder(REDIS_CLUSTER_REDIRECTIONS).description("Counts the MOVED and ASK redirections of cluster commands")
+                .tag("type", isAsk ? "ask" : "moved").tag("source", source).register(meterRegistry).increment();
+    }
+
+    void refreshStarted(long nowMs) {
+        refreshStartMs = nowMs;
+    }
+
+    synchronized void topologyChanged(List<RedisClusterNode> before, List<RedisClusterNode> after, long nowMs) {
+        TopologyEvent last = events.isEmpty() ? null : events.get(events.size() - 1);
+        if (last != null && nowMs - last.timeMs < COALESCE_MS) {
+            last.notifications++;
+            return;
+        }
+
+        long refreshStart = refreshStartMs;
+        long refreshMs = refreshStart >= 0 && nowMs - refreshStart <= MAX_REFRESH_MS ? nowMs - refreshStart : -1;
+        refreshStartMs = -1;
+        if (refreshMs >= 0) {
+            refreshDuration.record(refreshMs, TimeUnit.MILLISECONDS);
+        }
+
+        String kind = kind(before, after);
+        events.add(new TopologyEvent(nowMs, kind, before.size(), after.size(), slotsMoved(before, after), refreshMs));
+        Counter.builder(REDIS_CLUSTER_TOPOLOGY_CHANGES).description("Counts the cluster topology changes seen by the clients")
+                .tag("kind", kind).register(meterRegistry).increment();
+    }
+
+    /**
+     * Closes the current second.
+     */
+    synchronized void tick(long nowMs) {
+        recycled = latencies.getIntervalHistogram(recycled);
+        add(new Second(nowMs, recycled.getTotalCount(), errors.sumThenReset(),
+                recycled.getTotalCount() > 0 ? recycled.getValueAtPercentile(99) : 0, recycled.getMaxValue(),
+                moved.sumThenReset(), ask.sumThenReset()));
+    }
+
+    synchronized void add(Second second) {
+        if (seconds.size() == KEPT_SECONDS) {
+            seconds.removeFirst();
+        }
+        seconds.addLast(second);
+        redirectionsMoved += second.moved();
+        redirectionsAsk += second.ask();
+        finishImpacts(false);
+    }
+
+    synchronized int keptSeconds() {
+        return seconds.size();
+    }
+
+    synchronized boolean isEmpty() {
+        return events.isEmpty() && redirectionsMoved == 0 && redirectionsAsk == 0;
+    }
+
+    /**
+     * Records the impact of the open topology changes that are finished, or of all of them at the end of the run.
+     */
+    private void finishImpacts(boolean endOfRun) {
+        List<Second> kept = null;
+        for (TopologyEvent event : events) {
+            if (!event.finished) {
+                if (kept == null) {
+                    kept = new ArrayList<>(seconds);
+                }
+                impact(kept, event, endOfRun);
+            }
+        }
+    }
+
+    /**
+     * Adds a {@code topology} object with the impact of every topology change.
+     */
+    synchronized void putSummary(ObjectNode result) {
+        finishImpacts(true);
+
+        ObjectNode summary = result.putObject("topology");
+        summary.put("redirections_moved", redirectionsMoved);
+        summary.put("redirections_ask", redirectionsAsk);
+
+        ArrayNode changes = summary.putArray("events");
+        for (TopologyEvent event : events) {
+            ObjectNode change = changes.addObject();
+            change.put("time", Instant.ofEpochMilli(event.timeMs).toString());
+            change.put("kind", event.kind);
+            change.put("nodes_before", event.nodesBefore);
+            change.put("nodes_after", event.nodesAfter);
+            change.put("slots_moved", event.slotsMoved);
+            change.put("notifications", event.notifications);
+            if (event.refreshMs >= 0) {
+                change.put("refresh_duration_ms", event.refreshMs);
+            }
+            if (event.impact != null) {
+                change.set("impact", event.impact);
+            }
+        }
+    }
+
+    /**
+     * Sets the impact of {@code event} once its degradation ended or {@link #MAX_IMPACT_SECONDS} passed, or at the end of the
+     * run with the seconds seen so far.
+     */
+    private void impact(List<Second> seconds, TopologyEvent event, boolean endOfRun) {
+        long startMs = event.refreshMs >= 0 ? event.timeMs - event.refreshMs : event.timeMs;
+        int start = 0;
+        while (start < seconds.size() && seconds.get(start).endMs() <= startMs) {
+            start++;
+        }
+        if (start == 0) {
+            // No baseline before
+            event.finished = true;
+            return;
+        }
+        if (start == seconds.size()) {
+            // The change is in the current second
+            event.finished = endOfRun;
+            return;
+        }
+
+        List<Second> baseline = seconds.subList(Math.max(0, start - BASELINE_SECONDS), start);
+        double baselineOps = median(baseline.stream().mapToLong(Second::ops).toArray());
+        double baselineP99 = median(baseline.stream().mapToLong(Second::p99Ns).toArray());
+
+        int end = Math.min(seconds.size(), start + MAX_IMPACT_SECONDS);
+        int lastDegraded = -1;
+        int healthy = 0;
+        for (int i = start; i < end && healthy < RECOVERY_SECONDS; i++) {
+            Second second = seconds.get(i);
+            boolean degraded = second.ops() < baselineOps * THROUGHPUT_DIP || second.p99Ns() > baselineP99 * P99_SPIKE
+                    || second.redirected();
+            if (degraded) {
+                lastDegraded = i;
+                healthy = 0;
+            } else {
+                healthy++;
+            }
+        }
+        if (!endOfRun && healthy < RECOVERY_SECONDS && end - start < MAX_IMPACT_SECONDS) {
+            // Still degraded or recovering
+            return;
+        }
+
+        // The second of the change when nothing degraded
+        int impactEnd = lastDegraded >= 0 ? lastDegraded : start;
+        double opsLost = 0;
+        long minOps = Long.MAX_VALUE;
+        long peakP99 = 0;
+        long maxLatency = 0;
+        long redirections = 0;
+        long failed = 0;
+        for (int i = start; i <= impactEnd; i++) {
+            Second second = seconds.get(i);
+            opsLost += Math.max(0, baselineOps - second.ops());
+            minOps = Math.min(minOps, second.ops());
+            peakP99 = Math.max(peakP99, second.p99Ns());
+            maxLatency = Math.max(maxLatency, second.maxNs());
+            redirections += second.moved() + second.ask();
+            failed += second.errors();
+        }
+
+        ObjectNode impact = JsonNodeFactory.instance.objectNode();
+        impact.put("degraded_seconds", lastDegraded >= 0 ? lastDegraded - start + 1 : 0);
+        impact.put("ops_lost", Math.round(opsLost));
+        impact.put("baseline_ops_sec", baselineOps);
+        impact.put("min_ops_sec", minOps);
+        impact.put("baseline_p99_latency_ms", baselineP99 / 1e6);
+        impact.put("peak_p99_latency_ms", peakP99 / 1e6);
+        impact.put("max_latency_ms", maxLatency / 1e6);
+        impact.put("redirections", redirections);
+        impact.put("errors", failed);
+        event.impact = impact;
+        event.finished = true;
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    /**
+     * @return {@code failover} if a node changed its role, {@code resharding} if slots moved between nodes, {@code membership}
+     *         if nodes joined or left, {@code other} otherwise
+     */
+    static String kind(List<RedisClusterNode> before, List<RedisClusterNode> after) {
+        Map<String, RedisClusterNode> previous = new HashMap<>();
+        before.forEach(node -> previous.put(node.getNodeId(), node));
+
+        boolean membership = before.size() != after.size();
+        for (RedisClusterNode node : after) {
+            RedisClusterNode was = previous.get(node.getNodeId());
+            if (was == null) {
+                membership = true;
+            } else if (was.getRole() != node.getRole()) {
+                return "failover";
+            }
+        }
+
+        if (slotsMoved(before, after) > 0) {
+            return "resharding";
+        }
+        return membership ? "membership" : "other";
+    }
+
+    /**
+     * @return number of slots served by another node after the change
+     */
+    static int slotsMoved(List<RedisClusterNode> before, List<RedisClusterNode> after) {
+        String[] previous = owners(before);
+        String[] current = owners(after);
+        int moved = 0;
+        for (int slot = 0; slot < SlotHash.SLOT_COUNT; slot++) {
+            if (previous[slot] != null && !previous[slot].equals(current[slot])) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private static String[] owners(List<RedisClusterNode> nodes) {
+        String[] owners = new String[SlotHash.SLOT_COUNT];
+        for (RedisClusterNode node : nodes) {
+            for (int slot : node.getSlots()) {
+                owners[slot] = node.getNodeId();
+            }
+        }
+        return owners;
+    }
+
+}
@@ -0,0 +1,83 @@
+package io.lettuce.test.util;
+
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.test.metrics.MetricsReporter;
+
+import java.time.Duration;
+
+/**
+ * Manual command flushing for a connection with auto-flush disabled.
+ * <p>
+ * Commands are buffered by Lettuce and written to the transport once {@code depth} commands were issued, or once
+ * {@code flushInterval} elapsed since the last flush. The interval is checked when commands are issued, so it only bounds the
+ * time a batch is held back while the workload keeps issuing commands. Each flush records its duration and batch size.
+ * <p>
+ * Auto-flush is a connection wide setting, so the pipeline requires a connection dedicated to its workload. The runner rejects
+ * pipelining with {@code threadsPerConnection} > 1.
+ */
+public class CommandPipeline implements AutoCloseable {
+
+    private final StatefulConnection<?, ?> connection;
+
+    private final MetricsReporter metricsReporter;
+
+    private final int depth;
+
+    private final long flushIntervalNanos;
+
+    private int pending;
+
+    private long lastFlush;
+
+    public CommandPipeline(StatefulConnection<?, ?> connection, MetricsReporter metricsReporter, int depth,
+            Duration flushInterval) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Pipeline depth must be greater than 0, but was " + depth);
+        }
+
+        this.connection = connection;
+        this.metricsReporter = metricsReporter;
+        this.depth = depth;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.lastFlush = System.nanoTime();
+
+        connection.setAutoFlushCommands(false);
+    }
+
+    /**
+     * Notifies the pipeline about an issued command and flushes when the batch is complete or the flush interval elapsed.
+     */
+    public void commandIssued() {
+        pending++;
+
+        if (pending >= depth || (flushIntervalNanos > 0 && System.nanoTime() - lastFlush >= flushIntervalNanos)) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered commands to the transport.
+     */
+    public void flush() {
+        long start = System.nanoTime();
+        if (pending > 0) {
+            connection.flushCommands();
+            long end = System.nanoTime();
+            metricsReporter.recordPipelineFlush(end - start, pending);
+            start = end;
+        }
+
+        pending = 0;
+        lastFlush = start;
+    }
+
+    /**
+     * Flushes remaining commands and restores auto-flush on the connection.
+     */
+    @Override
+    public void close() {
+        flush();
+        connection.setAutoFlushCommands(true);
+    }
+
+}
@@ -0,0 +1,135 @@
+package io.lettuce.test.util;
+
+import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisException;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Sliding window of outstanding asynchronous commands.
+ * <p>
+ * {@link #submit(Supplier)} blocks while {@code maxInFlight} commands are outstanding and releases the slot as soon as the
+ * command completes, so completed futures are not retained by the workload. Only the first failure is kept and reported by
+ * {@link #awaitAll(long, TimeUnit)}.
+ * <p>
+ * When used with a {@link CommandPipeline}, buffered commands are flushed before waiting for a slot, as they would otherwise
+ * never complete.
+ */
+public class InFlightWindow {
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final int maxInFlight;
+
+    private final Semaphore permits;
+
+    private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+    private final BiConsumer<Object, Throwable> onComplete = this::complete;
+
+    private final CommandPipeline pipeline;
+
+    public InFlightWindow(int maxInFlight) {
+        this(maxInFlight, null);
+    }
+
+    public InFlightWindow(int maxInFlight, CommandPipeline pipeline) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0, but was " + maxInFlight);
+        }
+
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Waits for a free slot and issues the command.
+     *
+     * @param command issues the command, invoked once a slot is available
+     * @return the issued command
+     */
+    public <T extends CompletionStage<?>> T submit(Supplier<T> command) {
+        acquire();
+
+        T stage;
+        try {
+            stage = command.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        stage.whenComplete(onComplete);
+
+        if (pipeline != null) {
+            pipeline.commandIssued();
+        }
+        return stage;
+    }
+
+    /**
+     * Waits until all outstanding commands have completed.
+     *
+     * @throws RedisCommandTimeoutException if the commands did not complete within the timeout
+     * @throws RedisException if any of the commands failed
+     */
+    public void awaitAll(long timeout, TimeUnit unit) {
+        if (pipeline != null) {
+            pipeline.flush();
+        }
+
+        try {
+            if (!permits.tryAcquire(maxInFlight, timeout, unit)) {
+                throw new RedisCommandTimeoutException(
+                        "Timed out waiting for " + inFlight() + " in-flight commands after " + timeout + " " + unit);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisCommandInterruptedException(e);
+        }
+        permits.release(maxInFlight);
+
+        Throwable error = firstError.getAndSet(null);
+        if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (error != null) {
+            throw new RedisException(error);
+        }
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+
+        if (pipeline != null) {
+            pipeline.flush();
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisCommandInterruptedException(e);
+        }
+    }
+
+    private void complete(Object result, Throwable error) {
+        if (error != null) {
+            firstError.compareAndSet(null, error);
+        }
+        permits.release();
+    }
+
+}
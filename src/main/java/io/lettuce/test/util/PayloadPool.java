@@ -0,0 +1,74 @@
+package io.lettuce.test.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Preallocated random payloads with sizes drawn from a {@link SizeDistribution}.
+ * <p>
+ * Payloads are filled with random bytes, so they do not compress on the wire (e.g. with TLS compression or in network
+ * captures), and are created once, so issuing a command does not allocate or encode its value. {@link #next()} picks a payload
+ * at random, the sizes handed out follow the distribution the pool was sampled from. The pool holds up to {@code poolSize}
+ * payloads and at most {@value #MAX_POOL_BYTES} bytes, but always at least one payload. Sampling stops at the first size that
+ * does not fit anymore, so with values of several MB the pool holds fewer payloads and the tail is clipped.
+ * <p>
+ * Payloads are shared and must not be modified.
+ */
+public final class PayloadPool {
+
+    public static final int DEFAULT_POOL_SIZE = 1024;
+
+    public static final long MAX_POOL_BYTES = 64 * 1024 * 1024;
+
+    private record PoolKey(SizeDistribution distribution, int poolSize) {
+    }
+
+    private static final Map<PoolKey, PayloadPool> POOLS = new ConcurrentHashMap<>();
+
+    private final byte[][] payloads;
+
+    public PayloadPool(SizeDistribution sizes, int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Payload pool size must be greater than 0, but was " + poolSize);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<byte[]> payloads = new ArrayList<>();
+        long poolBytes = 0;
+
+        while (payloads.size() < poolSize) {
+            int size = sizes.nextSize();
+            if (!payloads.isEmpty() && poolBytes + size > MAX_POOL_BYTES) {
+                break;
+            }
+
+            byte[] payload = new byte[size];
+            random.nextBytes(payload);
+            payloads.add(payload);
+            poolBytes += size;
+        }
+
+        this.payloads = payloads.toArray(new byte[0][]);
+    }
+
+    /**
+     * Returns the pool for the distribution, shared by all workloads using the same distribution and pool size. Distributions
+     * parsed from the same specification are the same instance, see {@link SizeDistribution#parse(String)}.
+     */
+    public static PayloadPool shared(SizeDistribution distribution, int poolSize) {
+        return POOLS.computeIfAbsent(new PoolKey(distribution, poolSize),
+                key -> new PayloadPool(key.distribution(), key.poolSize()));
+    }
+
+    public byte[] next() {
+        return payloads[ThreadLocalRandom.current().nextInt(payloads.length)];
+    }
+
+    public int size() {
+        return payloads.length;
+    }
+
+}
@@ -0,0 +1,63 @@
+package io.lettuce.test.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces command submission at a constant arrival rate shared by all callers (open-loop load).
+ * <p>
+ * Each call to {@link #acquire()} claims the next slot of a fixed schedule and parks the calling thread until that slot is due.
+ * The intended start time of the slot is returned, so latency can be measured from the moment the command should have been sent
+ * instead of the moment it actually was. Callers that fall behind the schedule are not slowed down further, which keeps a slow
+ * server from hiding its own latency (coordinated omission).
+ * <p>
+ * Slots are taken from a monotonic nanosecond clock, which must be the clock latency is measured with.
+ */
+public class RatePacer {
+
+    private final long intervalNanos;
+
+    private final AtomicLong nextSlot;
+
+    private final LongSupplier clock;
+
+    public RatePacer(double opsPerSecond) {
+        this(opsPerSecond, System::nanoTime);
+    }
+
+    /**
+     * @param clock monotonic clock in nanoseconds, e.g. the {@code monotonicTime()} of the meter registry clock
+     */
+    public RatePacer(double opsPerSecond, LongSupplier clock) {
+        if (opsPerSecond <= 0) {
+            throw new IllegalArgumentException("Target ops per second must be greater than 0, but was " + opsPerSecond);
+        }
+
+        this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / opsPerSecond));
+        this.clock = clock;
+        this.nextSlot = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Waits for the next free slot of the schedule.
+     *
+     * @return the intended start time of the slot in units of the clock
+     */
+    public long acquire() {
+        long slot = nextSlot.getAndAdd(intervalNanos);
+
+        long wait;
+        while ((wait = slot - clock.getAsLong()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(wait);
+        }
+
+        return slot;
+    }
+
+    public long intervalNanos() {
+        return intervalNanos;
+    }
+
+}
@@ -0,0 +1,198 @@
+package io.lettuce.test.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * Distribution of value sizes in bytes, parsed from the {@code valueSizeDistribution} workload option.
+ * <ul>
+ * <li>{@code fixed:<size>} - every value has the same size</li>
+ * <li>{@code uniform:<min>-<max>} - sizes uniformly distributed in {@code min..max}</li>
+ * <li>{@code lognormal:<median>,<sigma>[,<max>]} - log-normally distributed sizes around {@code median}, clamped to
+ * {@code 1..max}, {@value #DEFAULT_LOGNORMAL_MAX} bytes by default. Most values are small with a long tail of large ones, as
+ * commonly seen in caches</li>
+ * <li>{@code weighted:<size>=<weight>,<min>-<max>=<weight>,...} - buckets picked by relative weight. A bucket is either a
+ * single size or a range, uniformly distributed within the bucket</li>
+ * <li>{@code file:<path>} - weighted buckets read from a histogram file, one {@code <size> <weight>} or
+ * {@code <min>-<max> <weight>} bucket per line, separated by whitespace, {@code ,} or {@code =}. Lines starting with {@code #}
+ * are ignored</li>
+ * </ul>
+ * Parsed distributions are cached per specification, so each histogram file is read once.
+ */
+public final class SizeDistribution {
+
+    // Largest string value Redis accepts
+    public static final int MAX_VALUE_SIZE = 512 * 1024 * 1024;
+
+    // Keeps the tail within the payload pool, which stops sampling at PayloadPool.MAX_POOL_BYTES
+    public static final int DEFAULT_LOGNORMAL_MAX = 1024 * 1024;
+
+    private static final Map<String, SizeDistribution> DISTRIBUTIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Bucket of a weighted distribution, sizes are uniformly distributed in {@code min..max}.
+     */
+    public record Bucket(int min, int max, double weight) {
+
+        public Bucket {
+            checkRange(min, max);
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Bucket weight must not be negative, but was " + weight);
+            }
+        }
+
+    }
+
+    private final String spec;
+
+    private final IntSupplier sizes;
+
+    private SizeDistribution(String spec, IntSupplier sizes) {
+        this.spec = spec;
+        this.sizes = sizes;
+    }
+
+    public int nextSize() {
+        return sizes.getAsInt();
+    }
+
+    public static SizeDistribution fixed(int size) {
+        checkSize(size);
+        return new SizeDistribution("fixed:" + size, () -> size);
+    }
+
+    public static SizeDistribution uniform(int min, int max) {
+        checkRange(min, max);
+        return new SizeDistribution("uniform:" + min + "-" + max, () -> ThreadLocalRandom.current().nextInt(min, max + 1));
+    }
+
+    public static SizeDistribution lognormal(int median, double sigma, int max) {
+        checkSize(median);
+        checkSize(max);
+        if (!(sigma >= 0)) {
+            throw new IllegalArgumentException("Sigma must not be negative, but was " + sigma);
+        }
+
+        double mu = Math.log(median);
+        return new SizeDistribution("lognormal:" + median + "," + sigma + "," + max, () -> {
+            double size = Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+            return (int) Math.max(1, Math.min(max, Math.round(size)));
+        });
+    }
+
+    public static SizeDistribution weighted(List<Bucket> buckets) {
+        return weighted("weighted:" + buckets, buckets);
+    }
+
+    private static SizeDistribution weighted(String spec, List<Bucket> buckets) {
+        if (buckets.isEmpty()) {
+            throw new IllegalArgumentException("Weighted value size distribution requires at least one bucket");
+        }
+
+        Bucket[] bucketArray = buckets.toArray(new Bucket[0]);
+        AliasTable table = new AliasTable(buckets.stream().mapToDouble(Bucket::weight).toArray());
+
+        return new SizeDistribution(spec, () -> {
+            Bucket bucket = bucketArray[table.next()];
+            return bucket.min() == bucket.max() ? bucket.min()
+                    : ThreadLocalRandom.current().nextInt(bucket.min(), bucket.max() + 1);
+        });
+    }
+
+    public static SizeDistribution parse(String spec) {
+        return DISTRIBUTIONS.computeIfAbsent(spec.trim(), SizeDistribution::create);
+    }
+
+    private static SizeDistribution create(String spec) {
+        int separator = spec.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid value size distribution: " + spec);
+        }
+
+        String type = spec.substring(0, separator).trim().toLowerCase();
+        String value = spec.substring(separator + 1).trim();
+
+        try {
+            return switch (type) {
+                case "fixed" -> fixed(Integer.parseInt(value));
+                case "uniform" -> {
+                    Bucket range = parseBucket(value, 1);
+                    yield uniform(range.min(), range.max());
+                }
+                case "lognormal" -> {
+                    String[] args = value.split(",");
+                    yield lognormal(Integer.parseInt(args[0].trim()), Double.parseDouble(args[1].trim()),
+                            args.length > 2 ? Integer.parseInt(args[2].trim()) : DEFAULT_LOGNORMAL_MAX);
+                }
+                case "weighted" -> {
+                    List<Bucket> buckets = new ArrayList<>();
+                    for (String bucket : value.split(",")) {
+                        String[] parts = bucket.split("=");
+                        buckets.add(parseBucket(parts[0], Double.parseDouble(parts[1].trim())));
+                    }
+                    yield weighted(spec, buckets);
+                }
+                case "file" -> weighted(spec, readBuckets(Path.of(value)));
+                default -> throw new IllegalArgumentException("Unknown value size distribution: " + spec);
+            };
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid value size distribution: " + spec, e);
+        }
+    }
+
+    private static List<Bucket> readBuckets(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read value size histogram " + file, e);
+        }
+
+        List<Bucket> buckets = new ArrayList<>();
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split("[\\s,=]+");
+            buckets.add(parseBucket(parts[0], Double.parseDouble(parts[1])));
+        }
+        return buckets;
+    }
+
+    private static Bucket parseBucket(String range, double weight) {
+        String[] bounds = range.trim().split("-");
+        int min = Integer.parseInt(bounds[0].trim());
+        int max = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : min;
+        return new Bucket(min, max, weight);
+    }
+
+    private static void checkRange(int min, int max) {
+        checkSize(min);
+        checkSize(max);
+        if (max < min) {
+            throw new IllegalArgumentException("Max value size must not be lower than min, but was " + min + "-" + max);
+        }
+    }
+
+    private static void checkSize(int size) {
+        if (size <= 0 || size > MAX_VALUE_SIZE) {
+            throw new IllegalArgumentException("Value size must be in 1.." + MAX_VALUE_SIZE + ", but was " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+}
@@ -1,20 +1,43 @@
 package io.lettuce.test.workloads;
 
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.models.partitions.Partitions;
 import io.lettuce.test.DefaultWorkloadOptions;
 import io.lettuce.test.CommonWorkloadOptions;
 import io.lettuce.test.generator.KeyGenerator;
 import io.lettuce.test.generator.RandomKeyGenerator;
+import io.lettuce.test.generator.AbstractKeyGenerator;
+import io.lettuce.test.generator.HotspotKeyGenerator;
+import io.lettuce.test.generator.KeyRenderer;
+import io.lettuce.test.generator.LatestKeyGenerator;
+import io.lettuce.test.generator.ScrambledZipfianKeyGenerator;
 import io.lettuce.test.generator.SequentialKeyGenerator;
+import io.lettuce.test.generator.SlotAwareKeyGenerator;
+import io.lettuce.test.generator.ZipfianKeyGenerator;
 import io.lettuce.test.metrics.MetricsReporter;
+import io.lettuce.test.util.CommandPipeline;
+import io.lettuce.test.util.InFlightWindow;
+import io.lettuce.test.util.PayloadPool;
+import io.lettuce.test.util.RatePacer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_FLUSH_INTERVAL;
 import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_GENERATION_STRATEGY;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_HOTSET_FRACTION;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_HOT_OPN_FRACTION;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_LATEST_INSERT_RATIO;
 import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_PATTERN;
 import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_RANGE_MAX;
 import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_RANGE_MIN;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_RENDERER;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_SLOT_STRATEGY;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_KEY_ZIPFIAN_CONSTANT;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_MAX_IN_FLIGHT;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_PAYLOAD_POOL_SIZE;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_PIPELINE_DEPTH;
 
 /**
  * Base class for workloads.
@@ -33,10 +56,15 @@ public abstract class BaseWorkload {
 
     protected MetricsReporter metricsReporter;
 
+    private RatePacer pacer;
+
     private final CommonWorkloadOptions options;
 
     private final KeyGenerator keyGenerator;
 
+    // Created by the first call of keyGenerator(Partitions), regroups its keys itself after topology changes
+    private KeyGenerator clusterKeyGenerator;
+
     public BaseWorkload() {
         options = DefaultWorkloadOptions.DEFAULT;
         keyGenerator = createKeyGenerator(options);
@@ -54,12 +82,71 @@ public abstract class BaseWorkload {
         this.metricsReporter = metricsReporter;
     }
 
+    /**
+     * Sets the pacer used to issue commands at a constant arrival rate (open-loop mode). When not set, commands are issued back
+     * to back.
+     */
+    public void pacer(RatePacer pacer) {
+        this.pacer = pacer;
+    }
+
+    /**
+     * Assigns this workload its share of the key range when {@code workloadCount} workloads run the same configuration.
+     * Sequential key generation then covers each key of the range exactly once per pass across all workloads.
+     */
+    public void partition(int workloadIndex, int workloadCount) {
+        keyGenerator.partition(workloadIndex, workloadCount);
+    }
+
     public CommonWorkloadOptions options() {
         return options;
     }
 
     protected <T> T withMetrics(T cmd) {
-        return metricsReporter.withMetrics(cmd);
+        return metricsReporter.withMetrics(cmd, pacer);
+    }
+
+    /**
+     * Wraps cluster commands with metrics collection, additionally recording single key commands per node serving the key.
+     */
+    protected <T> T withMetrics(T cmd, Partitions partitions) {
+        return metricsReporter.withMetrics(cmd, pacer, partitions);
+    }
+
+    /**
+     * Creates a window limiting the outstanding async commands to the {@code maxInFlight} option. Unbounded by default.
+     */
+    protected InFlightWindow inFlightWindow() {
+        return inFlightWindow(null);
+    }
+
+    protected InFlightWindow inFlightWindow(CommandPipeline pipeline) {
+        return new InFlightWindow(options.getInteger("maxInFlight", DEFAULT_MAX_IN_FLIGHT), pipeline);
+    }
+
+    /**
+     * Disables auto-flush on the connection when the {@code pipelineDepth} or {@code flushInterval} option is set.
+     *
+     * @return the pipeline flushing commands of this workload, or {@code null} when commands are flushed automatically
+     */
+    protected CommandPipeline commandPipeline(StatefulConnection<?, ?> connection) {
+        int depth = options.getInteger("pipelineDepth", DEFAULT_PIPELINE_DEPTH);
+        Duration flushInterval = options.getDuration("flushInterval", DEFAULT_FLUSH_INTERVAL);
+
+        if (depth <= 0 && flushInterval.isZero()) {
+            return null;
+        }
+
+        return new CommandPipeline(connection, metricsReporter, depth > 0 ? depth : Integer.MAX_VALUE, flushInterval);
+    }
+
+    /**
+     * Returns the shared pool of random payloads for the {@code valueSizeDistribution} option, holding up to
+     * {@code payloadPoolSize} payloads.
+     */
+    protected PayloadPool payloadPool() {
+        return PayloadPool.shared(options.valueSizeDistribution(),
+                options.getInteger("payloadPoolSize", DEFAULT_PAYLOAD_POOL_SIZE));
     }
 
     protected void delay(Duration delay) {
@@ -78,6 +165,32 @@ public abstract class BaseWorkload {
         return keyGenerator;
     }
 
+    /**
+     * Returns the key generator of a cluster workload: the {@link SlotAwareKeyGenerator} selected by the
+     * {@code keySlotStrategy} option, or {@link #keyGenerator()} when keys are not picked by slot. The generator is created
+     * once per workload for the live partitions of the cluster client.
+     */
+    protected KeyGenerator keyGenerator(Partitions partitions) {
+        if (clusterKeyGenerator == null) {
+            clusterKeyGenerator = createClusterKeyGenerator(partitions);
+        }
+        return clusterKeyGenerator;
+    }
+
+    private KeyGenerator createClusterKeyGenerator(Partitions partitions) {
+        SlotAwareKeyGenerator.Strategy strategy = SlotAwareKeyGenerator
+                .parseStrategy(options.getString("keySlotStrategy", DEFAULT_KEY_SLOT_STRATEGY));
+        if (strategy == SlotAwareKeyGenerator.Strategy.NONE) {
+            return keyGenerator;
+        }
+
+        String target = strategy == SlotAwareKeyGenerator.Strategy.NODE ? options.getString("keyTargetNode")
+                : options.getString("keySlotRange");
+        return new SlotAwareKeyGenerator(options.getString("keyPattern", DEFAULT_KEY_PATTERN),
+                options.getInteger("keyRangeMin", DEFAULT_KEY_RANGE_MIN),
+                options.getInteger("keyRangeMax", DEFAULT_KEY_RANGE_MAX), strategy, target, partitions);
+    }
+
     private KeyGenerator createKeyGenerator(CommonWorkloadOptions options) {
 
         String keyGenerationStrategy = options.getString("keyGenerationStrategy", DEFAULT_KEY_GENERATION_STRATEGY);
@@ -85,11 +198,37 @@ public abstract class BaseWorkload {
         Integer rangeMin = options.getInteger("keyRangeMin", DEFAULT_KEY_RANGE_MIN);
         Integer rangeMax = options.getInteger("keyRangeMax", DEFAULT_KEY_RANGE_MAX);
 
+        AbstractKeyGenerator keyGenerator = createKeyGenerator(options, keyGenerationStrategy, pattern, rangeMin, rangeMax);
+
+        String keyRenderer = options.getString("keyRenderer", DEFAULT_KEY_RENDERER);
+        if (!KeyRenderer.Mode.AUTO.name().equalsIgnoreCase(keyRenderer)) {
+            keyGenerator.keyRenderer(KeyRenderer.create(keyRenderer, pattern, rangeMin, rangeMax));
+        }
+
+        return keyGenerator;
+    }
+
+    private AbstractKeyGenerator createKeyGenerator(CommonWorkloadOptions options, String keyGenerationStrategy, String pattern,
+            int rangeMin, int rangeMax) {
         switch (keyGenerationStrategy.toUpperCase()) {
             case "SEQUENTIAL":
                 return new SequentialKeyGenerator(pattern, rangeMin, rangeMax);
             case "RANDOM":
                 return new RandomKeyGenerator(pattern, rangeMin, rangeMax);
+            case "ZIPFIAN":
+                return new ZipfianKeyGenerator(pattern, rangeMin, rangeMax,
+                        options.getDouble("keyZipfianConstant", DEFAULT_KEY_ZIPFIAN_CONSTANT));
+            case "SCRAMBLED_ZIPFIAN":
+                return new ScrambledZipfianKeyGenerator(pattern, rangeMin, rangeMax,
+                        options.getDouble("keyZipfianConstant", DEFAULT_KEY_ZIPFIAN_CONSTANT));
+            case "HOTSPOT":
+                return new HotspotKeyGenerator(pattern, rangeMin, rangeMax,
+                        options.getDouble("keyHotsetFraction", DEFAULT_KEY_HOTSET_FRACTION),
+                        options.getDouble("keyHotOpnFraction", DEFAULT_KEY_HOT_OPN_FRACTION));
+            case "LATEST":
+                return new LatestKeyGenerator(pattern, rangeMin, rangeMax,
+                        options.getDouble("keyZipfianConstant", DEFAULT_KEY_ZIPFIAN_CONSTANT),
+                        options.getDouble("keyLatestInsertRatio", DEFAULT_KEY_LATEST_INSERT_RATIO));
             default:
                 throw new IllegalArgumentException("Unknown key generation strategy: " + keyGenerationStrategy);
         }
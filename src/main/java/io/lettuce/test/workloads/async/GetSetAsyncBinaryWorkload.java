@@ -0,0 +1,59 @@
+package io.lettuce.test.workloads.async;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.CommandPipeline;
+import io.lettuce.test.util.InFlightWindow;
+import io.lettuce.test.util.PayloadPool;
+import io.lettuce.test.workloads.BaseWorkload;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous GET and SET on a {@code byte[]} connection. Values are taken from a pool of random payloads and keys are
+ * pre-encoded where the key renderer allows it, so commands are issued without encoding keys or values.
+ */
+public class GetSetAsyncBinaryWorkload extends BaseWorkload {
+
+    private final StatefulRedisConnection<byte[], byte[]> conn;
+
+    public GetSetAsyncBinaryWorkload(StatefulRedisConnection<byte[], byte[]> conn, CommonWorkloadOptions options) {
+        super(options);
+        this.conn = conn;
+    }
+
+    @Override
+    public void run() {
+        CommandPipeline pipeline = commandPipeline(conn);
+        InFlightWindow window = inFlightWindow(pipeline);
+
+        try {
+            RedisAsyncCommands<byte[], byte[]> cmd = withMetrics(conn.async());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            PayloadPool payloads = payloadPool();
+
+            for (int i = 0; i < options().iterationCount(); i++) {
+                byte[] key = keyGenerator().nextKeyBytes();
+                if (random.nextDouble() < options().getSetRatio()) {
+                    byte[] payload = payloads.next();
+                    window.submit(() -> cmd.set(key, payload));
+                } else {
+                    window.submit(() -> cmd.get(key));
+                }
+
+                delay(options().delayAfterIteration());
+            }
+
+            if (options().getBoolean("awaitAllResponses", true)) {
+                window.awaitAll(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+    }
+
+}
@@ -1,15 +1,13 @@
 package io.lettuce.test.workloads.async;
 
-import io.lettuce.core.LettuceFutures;
-import io.lettuce.core.RedisFuture;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.CommandPipeline;
+import io.lettuce.test.util.InFlightWindow;
 import io.lettuce.test.util.PayloadUtils;
 import io.lettuce.test.workloads.BaseWorkload;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -24,26 +22,33 @@ public class GetSetAsyncWorkload extends BaseWorkload {
 
     @Override
     public void run() {
-        List<RedisFuture<String>> futures = new ArrayList<>();
+        CommandPipeline pipeline = commandPipeline(conn);
+        InFlightWindow window = inFlightWindow(pipeline);
 
-        RedisAsyncCommands<String, String> cmd = withMetrics(conn.async());
-        Random random = new Random();
+        try {
+            RedisAsyncCommands<String, String> cmd = withMetrics(conn.async());
+            Random random = new Random();
 
-        String payload = PayloadUtils.randomString(options().valueSize());
+            String payload = PayloadUtils.randomString(options().valueSize());
 
-        for (int i = 0; i < options().iterationCount(); i++) {
-            String key = keyGenerator().nextKey();
-            if (random.nextDouble() < options().getSetRatio()) {
-                futures.add(cmd.set(key, payload));
-            } else {
-                futures.add(cmd.get(key));
-            }
+            for (int i = 0; i < options().iterationCount(); i++) {
+                String key = keyGenerator().nextKey();
+                if (random.nextDouble() < options().getSetRatio()) {
+                    window.submit(() -> cmd.set(key, payload));
+                } else {
+                    window.submit(() -> cmd.get(key));
+                }
 
-            delay(options().delayAfterIteration());
-        }
+                delay(options().delayAfterIteration());
+            }
 
-        if (options().getBoolean("awaitAllResponses", true)) {
-            LettuceFutures.awaitAll(1, TimeUnit.MINUTES, futures.toArray(new RedisFuture[futures.size()]));
+            if (options().getBoolean("awaitAllResponses", true)) {
+                window.awaitAll(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
         }
     }
 
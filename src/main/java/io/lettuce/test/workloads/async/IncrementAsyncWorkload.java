@@ -1,14 +1,12 @@
 package io.lettuce.test.workloads.async;
 
-import io.lettuce.core.LettuceFutures;
 import io.lettuce.core.RedisFuture;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.InFlightWindow;
 import io.lettuce.test.workloads.BaseWorkload;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -28,7 +26,7 @@ public class IncrementAsyncWorkload extends BaseWorkload {
         AtomicInteger requestedIncrements = new AtomicInteger();
         AtomicInteger successfulIncrements = new AtomicInteger();
         AtomicInteger failedIncrements = new AtomicInteger();
-        List<RedisFuture<Long>> futures = new ArrayList<>();
+        InFlightWindow window = inFlightWindow();
 
         RedisAsyncCommands<String, String> cmd = withMetrics(conn.async());
 
@@ -37,7 +35,7 @@ public class IncrementAsyncWorkload extends BaseWorkload {
         cmd.set(key, "0");
         for (int i = 0; i < options().iterationCount(); i++) {
 
-            RedisFuture<Long> incr = cmd.incr(key);
+            RedisFuture<Long> incr = window.submit(() -> cmd.incr(key));
             requestedIncrements.incrementAndGet();
             incr.whenComplete((value, throwable) -> {
                 if (throwable == null) {
@@ -47,12 +45,11 @@ public class IncrementAsyncWorkload extends BaseWorkload {
                 }
             });
 
-            futures.add(incr);
             delay(options().delayAfterIteration());
         }
 
         if (options().getBoolean("awaitAllResponses", true)) {
-            LettuceFutures.awaitAll(1, TimeUnit.MINUTES, futures.toArray(new RedisFuture[futures.size()]));
+            window.awaitAll(1, TimeUnit.MINUTES);
         }
 
         String counter = conn.sync().get(key);
@@ -3,6 +3,7 @@ package io.lettuce.test.workloads.cluster;
 import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
 import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
 import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.generator.KeyGenerator;
 import io.lettuce.test.util.PayloadUtils;
 import io.lettuce.test.workloads.BaseWorkload;
 import java.util.Random;
@@ -18,13 +19,14 @@ public class GetSetClusterWorkload extends BaseWorkload {
 
     @Override
     public void run() {
-        RedisClusterCommands<String, String> cmd = withMetrics(conn.sync());
+        RedisClusterCommands<String, String> cmd = withMetrics(conn.sync(), conn.getPartitions());
+        KeyGenerator keys = keyGenerator(conn.getPartitions());
         Random random = new Random();
 
         String payload = PayloadUtils.randomString(options().valueSize());
 
         for (int i = 0; i < options().iterationCount(); i++) {
-            String key = keyGenerator().nextKey();
+            String key = keys.nextKey();
             if (random.nextDouble() < options().getSetRatio()) {
                 cmd.set(key, payload);
             } else {
@@ -0,0 +1,36 @@
+package io.lettuce.test.workloads.cluster;
+
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.reactive.RedisAdvancedClusterReactiveCommands;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.PayloadUtils;
+import io.lettuce.test.workloads.reactive.BaseReactiveWorkload;
+import org.reactivestreams.Publisher;
+
+public class GetSetReactiveClusterWorkload extends BaseReactiveWorkload {
+
+    private final StatefulRedisClusterConnection<String, String> conn;
+
+    private RedisAdvancedClusterReactiveCommands<String, String> cmd;
+
+    private String payload;
+
+    public GetSetReactiveClusterWorkload(StatefulRedisClusterConnection<String, String> conn, CommonWorkloadOptions options) {
+        super(options);
+        this.conn = conn;
+    }
+
+    @Override
+    public void run() {
+        cmd = withMetrics(conn.reactive());
+        payload = PayloadUtils.randomString(options().valueSize());
+
+        super.run();
+    }
+
+    @Override
+    protected Publisher<?> iteration() {
+        return getSet(cmd, keyGenerator().nextKey(), payload);
+    }
+
+}
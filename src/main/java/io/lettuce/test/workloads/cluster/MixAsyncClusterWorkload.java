@@ -0,0 +1,60 @@
+package io.lettuce.test.workloads.cluster;
+
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.CommandPipeline;
+import io.lettuce.test.util.InFlightWindow;
+import io.lettuce.test.util.PayloadUtils;
+import io.lettuce.test.workloads.BaseWorkload;
+import io.lettuce.test.workloads.mix.CommandMix;
+import io.lettuce.test.workloads.mix.MixCommand;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_COMMAND_MIX;
+
+/**
+ * Issues commands picked from the weighted {@code commandMix} option on a cluster, see {@link CommandMix}.
+ */
+public class MixAsyncClusterWorkload extends BaseWorkload {
+
+    private final StatefulRedisClusterConnection<String, String> conn;
+
+    public MixAsyncClusterWorkload(StatefulRedisClusterConnection<String, String> conn, CommonWorkloadOptions options) {
+        super(options);
+        this.conn = conn;
+    }
+
+    @Override
+    public void run() {
+        CommandPipeline pipeline = commandPipeline(conn);
+        InFlightWindow window = inFlightWindow(pipeline);
+
+        try {
+            RedisAdvancedClusterAsyncCommands<String, String> cmd = withMetrics(conn.async());
+            CommandMix mix = CommandMix.parse(options().getString("commandMix", DEFAULT_COMMAND_MIX));
+            String[] members = CommandMix.members(options().elementsCount());
+            String payload = PayloadUtils.randomString(options().valueSize());
+
+            for (int i = 0; i < options().iterationCount(); i++) {
+                MixCommand command = mix.next();
+                String key = keyGenerator().nextKey();
+                String member = members[ThreadLocalRandom.current().nextInt(members.length)];
+                window.submit(() -> command.issue(cmd, key, payload, member));
+
+                delay(options().delayAfterIteration());
+            }
+
+            if (options().getBoolean("awaitAllResponses", true)) {
+                window.awaitAll(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+    }
+
+}
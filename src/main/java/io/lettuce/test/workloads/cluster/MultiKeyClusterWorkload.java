@@ -0,0 +1,136 @@
+package io.lettuce.test.workloads.cluster;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.generator.KeyGenerator;
+import io.lettuce.test.metrics.OperationStatus;
+import io.lettuce.test.util.CommandPipeline;
+import io.lettuce.test.util.InFlightWindow;
+import io.lettuce.test.util.PayloadUtils;
+import io.lettuce.test.workloads.BaseWorkload;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_BATCH_SIZE;
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_HASH_TAG_RATIO;
+
+/**
+ * Issues {@code MGET} and {@code MSET} batches of {@code batchSize} keys on a cluster, {@code getSetRatio} of them
+ * {@code MSET}.
+ * <p>
+ * Lettuce splits a cross-slot batch into one command per slot, sends them to the nodes serving the slots and merges the
+ * replies. {@code hashTagRatio} of the batches share a hash tag, {@code {tag}:key}, so they map to a single slot and are sent
+ * as one command. Each batch records the number of nodes and slots it touches and its end-to-end latency, until the last reply
+ * is merged, tagged with the number of nodes.
+ */
+public class MultiKeyClusterWorkload extends BaseWorkload {
+
+    private final StatefulRedisClusterConnection<String, String> conn;
+
+    public MultiKeyClusterWorkload(StatefulRedisClusterConnection<String, String> conn, CommonWorkloadOptions options) {
+        super(options);
+        this.conn = conn;
+    }
+
+    @Override
+    public void run() {
+        CommandPipeline pipeline = commandPipeline(conn);
+        InFlightWindow window = inFlightWindow(pipeline);
+
+        try {
+            Partitions partitions = conn.getPartitions();
+            RedisAdvancedClusterAsyncCommands<String, String> cmd = withMetrics(conn.async());
+            KeyGenerator keys = keyGenerator(partitions);
+            int batchSize = options().getInteger("batchSize", DEFAULT_BATCH_SIZE);
+            double hashTagRatio = options().getDouble("hashTagRatio", DEFAULT_HASH_TAG_RATIO);
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be positive, but was " + batchSize);
+            }
+            if (hashTagRatio < 0 || hashTagRatio > 1) {
+                throw new IllegalArgumentException("hashTagRatio must be between 0 and 1, but was " + hashTagRatio);
+            }
+
+            String payload = PayloadUtils.randomString(options().valueSize());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            for (int i = 0; i < options().iterationCount(); i++) {
+                boolean colocated = random.nextDouble() < hashTagRatio;
+                String[] batch = batch(keys, batchSize, colocated);
+                Fanout fanout = fanout(partitions, batch);
+
+                if (random.nextDouble() < options().getSetRatio()) {
+                    Map<String, String> values = new LinkedHashMap<>();
+                    for (String key : batch) {
+                        values.put(key, payload);
+                    }
+                    window.submit(() -> timed("mset", fanout, colocated, () -> cmd.mset(values)));
+                } else {
+                    window.submit(() -> timed("mget", fanout, colocated, () -> cmd.mget(batch)));
+                }
+
+                delay(options().delayAfterIteration());
+            }
+
+            if (options().getBoolean("awaitAllResponses", true)) {
+                window.awaitAll(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+    }
+
+    private static String[] batch(KeyGenerator keys, int batchSize, boolean colocated) {
+        String[] batch = new String[batchSize];
+        String hashTag = colocated ? "{" + keys.nextKey() + "}:" : null;
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = hashTag != null ? hashTag + keys.nextKey() : keys.nextKey();
+        }
+        return batch;
+    }
+
+    /**
+     * Nodes and slots a batch is scattered to, resolved like Lettuce does when splitting the batch.
+     */
+    record Fanout(int nodes, int slots) {
+    }
+
+    static Fanout fanout(Partitions partitions, String[] batch) {
+        BitSet slots = new BitSet(SlotHash.SLOT_COUNT);
+        Set<String> nodes = new HashSet<>();
+        for (String key : batch) {
+            int slot = SlotHash.getSlot(key);
+            if (!slots.get(slot)) {
+                slots.set(slot);
+                RedisClusterNode node = partitions.getPartitionBySlot(slot);
+                nodes.add(node != null ? node.getNodeId() : "unassigned");
+            }
+        }
+        return new Fanout(nodes.size(), slots.cardinality());
+    }
+
+    /**
+     * Issues the batch, timed from before Lettuce splits and dispatches it until the last reply is merged.
+     */
+    private <T> RedisFuture<T> timed(String command, Fanout fanout, boolean colocated, Supplier<RedisFuture<T>> issue) {
+        long start = System.nanoTime();
+        RedisFuture<T> batch = issue.get();
+        batch.whenComplete((result, error) -> metricsReporter.recordBatch(command, fanout.nodes(), fanout.slots(), colocated,
+                System.nanoTime() - start, error == null ? OperationStatus.SUCCESS : OperationStatus.ERROR));
+        return batch;
+    }
+
+}
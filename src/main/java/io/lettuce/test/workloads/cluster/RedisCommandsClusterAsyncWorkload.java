@@ -1,10 +1,10 @@
 package io.lettuce.test.workloads.cluster;
 
-import io.lettuce.core.LettuceFutures;
-import io.lettuce.core.RedisFuture;
 import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
 import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
 import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.CommandPipeline;
+import io.lettuce.test.util.InFlightWindow;
 import io.lettuce.test.util.PayloadUtils;
 import io.lettuce.test.workloads.BaseWorkload;
 
@@ -24,34 +24,40 @@ public class RedisCommandsClusterAsyncWorkload extends BaseWorkload {
 
     @Override
     public void run() {
-        List<RedisFuture<?>> futures = new ArrayList<>();
+        CommandPipeline pipeline = commandPipeline(conn);
+        InFlightWindow window = inFlightWindow(pipeline);
 
-        RedisClusterAsyncCommands<String, String> cmd = withMetrics(conn.async());
-        String payload = PayloadUtils.randomString(options().valueSize());
+        try {
+            RedisClusterAsyncCommands<String, String> cmd = withMetrics(conn.async());
+            String payload = PayloadUtils.randomString(options().valueSize());
 
-        for (int i = 0; i < options().iterationCount(); i++) {
-            String key = keyGenerator().nextKey();
-            futures.add(cmd.set(key, payload));
-            futures.add(cmd.get(key));
-            futures.add(cmd.del(key));
-            futures.add(cmd.incr("counter"));
+            for (int i = 0; i < options().iterationCount(); i++) {
+                String key = keyGenerator().nextKey();
+                window.submit(() -> cmd.set(key, payload));
+                window.submit(() -> cmd.get(key));
+                window.submit(() -> cmd.del(key));
+                window.submit(() -> cmd.incr("counter"));
 
-            List<String> payloads = new ArrayList<>();
-            for (int j = 0; j < options().elementsCount(); j++) {
-                payloads.add(payload);
-            }
-            if (options().elementsCount() > 0) {
-                futures.add(cmd.lpush(key + "list", payloads.toArray(new String[0])));
-                futures.add(cmd.lrange(key + "list", 0, -1));
-                futures.add(cmd.ltrim(key + "list", 0, options().elementsCount()));
-            }
+                List<String> payloads = new ArrayList<>();
+                for (int j = 0; j < options().elementsCount(); j++) {
+                    payloads.add(payload);
+                }
+                if (options().elementsCount() > 0) {
+                    window.submit(() -> cmd.lpush(key + "list", payloads.toArray(new String[0])));
+                    window.submit(() -> cmd.lrange(key + "list", 0, -1));
+                    window.submit(() -> cmd.ltrim(key + "list", 0, options().elementsCount()));
+                }
 
-            delay(options().delayAfterIteration());
-        }
+                delay(options().delayAfterIteration());
+            }
 
-        if (options().getBoolean("awaitAllResponses", true)) {
-            LettuceFutures.awaitAll(1, TimeUnit.MINUTES, futures.toArray(new RedisFuture[futures.size()]));
-            futures.clear();
+            if (options().getBoolean("awaitAllResponses", true)) {
+                window.awaitAll(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
         }
     }
 
@@ -0,0 +1,30 @@
+package io.lettuce.test.workloads.cluster;
+
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.workloads.replay.BaseReplayWorkload;
+
+import java.nio.ByteBuffer;
+
+public class ReplayClusterWorkload extends BaseReplayWorkload {
+
+    private final StatefulRedisClusterConnection<ByteBuffer, ByteBuffer> conn;
+
+    public ReplayClusterWorkload(StatefulRedisClusterConnection<ByteBuffer, ByteBuffer> conn, CommonWorkloadOptions options) {
+        super(options);
+        this.conn = conn;
+    }
+
+    @Override
+    protected StatefulConnection<ByteBuffer, ByteBuffer> connection() {
+        return conn;
+    }
+
+    @Override
+    protected RedisClusterAsyncCommands<ByteBuffer, ByteBuffer> commands() {
+        return conn.async();
+    }
+
+}
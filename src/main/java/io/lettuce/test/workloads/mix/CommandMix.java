@@ -0,0 +1,87 @@
+package io.lettuce.test.workloads.mix;
+
+import io.lettuce.test.util.AliasTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weighted command mix parsed from the {@code commandMix} workload option, e.g. {@code "GET 60%, HGETALL 30%, ZADD 10%"} or
+ * {@code "GET:60,HGETALL:30,ZADD:10"}. Weights are relative and do not need to add up to 100. Commands are picked through an
+ * {@link AliasTable}, so picking the next command is constant time regardless of the number of commands in the mix.
+ */
+public class CommandMix {
+
+    private final MixCommand[] commands;
+
+    private final double[] weights;
+
+    private final AliasTable table;
+
+    CommandMix(MixCommand[] commands, double[] weights) {
+        this.commands = commands;
+        this.weights = weights;
+        this.table = new AliasTable(weights);
+    }
+
+    public static CommandMix parse(String mix) {
+        List<MixCommand> commands = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("[:\\s]+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(
+                        "Invalid command mix entry '" + entry.trim() + "', expected <COMMAND> <WEIGHT>");
+            }
+
+            MixCommand command;
+            try {
+                command = MixCommand.valueOf(parts[0].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported command in command mix: " + parts[0], e);
+            }
+
+            if (commands.contains(command)) {
+                throw new IllegalArgumentException("Duplicate command in command mix: " + command);
+            }
+
+            try {
+                weights.add(Double.parseDouble(parts[1].replace("%", "")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid weight in command mix entry: " + entry.trim(), e);
+            }
+            commands.add(command);
+        }
+
+        return new CommandMix(commands.toArray(new MixCommand[0]), weights.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * @return {@code count} hash field and set member names, at least one
+     */
+    public static String[] members(int count) {
+        String[] members = new String[Math.max(1, count)];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = "member-" + i;
+        }
+        return members;
+    }
+
+    public MixCommand next() {
+        return commands[table.next()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < commands.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(commands[i]).append(' ').append(weights[i]);
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,211 @@
+package io.lettuce.test.workloads.mix;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Command templates available to the {@code mix} workload.
+ * <p>
+ * Each template issues one command for a generated key. Collection commands append a type suffix to the key, so commands of
+ * different data types never hit the same key. Fields and members are picked from {@code elementsCount} names, so each
+ * collection holds at most {@code elementsCount} entries except for lists, which grow with LPUSH and shrink with LPOP. Range
+ * reads return up to {@value #RANGE_SIZE} entries.
+ */
+public enum MixCommand {
+
+    GET(Type.STRING) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.get(key);
+        }
+
+    },
+
+    SET(Type.STRING) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.set(key, payload);
+        }
+
+    },
+
+    DEL(Type.STRING) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.del(key);
+        }
+
+    },
+
+    EXISTS(Type.STRING) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.exists(key);
+        }
+
+    },
+
+    INCR(Type.COUNTER) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.incr(key);
+        }
+
+    },
+
+    HSET(Type.HASH) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.hset(key, member, payload);
+        }
+
+    },
+
+    HGET(Type.HASH) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.hget(key, member);
+        }
+
+    },
+
+    HGETALL(Type.HASH) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.hgetall(key);
+        }
+
+    },
+
+    LPUSH(Type.LIST) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.lpush(key, payload);
+        }
+
+    },
+
+    LPOP(Type.LIST) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.lpop(key);
+        }
+
+    },
+
+    LRANGE(Type.LIST) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.lrange(key, 0, RANGE_SIZE - 1);
+        }
+
+    },
+
+    SADD(Type.SET) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.sadd(key, member);
+        }
+
+    },
+
+    SISMEMBER(Type.SET) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.sismember(key, member);
+        }
+
+    },
+
+    SMEMBERS(Type.SET) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.smembers(key);
+        }
+
+    },
+
+    ZADD(Type.ZSET) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.zadd(key, ThreadLocalRandom.current().nextDouble(), member);
+        }
+
+    },
+
+    ZSCORE(Type.ZSET) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.zscore(key, member);
+        }
+
+    },
+
+    ZRANGE(Type.ZSET) {
+
+        @Override
+        RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+            return cmd.zrange(key, 0, RANGE_SIZE - 1);
+        }
+
+    };
+
+    static final int RANGE_SIZE = 10;
+
+    /**
+     * Data type of the key a command operates on, determines the key suffix.
+     */
+    enum Type {
+
+        STRING(""), COUNTER(":counter"), HASH(":hash"), LIST(":list"), SET(":set"), ZSET(":zset");
+
+        private final String keySuffix;
+
+        Type(String keySuffix) {
+            this.keySuffix = keySuffix;
+        }
+
+        String key(String key) {
+            return keySuffix.isEmpty() ? key : key + keySuffix;
+        }
+
+    }
+
+    private final Type type;
+
+    MixCommand(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Issues the command for the generated key.
+     *
+     * @param key generated key, the type suffix is appended
+     * @param payload value written by write commands
+     * @param member hash field, set or sorted set member
+     */
+    public RedisFuture<?> issue(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member) {
+        return execute(cmd, type.key(key), payload, member);
+    }
+
+    abstract RedisFuture<?> execute(RedisClusterAsyncCommands<String, String> cmd, String key, String payload, String member);
+
+}
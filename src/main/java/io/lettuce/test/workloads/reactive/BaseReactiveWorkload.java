@@ -0,0 +1,100 @@
+package io.lettuce.test.workloads.reactive;
+
+import io.lettuce.core.cluster.api.reactive.RedisClusterReactiveCommands;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.RatePacer;
+import io.lettuce.test.workloads.BaseWorkload;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_CONCURRENCY;
+
+/**
+ * Base class for workloads using the reactive API.
+ * <p>
+ * Iterations are mapped with a bounded {@code flatMap}, so at most {@code concurrency} iterations are in flight at any time.
+ * New iterations are requested only when earlier ones complete, which keeps the workload from queueing more commands than the
+ * connection can handle (backpressure).
+ * <p>
+ * Reactive commands are not paced, waiting for a slot would block the subscribing thread. Open-loop mode is rejected.
+ */
+public abstract class BaseReactiveWorkload extends BaseWorkload {
+
+    protected BaseReactiveWorkload(CommonWorkloadOptions options) {
+        super(options);
+    }
+
+    @Override
+    public void pacer(RatePacer pacer) {
+        if (pacer != null) {
+            throw new IllegalArgumentException(
+                    "targetOpsPerSecond is not supported by reactive workloads, reactive commands are not paced");
+        }
+        super.pacer(null);
+    }
+
+    /**
+     * Commands to execute for a single iteration. Invoked sequentially, so implementations may use the key generator.
+     */
+    protected abstract Publisher<?> iteration();
+
+    @Override
+    public void run() {
+        Flux<Integer> iterations = Flux.range(0, options().iterationCount());
+
+        Duration delay = options().delayAfterIteration();
+        if (!Duration.ZERO.equals(delay)) {
+            iterations = iterations.delayElements(delay);
+        }
+
+        int concurrency = options().getInteger("concurrency", DEFAULT_CONCURRENCY);
+        Flux<?> workload = iterations.flatMapDelayError(i -> iteration(), concurrency, Queues.XS_BUFFER_SIZE);
+
+        if (options().getBoolean("awaitAllResponses", true)) {
+            workload.blockLast();
+        } else {
+            workload.subscribe();
+        }
+    }
+
+    /**
+     * A SET or GET of the key, picked by the {@code getSetRatio} option.
+     */
+    protected Publisher<?> getSet(RedisClusterReactiveCommands<String, String> cmd, String key, String payload) {
+        if (ThreadLocalRandom.current().nextDouble() < options().getSetRatio()) {
+            return cmd.set(key, payload);
+        } else {
+            return cmd.get(key);
+        }
+    }
+
+    /**
+     * The commands of the {@code redis_commands} workloads for the key, completing once all of them completed.
+     *
+     * @param payloads {@code elementsCount} values pushed to the list of the key
+     */
+    protected Publisher<?> redisCommands(RedisClusterReactiveCommands<String, String> cmd, String key, String payload,
+            String[] payloads) {
+        // commands of an iteration are subscribed in order and pipelined on the connection
+        List<Publisher<?>> commands = new ArrayList<>(7);
+        commands.add(cmd.set(key, payload));
+        commands.add(cmd.get(key));
+        commands.add(cmd.del(key));
+        commands.add(cmd.incr("counter"));
+        if (options().elementsCount() > 0) {
+            commands.add(cmd.lpush(key + "list", payloads));
+            commands.add(cmd.lrange(key + "list", 0, -1));
+            commands.add(cmd.ltrim(key + "list", 0, options().elementsCount()));
+        }
+
+        return Mono.whenDelayError(commands);
+    }
+
+}
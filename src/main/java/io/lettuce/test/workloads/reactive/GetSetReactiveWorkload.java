@@ -0,0 +1,35 @@
+package io.lettuce.test.workloads.reactive;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.PayloadUtils;
+import org.reactivestreams.Publisher;
+
+public class GetSetReactiveWorkload extends BaseReactiveWorkload {
+
+    private final StatefulRedisConnection<String, String> conn;
+
+    private RedisReactiveCommands<String, String> cmd;
+
+    private String payload;
+
+    public GetSetReactiveWorkload(StatefulRedisConnection<String, String> conn, CommonWorkloadOptions options) {
+        super(options);
+        this.conn = conn;
+    }
+
+    @Override
+    public void run() {
+        cmd = withMetrics(conn.reactive());
+        payload = PayloadUtils.randomString(options().valueSize());
+
+        super.run();
+    }
+
+    @Override
+    protected Publisher<?> iteration() {
+        return getSet(cmd, keyGenerator().nextKey(), payload);
+    }
+
+}
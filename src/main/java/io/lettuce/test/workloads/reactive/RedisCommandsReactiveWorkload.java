@@ -0,0 +1,41 @@
+package io.lettuce.test.workloads.reactive;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.PayloadUtils;
+import org.reactivestreams.Publisher;
+
+import java.util.Arrays;
+
+public class RedisCommandsReactiveWorkload extends BaseReactiveWorkload {
+
+    private final StatefulRedisConnection<String, String> conn;
+
+    private RedisReactiveCommands<String, String> cmd;
+
+    private String payload;
+
+    private String[] payloads;
+
+    public RedisCommandsReactiveWorkload(StatefulRedisConnection<String, String> conn, CommonWorkloadOptions options) {
+        super(options);
+        this.conn = conn;
+    }
+
+    @Override
+    public void run() {
+        cmd = withMetrics(conn.reactive());
+        payload = PayloadUtils.randomString(options().valueSize());
+        payloads = new String[options().elementsCount()];
+        Arrays.fill(payloads, payload);
+
+        super.run();
+    }
+
+    @Override
+    protected Publisher<?> iteration() {
+        return redisCommands(cmd, keyGenerator().nextKey(), payload, payloads);
+    }
+
+}
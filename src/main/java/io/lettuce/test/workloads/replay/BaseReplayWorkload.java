@@ -0,0 +1,194 @@
+package io.lettuce.test.workloads.replay;
+
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.output.VoidOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.lettuce.test.CommonWorkloadOptions;
+import io.lettuce.test.util.CommandPipeline;
+import io.lettuce.test.util.InFlightWindow;
+import io.lettuce.test.workloads.BaseWorkload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.lettuce.test.DefaultWorkloadOptions.WorkloadOptionsConstants.DEFAULT_REPLAY_SPEED;
+
+/**
+ * Replays a recorded trace, see {@link TraceReader}, through the async API.
+ * <p>
+ * Commands are issued with the inter-arrival times of the trace, divided by the {@code replaySpeed} option. A speed of
+ * {@code 0} replays as fast as the in-flight window allows. When several workloads replay the same trace, each one issues the
+ * commands whose first argument (usually the key) hashes to its partition, so commands on the same key keep their order and go
+ * through the same connection. Each workload reads the whole trace, the mapped pages are shared through the page cache.
+ * <p>
+ * Connection state and server administration commands, such as {@code SELECT}, {@code MULTI} or {@code FLUSHALL}, and blocking
+ * commands are skipped.
+ */
+public abstract class BaseReplayWorkload extends BaseWorkload {
+
+    private static final Logger log = LoggerFactory.getLogger(BaseReplayWorkload.class);
+
+    static final Set<String> SKIPPED_COMMANDS = Set.of("AUTH", "HELLO", "SELECT", "QUIT", "RESET", "MONITOR", "CLIENT",
+            "SUBSCRIBE", "PSUBSCRIBE", "SSUBSCRIBE", "UNSUBSCRIBE", "PUNSUBSCRIBE", "SUNSUBSCRIBE", "MULTI", "EXEC", "DISCARD",
+            "WATCH", "UNWATCH", "SHUTDOWN", "FLUSHALL", "FLUSHDB", "DEBUG", "CONFIG", "REPLICAOF", "SLAVEOF", "FAILOVER",
+            "CLUSTER", "BLPOP", "BRPOP", "BLMOVE", "BRPOPLPUSH", "BLMPOP", "BZPOPMIN", "BZPOPMAX", "BZMPOP", "WAIT", "WAITAOF");
+
+    // Marks skipped commands in the keyword cache
+    private static final ProtocolKeyword SKIPPED = new Keyword("SKIPPED");
+
+    private record Keyword(String name) implements ProtocolKeyword {
+
+        @Override
+        public byte[] getBytes() {
+            return name.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+    }
+
+    private final Map<ByteBuffer, ProtocolKeyword> keywords = new HashMap<>();
+
+    private int partitionIndex = 0;
+
+    private int partitionCount = 1;
+
+    protected BaseReplayWorkload(CommonWorkloadOptions options) {
+        super(options);
+    }
+
+    protected abstract StatefulConnection<ByteBuffer, ByteBuffer> connection();
+
+    protected abstract RedisClusterAsyncCommands<ByteBuffer, ByteBuffer> commands();
+
+    @Override
+    public void partition(int workloadIndex, int workloadCount) {
+        super.partition(workloadIndex, workloadCount);
+        this.partitionIndex = workloadIndex;
+        this.partitionCount = workloadCount;
+    }
+
+    @Override
+    public void run() {
+        String file = options().getString("replayFile");
+        if (file == null) {
+            throw new IllegalArgumentException("Option 'replayFile' is required for the replay workload");
+        }
+        double speed = options().getDouble("replaySpeed", DEFAULT_REPLAY_SPEED);
+
+        CommandPipeline pipeline = commandPipeline(connection());
+        InFlightWindow window = inFlightWindow(pipeline);
+
+        long replayed = 0;
+        long skipped = 0;
+        try (TraceReader reader = new TraceReader(Path.of(file))) {
+            RedisClusterAsyncCommands<ByteBuffer, ByteBuffer> cmd = withMetrics(commands());
+            TraceRecord record = new TraceRecord();
+            long start = System.nanoTime();
+            long firstTimestamp = Long.MIN_VALUE;
+
+            while (reader.next(record) && !Thread.currentThread().isInterrupted()) {
+                if (firstTimestamp == Long.MIN_VALUE) {
+                    firstTimestamp = record.timestampNanos();
+                }
+
+                if (!isOwnPartition(record)) {
+                    continue;
+                }
+
+                ProtocolKeyword keyword = keyword(record.arg(0));
+                if (keyword == SKIPPED) {
+                    skipped++;
+                    continue;
+                }
+
+                if (speed > 0) {
+                    awaitNanos(start + (long) ((record.timestampNanos() - firstTimestamp) / speed));
+                }
+
+                CommandArgs<ByteBuffer, ByteBuffer> args = new CommandArgs<>(ByteBufferCodec.INSTANCE);
+                for (int i = 1; i < record.argc(); i++) {
+                    if (i == 1) {
+                        args.addKey(record.arg(i));
+                    } else {
+                        args.addValue(record.arg(i));
+                    }
+                }
+
+                window.submit(() -> cmd.dispatch(keyword, new VoidOutput<>(), args));
+                replayed++;
+            }
+
+            if (options().getBoolean("awaitAllResponses", true)) {
+                window.awaitAll(1, TimeUnit.MINUTES);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read trace " + file, e);
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+
+        log.info("Replayed {} commands from {}, skipped {} (partition {} of {})", replayed, file, skipped, partitionIndex,
+                partitionCount);
+    }
+
+    private boolean isOwnPartition(TraceRecord record) {
+        if (partitionCount == 1) {
+            return true;
+        }
+
+        int hash = record.argc() > 1 ? record.arg(1).hashCode() : 0;
+        return Math.floorMod(hash, partitionCount) == partitionIndex;
+    }
+
+    private ProtocolKeyword keyword(ByteBuffer name) {
+        ProtocolKeyword keyword = keywords.get(name);
+        if (keyword == null) {
+            byte[] bytes = new byte[name.remaining()];
+            name.duplicate().get(bytes);
+
+            keyword = resolve(new String(bytes, StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT));
+            keywords.put(ByteBuffer.wrap(bytes), keyword);
+        }
+        return keyword;
+    }
+
+    private static ProtocolKeyword resolve(String name) {
+        if (SKIPPED_COMMANDS.contains(name)) {
+            return SKIPPED;
+        }
+
+        try {
+            return CommandType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return new Keyword(name);
+        }
+    }
+
+    private static void awaitNanos(long deadline) {
+        long wait;
+        while ((wait = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+}
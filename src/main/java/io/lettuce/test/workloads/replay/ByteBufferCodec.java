@@ -0,0 +1,66 @@
+package io.lettuce.test.workloads.replay;
+
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.ToByteBufEncoder;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec for {@link ByteBuffer} keys and values that writes the buffers straight into the outbound {@link ByteBuf}, so arguments
+ * sliced from a mapped trace file are not copied to the heap before being written.
+ */
+public final class ByteBufferCodec implements RedisCodec<ByteBuffer, ByteBuffer>, ToByteBufEncoder<ByteBuffer, ByteBuffer> {
+
+    public static final ByteBufferCodec INSTANCE = new ByteBufferCodec();
+
+    private ByteBufferCodec() {
+    }
+
+    @Override
+    public ByteBuffer decodeKey(ByteBuffer bytes) {
+        return copy(bytes);
+    }
+
+    @Override
+    public ByteBuffer decodeValue(ByteBuffer bytes) {
+        return copy(bytes);
+    }
+
+    @Override
+    public ByteBuffer encodeKey(ByteBuffer key) {
+        return key.duplicate();
+    }
+
+    @Override
+    public ByteBuffer encodeValue(ByteBuffer value) {
+        return value.duplicate();
+    }
+
+    @Override
+    public void encodeKey(ByteBuffer key, ByteBuf target) {
+        target.writeBytes(key.duplicate());
+    }
+
+    @Override
+    public void encodeValue(ByteBuffer value, ByteBuf target) {
+        target.writeBytes(value.duplicate());
+    }
+
+    @Override
+    public int estimateSize(Object keyOrValue) {
+        return keyOrValue instanceof ByteBuffer buffer ? buffer.remaining() : 0;
+    }
+
+    @Override
+    public boolean isEstimateExact() {
+        return true;
+    }
+
+    private static ByteBuffer copy(ByteBuffer bytes) {
+        ByteBuffer copy = ByteBuffer.allocate(bytes.remaining());
+        copy.put(bytes).flip();
+        return copy;
+    }
+
+}
@@ -0,0 +1,29 @@
+package io.lettuce.test.workloads.replay;
+
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.test.CommonWorkloadOptions;
+
+import java.nio.ByteBuffer;
+
+public class ReplayWorkload extends BaseReplayWorkload {
+
+    private final StatefulRedisConnection<ByteBuffer, ByteBuffer> conn;
+
+    public ReplayWorkload(StatefulRedisConnection<ByteBuffer, ByteBuffer> conn, CommonWorkloadOptions options) {
+        super(options);
+        this.conn = conn;
+    }
+
+    @Override
+    protected StatefulConnection<ByteBuffer, ByteBuffer> connection() {
+        return conn;
+    }
+
+    @Override
+    protected RedisClusterAsyncCommands<ByteBuffer, ByteBuffer> commands() {
+        return conn.async();
+    }
+
+}
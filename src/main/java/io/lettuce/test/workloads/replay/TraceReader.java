@@ -0,0 +1,292 @@
+package io.lettuce.test.workloads.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams commands from a trace file through a sliding memory-mapped window.
+ * <p>
+ * Only {@code windowSize} bytes of the file are mapped at a time and the window moves forward as records are read, so traces
+ * larger than the heap can be replayed. Arguments are returned as slices of the mapping and are not copied, except for MONITOR
+ * arguments containing escape sequences, which are decoded into a new buffer.
+ * <p>
+ * Two formats are supported and detected from the first bytes of the file:
+ * <ul>
+ * <li>MONITOR output, one command per line: {@code 1339518083.107412 [0 127.0.0.1:60866] "set" "key" "value"}. Lines not
+ * starting with a timestamp, such as the {@code OK} printed by {@code redis-cli monitor}, are skipped</li>
+ * <li>Binary: the magic {@code LTRC} and a version int, followed by records of a {@code long} timestamp in nanoseconds, an
+ * {@code int} argument count and, per argument, an {@code int} length and the argument bytes. Numbers are big-endian. See
+ * {@link TraceWriter}</li>
+ * </ul>
+ * Not thread safe.
+ */
+public class TraceReader implements AutoCloseable {
+
+    static final byte[] MAGIC = "LTRC".getBytes(StandardCharsets.US_ASCII);
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = MAGIC.length + Integer.BYTES;
+
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final long fileSize;
+
+    private final int windowSize;
+
+    private final boolean binary;
+
+    private MappedByteBuffer window;
+
+    private long windowOffset;
+
+    public TraceReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    TraceReader(Path file, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+
+        map(0, windowSize);
+        this.binary = isBinary();
+        if (binary) {
+            window.position(HEADER_SIZE);
+        }
+    }
+
+    /**
+     * Reads the next command into {@code record}.
+     *
+     * @return {@code false} at the end of the trace
+     */
+    public boolean next(TraceRecord record) throws IOException {
+        return binary ? nextBinary(record) : nextMonitor(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean isBinary() throws IOException {
+        if (window.remaining() < HEADER_SIZE) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (window.get(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+
+        int version = window.getInt(MAGIC.length);
+        if (version != VERSION) {
+            throw new IOException("Unsupported trace version " + version + ", expected " + VERSION);
+        }
+        return true;
+    }
+
+    private boolean nextBinary(TraceRecord record) throws IOException {
+        if (!ensure(Long.BYTES + Integer.BYTES)) {
+            if (window.hasRemaining()) {
+                throw new IOException("Truncated trace record at offset " + position());
+            }
+            return false;
+        }
+
+        record.reset(window.getLong());
+        int argc = window.getInt();
+        for (int i = 0; i < argc; i++) {
+            if (!ensure(Integer.BYTES)) {
+                throw new IOException("Truncated trace record at offset " + position());
+            }
+            int length = window.getInt();
+            if (length < 0 || !ensure(length)) {
+                throw new IOException("Truncated trace record at offset " + position());
+            }
+
+            record.add(window.slice(window.position(), length));
+            window.position(window.position() + length);
+        }
+        return true;
+    }
+
+    private boolean nextMonitor(TraceRecord record) throws IOException {
+        while (true) {
+            int lineEnd = lineEnd();
+            if (lineEnd < 0) {
+                return false;
+            }
+
+            int lineStart = window.position();
+            window.position(Math.min(lineEnd + 1, window.limit()));
+
+            if (parseMonitorLine(record, lineStart, lineEnd)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the line at the window position, moving the window forward when the line is not fully mapped.
+     *
+     * @return index of the terminating newline, or the window limit for the last line, {@code -1} at the end of the trace
+     */
+    private int lineEnd() throws IOException {
+        int size = windowSize;
+        while (true) {
+            for (int i = window.position(); i < window.limit(); i++) {
+                if (window.get(i) == '\n') {
+                    return i;
+                }
+            }
+
+            if (windowOffset + window.limit() >= fileSize) {
+                return window.hasRemaining() ? window.limit() : -1;
+            }
+
+            // Line crosses the end of the window, remap starting at the line
+            size = window.remaining() < size ? size : (int) Math.min(Integer.MAX_VALUE, 2L * size);
+            map(position(), size);
+        }
+    }
+
+    private boolean parseMonitorLine(TraceRecord record, int start, int end) {
+        // Timestamp: <seconds>.<microseconds>
+        long seconds = 0;
+        int i = start;
+        if (i >= end || !isDigit(window.get(i))) {
+            return false;
+        }
+        while (i < end && isDigit(window.get(i))) {
+            seconds = seconds * 10 + (window.get(i++) - '0');
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < end && window.get(i) == '.') {
+            i++;
+            while (i < end && isDigit(window.get(i))) {
+                if (fractionDigits < 9) {
+                    fraction = fraction * 10 + (window.get(i) - '0');
+                    fractionDigits++;
+                }
+                i++;
+            }
+        }
+        for (; fractionDigits < 9; fractionDigits++) {
+            fraction *= 10;
+        }
+
+        // Skip the [<db> <client>] part
+        while (i < end && window.get(i) != ']') {
+            i++;
+        }
+
+        record.reset(seconds * 1_000_000_000L + fraction);
+
+        while (i < end) {
+            if (window.get(i) != '"') {
+                i++;
+                continue;
+            }
+
+            int argStart = ++i;
+            boolean escaped = false;
+            while (i < end && window.get(i) != '"') {
+                if (window.get(i) == '\\') {
+                    escaped = true;
+                    i++;
+                }
+                i++;
+            }
+
+            int argEnd = Math.min(i, end);
+            record.add(escaped ? unescape(argStart, argEnd) : window.slice(argStart, argEnd - argStart));
+            i++;
+        }
+
+        return record.argc() > 0;
+    }
+
+    /**
+     * Decodes the escape sequences used by MONITOR ({@code \"}, {@code \\}, {@code \n}, {@code \r}, {@code \t}, {@code \a},
+     * {@code \b} and {@code \xHH}).
+     */
+    private ByteBuffer unescape(int start, int end) {
+        byte[] decoded = new byte[end - start];
+        int length = 0;
+
+        for (int i = start; i < end; i++) {
+            byte b = window.get(i);
+            if (b != '\\' || i + 1 >= end) {
+                decoded[length++] = b;
+                continue;
+            }
+
+            byte escape = window.get(++i);
+            switch (escape) {
+                case 'n' -> decoded[length++] = '\n';
+                case 'r' -> decoded[length++] = '\r';
+                case 't' -> decoded[length++] = '\t';
+                case 'a' -> decoded[length++] = 7;
+                case 'b' -> decoded[length++] = '\b';
+                case 'x' -> {
+                    if (i + 2 < end) {
+                        decoded[length++] = (byte) (Character.digit(window.get(i + 1), 16) << 4
+                                | Character.digit(window.get(i + 2), 16));
+                        i += 2;
+                    } else {
+                        decoded[length++] = escape;
+                    }
+                }
+                default -> decoded[length++] = escape;
+            }
+        }
+
+        return ByteBuffer.wrap(decoded, 0, length);
+    }
+
+    /**
+     * Makes sure {@code bytes} bytes are mapped after the current position, moving the window forward if required.
+     *
+     * @return {@code false} if the file ends before
+     */
+    private boolean ensure(int bytes) throws IOException {
+        if (window.remaining() >= bytes) {
+            return true;
+        }
+
+        long position = position();
+        if (position + bytes > fileSize) {
+            return false;
+        }
+
+        map(position, Math.max(windowSize, bytes));
+        return true;
+    }
+
+    private void map(long offset, int size) throws IOException {
+        int length = (int) Math.min(size, fileSize - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        windowOffset = offset;
+    }
+
+    private long position() {
+        return windowOffset + window.position();
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+}
@@ -0,0 +1,55 @@
+package io.lettuce.test.workloads.replay;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A single command read from a trace. Arguments are views of the mapped trace file and are only valid until the record is read
+ * into again. Records are reused by {@link TraceReader#next(TraceRecord)} to avoid allocating per command.
+ */
+public final class TraceRecord {
+
+    private long timestampNanos;
+
+    private int argc;
+
+    private ByteBuffer[] args = new ByteBuffer[8];
+
+    /**
+     * @return capture time of the command in nanoseconds, only meaningful relative to other records of the same trace
+     */
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * @return number of arguments, including the command name
+     */
+    public int argc() {
+        return argc;
+    }
+
+    /**
+     * @return argument {@code index}, {@code 0} is the command name
+     */
+    public ByteBuffer arg(int index) {
+        if (index >= argc) {
+            throw new IndexOutOfBoundsException("Argument " + index + " of " + argc);
+        }
+        return args[index];
+    }
+
+    void reset(long timestampNanos) {
+        this.timestampNanos = timestampNanos;
+        Arrays.fill(args, 0, argc, null);
+        this.argc = 0;
+    }
+
+    void add(ByteBuffer arg) {
+        if (argc == args.length) {
+            args = Arrays.copyOf(args, args.length * 2);
+        }
+        args[argc++] = arg;
+    }
+
+}
@@ -0,0 +1,62 @@
+package io.lettuce.test.workloads.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes traces in the binary format read by {@link TraceReader}. Binary traces are more compact than MONITOR output and are
+ * read without decoding escape sequences.
+ */
+public class TraceWriter implements AutoCloseable {
+
+    private final DataOutputStream out;
+
+    public TraceWriter(Path file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.write(TraceReader.MAGIC);
+        out.writeInt(TraceReader.VERSION);
+    }
+
+    /**
+     * Converts a MONITOR log into a binary trace.
+     */
+    public static void convert(Path monitorLog, Path binaryTrace) throws IOException {
+        try (TraceReader reader = new TraceReader(monitorLog); TraceWriter writer = new TraceWriter(binaryTrace)) {
+            TraceRecord record = new TraceRecord();
+            while (reader.next(record)) {
+                writer.write(record);
+            }
+        }
+    }
+
+    public void write(long timestampNanos, byte[]... args) throws IOException {
+        out.writeLong(timestampNanos);
+        out.writeInt(args.length);
+        for (byte[] arg : args) {
+            out.writeInt(arg.length);
+            out.write(arg);
+        }
+    }
+
+    public void write(TraceRecord record) throws IOException {
+        out.writeLong(record.timestampNanos());
+        out.writeInt(record.argc());
+        for (int i = 0; i < record.argc(); i++) {
+            ByteBuffer arg = record.arg(i).duplicate();
+            out.writeInt(arg.remaining());
+            while (arg.hasRemaining()) {
+                out.write(arg.get());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
@@ -0,0 +1,17 @@
+package io.lettuce.test;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NettyTransportTest {
+
+    @Test
+    void parse() {
+        assertEquals(NettyTransport.NIO, NettyTransport.parse("nio"));
+        assertEquals(NettyTransport.EPOLL, NettyTransport.parse(" EPOLL "));
+        assertEquals(NettyTransport.IOURING, NettyTransport.parse("io_uring"));
+        assertThrows(IllegalArgumentException.class, () -> NettyTransport.parse("kqueue"));
+    }
+
+}
@@ -0,0 +1,111 @@
+package io.lettuce.test;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.test.config.TestRunProperties;
+import io.lettuce.test.config.WorkloadRunnerConfig;
+import io.lettuce.test.config.WorkloadRunnerConfig.ConnectionPoolConfig;
+import io.lettuce.test.config.WorkloadRunnerConfig.TestConfig;
+import io.lettuce.test.config.WorkloadRunnerConfig.WorkloadConfig;
+import io.lettuce.test.metrics.MetricsReporter;
+import io.lettuce.test.workloads.BaseWorkload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StandaloneWorkloadRunnerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MetricsReporter metricsReporter = new MetricsReporter(registry, registry, mock(TaskScheduler.class),
+            new TestRunProperties());
+
+    private StandaloneWorkloadRunner runner;
+
+    @AfterEach
+    void tearDown() {
+        if (runner != null) {
+            runner.close();
+        }
+    }
+
+    @Test
+    void valueSizeDistributionIsRejectedByStringWorkloads() {
+        runner = new StandaloneWorkloadRunner(config("get_set_async", Map.of("valueSizeDistribution", "uniform:50-4096")),
+                metricsReporter);
+        assertThrows(IllegalArgumentException.class, () -> runner.validateConfig(runner.config));
+
+        runner.config.getTest().getWorkload().setType("get_set_async_binary");
+        assertDoesNotThrow(() -> runner.validateConfig(runner.config));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pooledCodecWorkloadBorrowsFromCodecConnectionPool() {
+        // Given: A pooled get_set_async_binary workload
+        WorkloadRunnerConfig config = config("get_set_async_binary", Map.of());
+        ConnectionPoolConfig poolConfig = new ConnectionPoolConfig();
+        poolConfig.setEnabled(true);
+        config.getTest().setConnectionPool(poolConfig);
+        runner = new StandaloneWorkloadRunner(config, metricsReporter);
+
+        RedisClient client = mock(RedisClient.class);
+        StatefulRedisConnection<byte[], byte[]> binaryConnection = mock(StatefulRedisConnection.class);
+        when(binaryConnection.isOpen()).thenReturn(true);
+        when(client.connect(ByteArrayCodec.INSTANCE)).thenReturn(binaryConnection);
+        runner.clients.add(client);
+
+        StatefulRedisConnection<String, String> connection = runner.createPooledConnections(client, 0).get(0);
+        runner.createWorkload(client, connection, config.getTest().getWorkload());
+
+        // When: The workload runs twice
+        AtomicInteger active = new AtomicInteger();
+        BaseWorkload workload = runner.withPooledConnection(new BaseWorkload(DefaultWorkloadOptions.create(Map.of())) {
+
+            @Override
+            public void run() {
+                active.set(codecPoolGauge("redis.pool.connections.active"));
+            }
+
+        }, connection);
+        workload.run();
+        workload.run();
+
+        // Then: Each run borrowed the binary connection from its pool and returned it, the String pool was not used
+        assertEquals(1, active.get());
+        assertEquals(0, codecPoolGauge("redis.pool.connections.active"));
+        assertEquals(1, codecPoolGauge("redis.pool.connections.idle"));
+        verify(client, times(1)).connect(ByteArrayCodec.INSTANCE);
+        verify(client, never()).connect();
+    }
+
+    private int codecPoolGauge(String name) {
+        return (int) registry.get(name).tag("pool", "client-0-ByteArrayCodec").gauge().value();
+    }
+
+    private static WorkloadRunnerConfig config(String type, Map<String, String> options) {
+        WorkloadConfig workload = new WorkloadConfig();
+        workload.setType(type);
+        workload.setOptions(options);
+
+        TestConfig test = new TestConfig();
+        test.setClients(1);
+        test.setConnectionsPerClient(1);
+        test.setThreadsPerConnection(1);
+        test.setWorkload(workload);
+
+        // Bound by Spring only
+        WorkloadRunnerConfig config = mock(WorkloadRunnerConfig.class);
+        when(config.getTest()).thenReturn(test);
+        return config;
+    }
+
+}
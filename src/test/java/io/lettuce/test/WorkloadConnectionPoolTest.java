@@ -0,0 +1,69 @@
+package io.lettuce.test;
+
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.test.config.TestRunProperties;
+import io.lettuce.test.config.WorkloadRunnerConfig.ConnectionPoolConfig;
+import io.lettuce.test.metrics.MetricsReporter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WorkloadConnectionPoolTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MetricsReporter metricsReporter = new MetricsReporter(registry, registry, mock(TaskScheduler.class),
+            new TestRunProperties());
+
+    @SuppressWarnings("unchecked")
+    private WorkloadConnectionPool<StatefulRedisConnection<String, String>> pool(int maxTotal) {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setEnabled(true);
+        config.setMaxWait(Duration.ofMillis(10));
+
+        return new WorkloadConnectionPool<>("client-0", () -> {
+            StatefulRedisConnection<String, String> connection = mock(StatefulRedisConnection.class);
+            when(connection.isOpen()).thenReturn(true);
+            return connection;
+        }, StatefulRedisConnection.class, config, maxTotal, metricsReporter);
+    }
+
+    @Test
+    void leaseDelegatesToBorrowedConnection() {
+        WorkloadConnectionPool<StatefulRedisConnection<String, String>>.Lease lease = pool(1).lease();
+        StatefulRedisConnection<String, String> connection = lease.connection();
+
+        assertThrows(IllegalStateException.class, connection::isOpen);
+
+        lease.borrow();
+        assertTrue(connection.isOpen());
+        lease.release();
+
+        assertEquals(1, registry.get("redis.pool.borrow.duration").tag("status", "success").timer().count());
+        assertEquals(1, registry.get("redis.pool.connections.idle").gauge().value());
+    }
+
+    @Test
+    void borrowFailsWhenPoolIsExhausted() {
+        WorkloadConnectionPool<StatefulRedisConnection<String, String>> pool = pool(1);
+        WorkloadConnectionPool<StatefulRedisConnection<String, String>>.Lease first = pool.lease();
+        WorkloadConnectionPool<StatefulRedisConnection<String, String>>.Lease second = pool.lease();
+
+        first.borrow();
+        assertThrows(RedisException.class, second::borrow);
+        assertEquals(1, registry.get("redis.pool.exhausted").counter().count());
+        assertEquals(1, registry.get("redis.pool.connections.active").gauge().value());
+
+        first.fail();
+        first.release();
+        second.borrow();
+        assertEquals(0, registry.get("redis.pool.connections.idle").gauge().value());
+    }
+
+}
@@ -0,0 +1,26 @@
+package io.lettuce.test;
+
+import io.lettuce.test.config.WorkloadRunnerConfig.TestConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadExecutorsTest {
+
+    @Test
+    void fixedPoolNeedsAThreadPerWorkload() {
+        TestConfig config = new TestConfig();
+        config.setClients(2);
+        config.setConnectionsPerClient(2);
+        config.setThreadsPerConnection(2);
+
+        assertEquals(8, WorkloadExecutors.fixedPoolSize(config));
+
+        config.setExecutorThreads(16);
+        assertEquals(16, WorkloadExecutors.fixedPoolSize(config));
+
+        config.setExecutorThreads(4);
+        assertThrows(IllegalArgumentException.class, () -> WorkloadExecutors.fixedPoolSize(config));
+    }
+
+}
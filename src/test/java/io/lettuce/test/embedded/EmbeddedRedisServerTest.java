@@ -0,0 +1,173 @@
+package io.lettuce.test.embedded;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TransactionResult;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.lettuce.test.config.WorkloadRunnerConfig.EmbeddedServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedRedisServerTest {
+
+    private EmbeddedRedisServer server;
+
+    private RedisClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProtocolVersion.class)
+    void commands(ProtocolVersion protocol) throws Exception {
+        RedisCommands<String, String> redis = connect(new EmbeddedServerConfig(), protocol).sync();
+
+        assertEquals("PONG", redis.ping());
+        assertEquals("OK", redis.set("key", "value"));
+        assertEquals("value", redis.get("key"));
+        assertNull(redis.get("missing"));
+        assertEquals(1, redis.incr("counter"));
+        assertEquals(2, redis.incr("counter"));
+        assertThrows(RedisCommandExecutionException.class, () -> redis.incr("key"));
+
+        assertEquals(3, redis.lpush("list", "a", "b", "c"));
+        assertEquals(List.of("c", "b", "a"), redis.lrange("list", 0, -1));
+        assertEquals("OK", redis.ltrim("list", 0, 1));
+        assertEquals(List.of("c", "b"), redis.lrange("list", 0, -1));
+        assertThrows(RedisCommandExecutionException.class, () -> redis.get("list"));
+
+        assertEquals("OK", redis.mset(Map.of("m1", "1", "m2", "2")));
+        assertEquals(List.of(KeyValue.just("m1", "1"), KeyValue.empty("list"), KeyValue.just("m2", "2")),
+                redis.mget("m1", "list", "m2"));
+
+        assertEquals(2, redis.del("key", "list", "missing"));
+        assertEquals(0, redis.exists("key"));
+        assertThrows(RedisCommandExecutionException.class, () -> redis.expire("m1", 10));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProtocolVersion.class)
+    void mixCommands(ProtocolVersion protocol) throws Exception {
+        RedisCommands<String, String> redis = connect(new EmbeddedServerConfig(), protocol).sync();
+
+        assertTrue(redis.hset("hash", "field", "value"));
+        assertFalse(redis.hset("hash", "field", "updated"));
+        assertEquals("updated", redis.hget("hash", "field"));
+        assertNull(redis.hget("hash", "missing"));
+        assertEquals(Map.of("field", "updated"), redis.hgetall("hash"));
+
+        assertEquals(2, redis.sadd("set", "a", "b", "a"));
+        assertTrue(redis.sismember("set", "a"));
+        assertFalse(redis.sismember("set", "c"));
+        assertEquals(Set.of("a", "b"), redis.smembers("set"));
+
+        assertEquals(1, redis.zadd("zset", 2.5, "b"));
+        assertEquals(2, redis.zadd("zset", 1.0, "c", 2.5, "a"));
+        assertEquals(0, redis.zadd("zset", 3.0, "c"));
+        assertEquals(3.0, redis.zscore("zset", "c"));
+        assertNull(redis.zscore("zset", "missing"));
+        assertEquals(List.of("a", "b", "c"), redis.zrange("zset", 0, -1));
+        assertEquals(List.of("b"), redis.zrange("zset", 1, 1));
+
+        assertThrows(RedisCommandExecutionException.class, () -> redis.sadd("hash", "member"));
+        assertEquals(3, redis.dbsize());
+    }
+
+    @Test
+    void transaction() throws Exception {
+        RedisCommands<String, String> redis = connect(new EmbeddedServerConfig(), ProtocolVersion.RESP3).sync();
+
+        assertEquals("OK", redis.multi());
+        redis.set("tx", "1");
+        redis.incr("tx");
+        redis.lpush("tx", "wrong type");
+        TransactionResult result = redis.exec();
+
+        assertEquals(3, result.size());
+        assertEquals("OK", result.get(0));
+        assertEquals(2L, (Long) result.get(1));
+        assertInstanceOf(RedisCommandExecutionException.class, result.get(2));
+        assertEquals("2", redis.get("tx"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProtocolVersion.class)
+    void pubSub(ProtocolVersion protocol) throws Exception {
+        StatefulRedisConnection<String, String> publisher = connect(new EmbeddedServerConfig(), protocol);
+        StatefulRedisPubSubConnection<String, String> subscriber = client.connectPubSub();
+        BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        subscriber.addListener(new RedisPubSubAdapter<>() {
+
+            @Override
+            public void message(String channel, String message) {
+                messages.add(channel + ":" + message);
+            }
+
+        });
+
+        subscriber.sync().subscribe("channel");
+        assertEquals(1, publisher.sync().publish("channel", "hello"));
+        assertEquals("channel:hello", messages.poll(5, TimeUnit.SECONDS));
+
+        subscriber.sync().unsubscribe("channel");
+        assertEquals(0, publisher.sync().publish("channel", "dropped"));
+    }
+
+    @Test
+    void latencyKeepsReplyOrder() throws Exception {
+        EmbeddedServerConfig config = new EmbeddedServerConfig();
+        config.setLatency(Duration.ofMillis(20));
+        config.setJitter(Duration.ofMillis(20));
+        StatefulRedisConnection<String, String> connection = connect(config, ProtocolVersion.RESP3);
+
+        // Distinct replies per command, a reordered reply would complete the wrong future
+        long start = System.nanoTime();
+        List<RedisFuture<Long>> increments = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            connection.async().set("ordered:" + i, Integer.toString(i * 100));
+            increments.add(connection.async().incr("ordered:" + i));
+        }
+        for (int i = 0; i < increments.size(); i++) {
+            assertEquals(i * 100 + 1, increments.get(i).get(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+    }
+
+    private StatefulRedisConnection<String, String> connect(EmbeddedServerConfig config, ProtocolVersion protocol)
+            throws InterruptedException {
+        server = new EmbeddedRedisServer(config);
+        client = RedisClient.create(RedisURI.create(server.host(), server.port()));
+        client.setOptions(ClientOptions.builder().protocolVersion(protocol).build());
+        return client.connect();
+    }
+
+}
@@ -0,0 +1,76 @@
+package io.lettuce.test.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequentialKeyGeneratorTest {
+
+    @Test
+    void startsOverAtEndOfRange() {
+        SequentialKeyGenerator generator = new SequentialKeyGenerator("key-%d", 5, 7);
+
+        assertEquals("key-5", generator.nextKey());
+        assertEquals("key-6", generator.nextKey());
+        assertEquals("key-7", generator.nextKey());
+        assertEquals("key-5", generator.nextKey());
+    }
+
+    @Test
+    void partitionsCoverRangeExactlyOnce() {
+        int partitions = 3;
+        List<String> keys = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            SequentialKeyGenerator generator = new SequentialKeyGenerator("key-%d", 0, 9);
+            generator.partition(p, partitions);
+            // partition sizes are 4, 3 and 3
+            int partitionSize = p == 0 ? 4 : 3;
+            for (int i = 0; i < partitionSize; i++) {
+                keys.add(generator.nextKey());
+            }
+        }
+
+        assertEquals(10, keys.size());
+        assertEquals(10, new HashSet<>(keys).size(), "Each key should be generated exactly once");
+    }
+
+    @Test
+    void rejectsMorePartitionsThanKeys() {
+        SequentialKeyGenerator generator = new SequentialKeyGenerator("key-%d", 0, 2);
+
+        generator.partition(2, 3);
+        assertEquals("key-2", generator.nextKey());
+        assertThrows(IllegalArgumentException.class, () -> generator.partition(0, 4));
+    }
+
+    @Test
+    void staysWithinRangeWhenShared() throws InterruptedException {
+        SequentialKeyGenerator generator = new SequentialKeyGenerator("key-%d", 0, 99);
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(4);
+
+        for (int t = 0; t < 4; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    keys.add(generator.nextKey());
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        assertEquals(100, keys.size());
+        keys.forEach(key -> {
+            int value = Integer.parseInt(key.substring(4));
+            assertTrue(value >= 0 && value <= 99, "Key out of range: " + key);
+        });
+    }
+
+}
@@ -0,0 +1,79 @@
+package io.lettuce.test.generator;
+
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotAwareKeyGeneratorTest {
+
+    // Uneven split: node-a serves 1000 slots, node-b the other 15384
+    private final Partitions partitions = partitions(node("node-a", 7000, 0, 999), node("node-b", 7001, 1000, 16383));
+
+    @Test
+    void evenSpreadsAcrossNodes() {
+        SlotAwareKeyGenerator generator = new SlotAwareKeyGenerator("key-%d", 0, 100_000, SlotAwareKeyGenerator.Strategy.EVEN,
+                null, partitions);
+
+        Map<String, Integer> perNode = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            perNode.merge(partitions.getPartitionBySlot(SlotHash.getSlot(generator.nextKey())).getNodeId(), 1, Integer::sum);
+        }
+
+        assertEquals(5000, perNode.get("node-a"), 300);
+        assertEquals(5000, perNode.get("node-b"), 300);
+    }
+
+    @Test
+    void targetsNodeByAddress() {
+        SlotAwareKeyGenerator generator = new SlotAwareKeyGenerator("key-%d", 0, 100_000, SlotAwareKeyGenerator.Strategy.NODE,
+                "127.0.0.1:7000", partitions);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(SlotHash.getSlot(generator.nextKey()) < 1000);
+        }
+    }
+
+    @Test
+    void targetsSlotRanges() {
+        SlotAwareKeyGenerator generator = new SlotAwareKeyGenerator("key-%d", 0, 100_000, SlotAwareKeyGenerator.Strategy.SLOTS,
+                "100-199, 5000", partitions);
+
+        for (int i = 0; i < 1000; i++) {
+            int slot = SlotHash.getSlot(generator.nextKeyBytes());
+            assertTrue(slot >= 100 && slot <= 199 || slot == 5000, "slot " + slot);
+        }
+    }
+
+    @Test
+    void rejectsSelectionWithoutKeys() {
+        assertThrows(IllegalArgumentException.class, () -> new SlotAwareKeyGenerator("key-%d", 0, 10,
+                SlotAwareKeyGenerator.Strategy.NODE, "unknown:7000", partitions));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlotAwareKeyGenerator("key-%d", 0, 10, SlotAwareKeyGenerator.Strategy.SLOTS, "16384", partitions));
+        assertThrows(IllegalArgumentException.class, () -> SlotAwareKeyGenerator.parseStrategy("random"));
+    }
+
+    private static Partitions partitions(RedisClusterNode... nodes) {
+        Partitions partitions = new Partitions();
+        partitions.addAll(List.of(nodes));
+        return partitions;
+    }
+
+    private static RedisClusterNode node(String id, int port, int fromSlot, int toSlot) {
+        return new RedisClusterNode(RedisURI.create("127.0.0.1", port), id, true, null, 0, 0, 0,
+                IntStream.rangeClosed(fromSlot, toSlot).boxed().toList(),
+                Collections.unmodifiableSet(Set.of(RedisClusterNode.NodeFlag.UPSTREAM)));
+    }
+
+}
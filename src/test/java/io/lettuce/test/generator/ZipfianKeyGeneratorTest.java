@@ -0,0 +1,62 @@
+package io.lettuce.test.generator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfianKeyGeneratorTest {
+
+    @Test
+    void generatesKeysWithinRange() {
+        ZipfianKeyGenerator generator = new ZipfianKeyGenerator("key-%d", 100, 199, 0.99);
+        for (int i = 0; i < 10000; i++) {
+            int value = generator.nextIndex();
+            assertTrue(value >= 100 && value <= 199, "Key index out of range: " + value);
+        }
+    }
+
+    @Test
+    void firstKeysAreMostPopular() {
+        ZipfianKeyGenerator generator = new ZipfianKeyGenerator("key-%d", 0, 999, 0.99);
+        int[] counts = new int[1000];
+        for (int i = 0; i < 100000; i++) {
+            counts[generator.nextIndex()]++;
+        }
+
+        assertTrue(counts[0] > counts[1], "Key 0 should be more popular than key 1");
+        assertTrue(counts[1] > counts[500], "Key 1 should be more popular than key 500");
+    }
+
+    @Test
+    void scrambledZipfianGeneratesKeysWithinRange() {
+        ScrambledZipfianKeyGenerator generator = new ScrambledZipfianKeyGenerator("key-%d", 5, 15, 0.99);
+        for (int i = 0; i < 10000; i++) {
+            int value = generator.nextIndex();
+            assertTrue(value >= 5 && value <= 15, "Key index out of range: " + value);
+        }
+    }
+
+    @Test
+    void hotspotSendsOperationsToHotKeys() {
+        HotspotKeyGenerator generator = new HotspotKeyGenerator("key-%d", 0, 99, 0.1, 0.9);
+        int hot = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (generator.nextIndex() < 10) {
+                hot++;
+            }
+        }
+
+        assertEquals(0.9, hot / 100000.0, 0.02);
+    }
+
+    @Test
+    void latestWrapsAroundRange() {
+        LatestKeyGenerator generator = new LatestKeyGenerator("key-%d", 0, 9, 0.99, 1.0);
+        for (int i = 0; i < 25; i++) {
+            int value = generator.nextIndex();
+            assertTrue(value >= 0 && value <= 9, "Key index out of range: " + value);
+        }
+        assertEquals("key-6", generator.nextKey());
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.lettuce.test.metrics;
+
+import io.lettuce.test.metrics.CpuAccounting.ThreadCategory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CpuAccountingTest {
+
+    @Test
+    void threadCategories() {
+        assertEquals(ThreadCategory.EVENT_LOOP, ThreadCategory.of("lettuce-nioEventLoop-4-1"));
+        assertEquals(ThreadCategory.EVENT_LOOP, ThreadCategory.of("lettuce-epollEventLoop-4-2"));
+        assertEquals(ThreadCategory.COMPUTATION, ThreadCategory.of("lettuce-eventExecutorLoop-1-3"));
+        assertEquals(ThreadCategory.WORKLOAD, ThreadCategory.of("workload-12"));
+        assertEquals(ThreadCategory.WORKLOAD, ThreadCategory.of("ForkJoinPool-1-worker-1"));
+        assertEquals(ThreadCategory.OTHER, ThreadCategory.of("ForkJoinPool.commonPool-worker-1"));
+        assertEquals(ThreadCategory.OTHER, ThreadCategory.of("main"));
+    }
+
+    @Test
+    void accountsCpuAndAllocationsOfTheRun() {
+        CpuAccounting accounting = new CpuAccounting();
+        assertNull(accounting.usage());
+
+        accounting.start();
+        long checksum = 0;
+        for (int i = 0; i < 1024; i++) {
+            byte[] allocated = new byte[16 * 1024];
+            checksum += allocated.length;
+        }
+        // Process CPU time may only advance in scheduler ticks, keep the CPU busy for a few of them
+        long busyUntil = System.nanoTime() + 50_000_000;
+        while (System.nanoTime() < busyUntil) {
+            Thread.onSpinWait();
+        }
+        CpuAccounting.Usage usage = accounting.usage();
+
+        assertEquals(16 * 1024 * 1024, checksum);
+        assertTrue(usage.processCpuNanos() > 0);
+        assertTrue(usage.threadAllocatedBytes().get(ThreadCategory.of(Thread.currentThread().getName())) >= checksum,
+                usage.toString());
+        assertTrue(usage.allocatedBytes() >= checksum);
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.lettuce.test.metrics;
+
+import io.lettuce.test.config.TestRunProperties;
+import io.lettuce.test.util.RatePacer;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetricsProxyTest {
+
+    interface Commands {
+
+        String get(String key);
+
+        Object getStatefulConnection();
+
+    }
+
+    private MockClock clock;
+
+    private SimpleMeterRegistry registry;
+
+    private MetricsReporter metricsReporter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MockClock();
+        registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        CompositeMeterRegistry compositeMeterRegistry = new CompositeMeterRegistry(clock);
+        compositeMeterRegistry.add(registry);
+
+        metricsReporter = new MetricsReporter(compositeMeterRegistry, registry, mock(TaskScheduler.class),
+                new TestRunProperties());
+    }
+
+    @Test
+    void stalledCommandDelaysCommandsQueuedBehindIt() {
+        // Given: 1000 ops/s on the registry clock, the first command stalls for 100ms
+        RatePacer pacer = new RatePacer(1000, clock::monotonicTime);
+        Commands commands = metricsReporter.withMetrics(new Commands() {
+
+            private boolean stalled;
+
+            @Override
+            public String get(String key) {
+                if (!stalled) {
+                    stalled = true;
+                    clock.add(Duration.ofMillis(100));
+                }
+                return "value";
+            }
+
+            @Override
+            public Object getStatefulConnection() {
+                return this;
+            }
+
+        }, pacer);
+
+        // When: 10 more commands were due every 1ms while the first one stalled, non-commands in between
+        for (int i = 0; i <= 10; i++) {
+            commands.get("key");
+            commands.getStatefulConnection();
+        }
+
+        // Then: Their latency counts from their intended start, 99ms down to 90ms, and non-commands take no slot
+        Timer timer = registry.get(MetricsReporter.REDIS_OPERATION_DURATION).tag("command", "get").timer();
+        assertEquals(11, timer.count());
+        assertEquals(100 + (99 + 90) * 10 / 2, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(100, timer.max(TimeUnit.MILLISECONDS), 0.001);
+        assertTrue(registry.find(MetricsReporter.REDIS_OPERATION_DURATION).tag("command", "getStatefulConnection").timers()
+                .isEmpty());
+    }
+
+}
@@ -1,6 +1,15 @@
 package io.lettuce.test.metrics;
 
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandType;
 import io.lettuce.test.config.TestRunProperties;
+import io.micrometer.core.instrument.FunctionTimer;
 import io.micrometer.core.instrument.MockClock;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
@@ -10,7 +19,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.scheduling.TaskScheduler;
 
+import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -54,7 +67,7 @@ class MetricsReporterTest {
         recordLatency("DEL", OperationStatus.SUCCESS, 10);
 
         // When: Get latency stats
-        MetricsReporter.LatencyStats latencyStats = metricsReporter.getLatencyStats();
+        MetricsReporter.LatencyStats latencyStats = collectedLatencyStats();
 
         // Then: Max latency should be 100ms (the highest recorded latency)
         assertNotNull(latencyStats);
@@ -64,7 +77,7 @@ class MetricsReporterTest {
     @Test
     void testGetLatencyStatsWithNoCommands() {
         // When: Get latency stats without recording any commands
-        MetricsReporter.LatencyStats latencyStats = metricsReporter.getLatencyStats();
+        MetricsReporter.LatencyStats latencyStats = collectedLatencyStats();
 
         // Then: Should return default values (all 0.0 when no commands recorded)
         assertNotNull(latencyStats);
@@ -78,12 +91,12 @@ class MetricsReporterTest {
     void testGetLatencyStatsMaxIsUpdatedWithNewHigherLatency() {
         // Given: Record initial command with 30ms latency
         recordLatency("GET", OperationStatus.SUCCESS, 30);
-        MetricsReporter.LatencyStats stats1 = metricsReporter.getLatencyStats();
+        MetricsReporter.LatencyStats stats1 = collectedLatencyStats();
         double firstMax = stats1.max();
 
         // When: Record a new command with higher latency (80ms)
         recordLatency("SET", OperationStatus.SUCCESS, 80);
-        MetricsReporter.LatencyStats stats2 = metricsReporter.getLatencyStats();
+        MetricsReporter.LatencyStats stats2 = collectedLatencyStats();
         double secondMax = stats2.max();
 
         // Then: Max should be updated to the higher value
@@ -93,7 +106,7 @@ class MetricsReporterTest {
 
         // When: Record a new command with lower latency (30ms)
         recordLatency("SET", OperationStatus.SUCCESS, 30);
-        MetricsReporter.LatencyStats stats3 = metricsReporter.getLatencyStats();
+        MetricsReporter.LatencyStats stats3 = collectedLatencyStats();
 
         assertEquals(80.0, secondMax, 0.1, "Second max should be 80ms");
     }
@@ -105,13 +118,183 @@ class MetricsReporterTest {
         recordLatency("SET", OperationStatus.ERROR, 90);
 
         // When: Get latency stats
-        MetricsReporter.LatencyStats latencyStats = metricsReporter.getLatencyStats();
+        MetricsReporter.LatencyStats latencyStats = collectedLatencyStats();
 
         // Then: Max should include both success and error commands
         assertNotNull(latencyStats);
         assertEquals(90.0, latencyStats.max(), 0.1, "Max latency should include error commands and be 90ms");
     }
 
+    @Test
+    void testGetLatencyStatsContainsFullPercentileSpectrum() {
+        // Given: 1000 commands with latencies from 1ms to 1000ms
+        for (int i = 1; i <= 1000; i++) {
+            recordLatency("GET", OperationStatus.SUCCESS, i);
+        }
+
+        // When: Get latency stats
+        MetricsReporter.LatencyStats latencyStats = collectedLatencyStats();
+
+        // Then: Percentiles are exact within the histogram precision
+        assertEquals(1.0, latencyStats.min(), 0.01, "Min latency should be 1ms");
+        assertEquals(500.0, latencyStats.median(), 0.5, "Median latency should be 500ms");
+        assertEquals(990.0, latencyStats.p99(), 1.0, "P99 latency should be 990ms");
+        assertEquals(999.0, latencyStats.p999(), 1.0, "P99.9 latency should be 999ms");
+        assertEquals(1000.0, latencyStats.p9999(), 1.0, "P99.99 latency should be 1000ms");
+        assertEquals(1000.0, latencyStats.max(), 0.1, "Max latency should be 1000ms");
+    }
+
+    @Test
+    void testHdrCommandRecorderPublishesToCommandMeters() {
+        // Given: HdrHistogram backend with two GET commands and one failed SET recorded
+        metricsReporter.enableHdrCommandRecorder();
+        int get = metricsReporter.commandId("get");
+        int set = metricsReporter.commandId("set");
+
+        long start = metricsReporter.commandStartTime() - Duration.ofMillis(20).toNanos();
+        metricsReporter.recordCommandSuccess(get, start);
+        metricsReporter.recordCommandSuccess(get, start);
+        metricsReporter.recordCommandError(set, start);
+
+        // Then: Nothing is visible in the meters until published
+        assertNull(simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_DURATION).functionTimer());
+
+        // When: Publish recorded latencies
+        metricsReporter.publishCommandLatencies();
+
+        // Then: The interval histograms are published as function timers and percentile gauges of the same name
+        FunctionTimer getTimer = simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_DURATION).tag("command", "get")
+                .tag("status", "success").functionTimer();
+        assertNotNull(getTimer);
+        assertEquals(2, getTimer.count());
+        assertTrue(getTimer.totalTime(TimeUnit.MILLISECONDS) >= 40.0, "Total time should be at least 2 x 20ms");
+        assertTrue(
+                simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_DURATION + ".percentile").tag("command", "get")
+                        .tag("phi", "0.99").timeGauge().value(TimeUnit.MILLISECONDS) >= 20.0,
+                "P99 latency should be at least 20ms");
+        assertEquals(3, simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_DURATION_TOTAL).functionTimer().count());
+        assertNull(simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_DURATION_TOTAL).timer());
+        assertEquals(1.0, simpleMeterRegistry.find("redis.command.errors").tag("command", "set").counter().count());
+        assertTrue(collectedLatencyStats().max() >= 20.0, "Max latency should be at least 20ms");
+    }
+
+    @Test
+    void testLettuceCommandRecorderRecordsHandledCommands() {
+        // Given: Commands recorded by the connection handler, the command interfaces are not wrapped
+        metricsReporter.enableLettuceCommandRecorder();
+        CommandLatencyRecorder recorder = metricsReporter.commandLatencyRecorder();
+        List<String> commands = List.of();
+        assertSame(commands, metricsReporter.withMetrics(commands));
+
+        // When: Two GET replies, a failed SET and a MOVED reply followed by the cluster client
+        long latency = Duration.ofMillis(20).toNanos();
+        recorder.recordCommandLatency(null, null, command(CommandType.GET, null), 0, latency);
+        recorder.recordCommandLatency(null, null, command(CommandType.GET, null), 0, latency);
+        recorder.recordCommandLatency(null, null, command(CommandType.SET, "ERR wrong"), 0, latency);
+        recorder.recordCommandLatency(null, null, command(CommandType.GET, "MOVED 3999 127.0.0.1:7001"), 0, latency);
+        metricsReporter.publishCommandLatencies();
+
+        // Then: Published to the command meters under the lower case command name, without the redirection
+        FunctionTimer getTimer = simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_DURATION).tag("command", "get")
+                .tag("status", "success").functionTimer();
+        assertEquals(2, getTimer.count());
+        assertEquals(40.0, getTimer.totalTime(TimeUnit.MILLISECONDS), 0.1);
+        assertEquals(1.0, simpleMeterRegistry.find("redis.command.errors").tag("command", "set").counter().count());
+        assertNull(simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_DURATION).tag("command", "get")
+                .tag("status", "error").functionTimer());
+    }
+
+    @Test
+    void testSizeBucketsTagLatencyByPayloadSize() {
+        // Given: Size buckets up to 1KB, up to 16KB and larger
+        metricsReporter.enableSizeBuckets("1KB, 16KB");
+        int set = metricsReporter.commandId("set");
+        long start = metricsReporter.commandStartTime();
+
+        // When: Record commands of different payload sizes
+        metricsReporter.recordCommandSuccess(set, start, 100);
+        metricsReporter.recordCommandSuccess(set, start, 1024);
+        metricsReporter.recordCommandSuccess(set, start, 4096);
+        metricsReporter.recordCommandSuccess(set, start, 512 * 1024);
+
+        // Then: Latencies are recorded per size bucket, in addition to the command meters
+        assertEquals(2, sizeBucketTimer("<=1KB").count());
+        assertEquals(1, sizeBucketTimer("<=16KB").count());
+        assertEquals(1, sizeBucketTimer(">16KB").count());
+        assertEquals(4,
+                simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_DURATION).tag("command", "set").timer().count());
+    }
+
+    @Test
+    void testRoleMetricsTagLatencyByRoleOfServingNode() {
+        // Given: A shard with an upstream on port 7000 and its replica on port 7001
+        Partitions partitions = new Partitions();
+        partitions.add(new RedisClusterNode(RedisURI.create("127.0.0.1", 7000), "upstream-id", true, null, 0, 0, 0, List.of(0),
+                Set.of(RedisClusterNode.NodeFlag.UPSTREAM)));
+        partitions.add(new RedisClusterNode(RedisURI.create("127.0.0.1", 7001), "replica-id", true, "upstream-id", 0, 0, 0,
+                List.of(), Set.of(RedisClusterNode.NodeFlag.REPLICA)));
+        RoleMetrics roleMetrics = metricsReporter.roleMetrics();
+        roleMetrics.partitions(partitions);
+
+        // When: Commands complete on the replica, the upstream and an address outside the partitions
+        roleMetrics.recordCommandLatency(null, new InetSocketAddress("127.0.0.1", 7001), CommandType.GET, 0, 2_000_000);
+        roleMetrics.recordCommandLatency(null, new InetSocketAddress("127.0.0.1", 7001), CommandType.GET, 0, 2_000_000);
+        roleMetrics.recordCommandLatency(null, new InetSocketAddress("127.0.0.1", 7000), CommandType.SET, 0, 1_000_000);
+        roleMetrics.recordCommandLatency(null, new InetSocketAddress("127.0.0.1", 7002), CommandType.GET, 0, 1_000_000);
+
+        // Then: Latencies are tagged with the role and address of the serving node
+        assertEquals(2, simpleMeterRegistry.find("redis.role.operation.duration").tag("role", "replica")
+                .tag("node", "127.0.0.1:7001").tag("command", "GET").timer().count());
+        assertEquals(1, simpleMeterRegistry.find("redis.role.operation.duration").tag("role", "upstream")
+                .tag("node", "127.0.0.1:7000").tag("command", "SET").timer().count());
+        assertEquals(1, simpleMeterRegistry.find("redis.role.operation.duration").tag("role", "unknown").timer().count());
+    }
+
+    @Test
+    void testPayloadSizeCountsArgumentsAndResults() {
+        assertEquals(3 + 100, SizeBuckets.payloadSize(new Object[] { "key", new byte[100] }));
+        assertEquals(6, SizeBuckets.payloadSize(List.of("a", "bb", "ccc")));
+        assertEquals(0, SizeBuckets.payloadSize(42L));
+    }
+
+    @Test
+    void testGetLatencyStatsReadsTheLastCollectedInterval() {
+        // Given: A collected 30ms command and a 30.5ms command recorded after the collection
+        recordLatency("GET", OperationStatus.SUCCESS, 30);
+        metricsReporter.collectLatencies();
+        MetricsReporter.CommandKey commandKey = new MetricsReporter.CommandKey("GET", OperationStatus.SUCCESS);
+        Timer.Sample sample = Timer.start(simpleMeterRegistry);
+        mockClock.add(Duration.ofNanos(30_500_000));
+        metricsReporter.recordCommandLatency(commandKey, sample);
+
+        // When: Read the stats twice without collecting in between
+        MetricsReporter.LatencyStats first = metricsReporter.getLatencyStats();
+        MetricsReporter.LatencyStats second = metricsReporter.getLatencyStats();
+
+        // Then: Reading does not collect, the median stays the collected 30ms until the next collection
+        assertEquals(30.0, first.median(), 0.1);
+        assertEquals(30.0, second.median(), 0.1);
+        assertEquals(30.5, collectedLatencyStats().max(), 0.001, "Max latency should not be truncated to whole milliseconds");
+    }
+
+    private static Command<String, String, String> command(CommandType type, String error) {
+        Command<String, String, String> command = new Command<>(type, new StatusOutput<>(StringCodec.UTF8));
+        if (error != null) {
+            command.getOutput().setError(error);
+        }
+        return command;
+    }
+
+    private Timer sizeBucketTimer(String bucket) {
+        return simpleMeterRegistry.find(MetricsReporter.REDIS_OPERATION_SIZE_DURATION).tag("command", "set").tag("size", bucket)
+                .timer();
+    }
+
+    private MetricsReporter.LatencyStats collectedLatencyStats() {
+        metricsReporter.collectLatencies();
+        return metricsReporter.getLatencyStats();
+    }
+
     /**
      * Helper method to record a command latency with a specific duration.
      *
@@ -0,0 +1,29 @@
+package io.lettuce.test.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessIoTest {
+
+    @Test
+    void readsSyscallCounters(@TempDir Path dir) throws Exception {
+        Path file = Files.writeString(dir.resolve("io"),
+                "rchar: 3980\nwchar: 10\nsyscr: 9\nsyscw: 2\nread_bytes: 0\nwrite_bytes: 0\ncancelled_write_bytes: 0\n");
+
+        ProcessIo io = ProcessIo.read(file);
+        assertEquals(new ProcessIo(9, 2), io);
+        assertEquals(new ProcessIo(5, 1), io.since(new ProcessIo(4, 1)));
+    }
+
+    @Test
+    void missingCountersAreUnavailable(@TempDir Path dir) throws Exception {
+        assertNull(ProcessIo.read(dir.resolve("missing")));
+        assertNull(ProcessIo.read(Files.writeString(dir.resolve("io"), "rchar: 1\n")));
+    }
+
+}
@@ -0,0 +1,62 @@
+package io.lettuce.test.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandKeyword;
+import io.lettuce.core.protocol.CommandType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologyRefreshMetricsTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void refreshesCountTheTopologyRepliesParsed() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TopologyRefreshMetrics metrics = new TopologyRefreshMetrics(registry, 3);
+
+        // When: A refresh of 2 nodes parsing their CLUSTER NODES and INFO replies, other commands are ignored
+        metrics.recordCommandLatency(null, null, command(CommandType.CLUSTER, CommandKeyword.NODES, "0123456789"), 0, 0);
+        metrics.recordCommandLatency(null, null, command(CommandType.CLUSTER, CommandKeyword.NODES, "0123456789"), 0, 0);
+        metrics.recordCommandLatency(null, null, command(CommandType.INFO, null, "01234"), 0, 0);
+        metrics.recordCommandLatency(null, null, command(CommandType.GET, null, "0123456789"), 0, 0);
+        metrics.recordRefresh(4 * MS, 2, false);
+        metrics.recordRefresh(8 * MS, 2, true);
+
+        ObjectNode result = new ObjectMapper().createObjectNode();
+        metrics.putSummary(result, 60);
+
+        // Then
+        JsonNode summary = result.get("topology_refresh");
+        assertEquals(2, summary.get("refreshes").asLong());
+        assertEquals(1, summary.get("errors").asLong());
+        assertEquals(2.0, summary.get("refreshes_per_minute").asDouble(), 0.001);
+        assertEquals(4, summary.get("connections_opened").asLong());
+        assertEquals(25, summary.get("bytes_parsed").asLong());
+        assertEquals(8.0, summary.get("max_duration_ms").asDouble(), 0.01);
+        assertEquals(25.0, registry.get(TopologyRefreshMetrics.REDIS_CLUSTER_TOPOLOGY_LOAD_BYTES).summary().max());
+    }
+
+    private static Command<String, String, String> command(CommandType type, CommandKeyword keyword, String reply) {
+        CommandArgs<String, String> args = new CommandArgs<>(StringCodec.UTF8);
+        if (keyword != null) {
+            args.add(keyword);
+        }
+        StatusOutput<String, String> output = new StatusOutput<>(StringCodec.UTF8);
+        output.set(ByteBuffer.wrap(reply.getBytes(StandardCharsets.UTF_8)));
+        return new Command<>(type, output, args);
+    }
+
+}
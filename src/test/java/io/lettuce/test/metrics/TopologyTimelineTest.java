@@ -0,0 +1,145 @@
+package io.lettuce.test.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologyTimelineTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void impactCoversDegradedSecondsAfterTheChange() {
+        // Given: 10 seconds at 1000 ops/s and 1ms p99
+        TopologyTimeline timeline = new TopologyTimeline(new SimpleMeterRegistry(), 3);
+        for (int i = 1; i <= 10; i++) {
+            timeline.add(new TopologyTimeline.Second(i * 1000L, 1000, 0, MS, 2 * MS, 0, 0));
+        }
+
+        // When: A failover, then a throughput dip, a second of redirections and recovery
+        List<RedisClusterNode> before = List.of(node("a", true, 0, 16383), node("b", false, 0, -1));
+        List<RedisClusterNode> after = List.of(node("a", false, 0, -1), node("b", true, 0, 16383));
+        timeline.topologyChanged(before, after, 10_500);
+        timeline.topologyChanged(before, after, 10_600);
+        timeline.add(new TopologyTimeline.Second(11_000, 400, 5, 10 * MS, 800 * MS, 0, 0));
+        timeline.add(new TopologyTimeline.Second(12_000, 1000, 0, MS, 2 * MS, 30, 2));
+        for (int i = 13; i <= 16; i++) {
+            timeline.add(new TopologyTimeline.Second(i * 1000L, 1000, 0, MS, 2 * MS, 0, 0));
+        }
+
+        ObjectNode result = new ObjectMapper().createObjectNode();
+        timeline.putSummary(result);
+
+        // Then: One event for both notifications, degraded for 2 seconds
+        JsonNode events = result.get("topology").get("events");
+        assertEquals(1, events.size());
+        assertEquals("failover", events.get(0).get("kind").asText());
+        assertEquals(16384, events.get(0).get("slots_moved").asInt());
+        assertEquals(2, events.get(0).get("notifications").asInt());
+
+        JsonNode impact = events.get(0).get("impact");
+        assertEquals(2, impact.get("degraded_seconds").asInt());
+        assertEquals(600, impact.get("ops_lost").asLong());
+        assertEquals(800.0, impact.get("max_latency_ms").asDouble(), 0.001);
+        assertEquals(32, impact.get("redirections").asLong());
+        assertEquals(32, result.get("topology").get("redirections_moved").asLong()
+                + result.get("topology").get("redirections_ask").asLong());
+        assertFalse(result.get("topology").has("timeline"));
+    }
+
+    @Test
+    void impactIsKeptAfterItsSecondsAreDropped() {
+        // Given: A membership change with a dip of 1 second after 10 baseline seconds
+        TopologyTimeline timeline = new TopologyTimeline(new SimpleMeterRegistry(), 3);
+        for (int i = 1; i <= 10; i++) {
+            timeline.add(new TopologyTimeline.Second(i * 1000L, 1000, 0, MS, 2 * MS, 0, 0));
+        }
+        List<RedisClusterNode> before = List.of(node("a", true, 0, 16383));
+        timeline.topologyChanged(before, List.of(node("a", true, 0, 16383), node("b", false, 0, -1)), 10_500);
+        timeline.add(new TopologyTimeline.Second(11_000, 500, 0, MS, 2 * MS, 0, 0));
+
+        // When: The run goes on for longer than the seconds kept
+        for (int i = 12; i <= 12 + 2 * TopologyTimeline.KEPT_SECONDS; i++) {
+            timeline.add(new TopologyTimeline.Second(i * 1000L, 1000, 0, MS, 2 * MS, 0, 0));
+        }
+
+        ObjectNode result = new ObjectMapper().createObjectNode();
+        timeline.putSummary(result);
+
+        // Then: The impact was recorded when the change recovered
+        JsonNode event = result.get("topology").get("events").get(0);
+        assertEquals("membership", event.get("kind").asText());
+        assertEquals(1, event.get("impact").get("degraded_seconds").asInt());
+        assertEquals(500, event.get("impact").get("ops_lost").asLong());
+    }
+
+    @Test
+    void ticksCloseBoundedSecondsWithTheRecordedCommands() {
+        // Given: 10 seconds of 100 commands at 1ms
+        TopologyTimeline timeline = new TopologyTimeline(new SimpleMeterRegistry(), 3);
+        long nowMs = 0;
+        for (int i = 0; i < 10; i++) {
+            recordCommands(timeline, 100, MS);
+            timeline.tick(nowMs += 1000);
+        }
+
+        // When: A resharding, a second of redirected and slow commands, then a run longer than the seconds kept
+        List<RedisClusterNode> before = List.of(node("a", true, 0, 8191), node("b", true, 8192, 16383));
+        timeline.topologyChanged(before, List.of(node("a", true, 0, 9000), node("b", true, 9001, 16383)), nowMs + 100);
+        recordCommands(timeline, 100, 50 * MS);
+        timeline.redirection(false, "event");
+        timeline.redirection(true, "event");
+        timeline.tick(nowMs += 1000);
+        for (int i = 0; i < 2 * TopologyTimeline.KEPT_SECONDS; i++) {
+            recordCommands(timeline, 100, MS);
+            timeline.tick(nowMs += 1000);
+        }
+
+        ObjectNode result = new ObjectMapper().createObjectNode();
+        timeline.putSummary(result);
+
+        // Then: Only the seconds needed are kept, the redirections and the impact of the change are in the summary
+        assertEquals(TopologyTimeline.KEPT_SECONDS, timeline.keptSeconds());
+        JsonNode topology = result.get("topology");
+        assertEquals(1, topology.get("redirections_moved").asLong());
+        assertEquals(1, topology.get("redirections_ask").asLong());
+        JsonNode impact = topology.get("events").get(0).get("impact");
+        assertEquals(1, impact.get("degraded_seconds").asInt());
+        assertEquals(2, impact.get("redirections").asLong());
+        assertEquals(50.0, impact.get("peak_p99_latency_ms").asDouble(), 0.1);
+    }
+
+    @Test
+    void kindOfChange() {
+        List<RedisClusterNode> before = List.of(node("a", true, 0, 8191), node("b", true, 8192, 16383));
+
+        assertEquals("resharding",
+                TopologyTimeline.kind(before, List.of(node("a", true, 0, 9000), node("b", true, 9001, 16383))));
+        assertEquals("membership", TopologyTimeline.kind(before,
+                List.of(node("a", true, 0, 8191), node("b", true, 8192, 16383), node("c", false, 0, -1))));
+        assertEquals("other", TopologyTimeline.kind(before, before));
+    }
+
+    private static void recordCommands(TopologyTimeline timeline, int count, long timeNs) {
+        for (int i = 0; i < count; i++) {
+            timeline.record(timeNs, false);
+        }
+    }
+
+    private static RedisClusterNode node(String id, boolean upstream, int fromSlot, int toSlot) {
+        return new RedisClusterNode(RedisURI.create("127.0.0.1", 7000 + id.charAt(0)), id, true, null, 0, 0, 0,
+                IntStream.rangeClosed(fromSlot, toSlot).boxed().toList(),
+                Set.of(upstream ? RedisClusterNode.NodeFlag.UPSTREAM : RedisClusterNode.NodeFlag.REPLICA));
+    }
+
+}
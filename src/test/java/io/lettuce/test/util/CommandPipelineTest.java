@@ -0,0 +1,44 @@
+package io.lettuce.test.util;
+
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.test.metrics.MetricsReporter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CommandPipelineTest {
+
+    private final StatefulConnection<?, ?> connection = mock(StatefulConnection.class);
+
+    private final MetricsReporter metricsReporter = mock(MetricsReporter.class);
+
+    @Test
+    void flushesEveryDepthCommands() {
+        CommandPipeline pipeline = new CommandPipeline(connection, metricsReporter, 3, Duration.ZERO);
+        verify(connection).setAutoFlushCommands(false);
+
+        for (int i = 0; i < 7; i++) {
+            pipeline.commandIssued();
+        }
+
+        verify(connection, times(2)).flushCommands();
+        verify(metricsReporter, times(2)).recordPipelineFlush(anyLong(), eq(3));
+    }
+
+    @Test
+    void closeFlushesRemainingCommandsAndRestoresAutoFlush() {
+        CommandPipeline pipeline = new CommandPipeline(connection, metricsReporter, 10, Duration.ZERO);
+
+        pipeline.commandIssued();
+        pipeline.close();
+
+        verify(connection).flushCommands();
+        verify(metricsReporter).recordPipelineFlush(anyLong(), eq(1));
+        verify(connection).setAutoFlushCommands(true);
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.lettuce.test.util;
+
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightWindowTest {
+
+    @Test
+    void releasesSlotOnCompletion() {
+        InFlightWindow window = new InFlightWindow(2);
+
+        CompletableFuture<String> first = window.submit(CompletableFuture::new);
+        window.submit(CompletableFuture::new);
+        assertEquals(2, window.inFlight());
+
+        first.complete("OK");
+        assertEquals(1, window.inFlight());
+    }
+
+    @Test
+    void awaitAllTimesOutWithOutstandingCommands() {
+        InFlightWindow window = new InFlightWindow(2);
+
+        window.submit(CompletableFuture::new);
+
+        assertThrows(RedisCommandTimeoutException.class, () -> window.awaitAll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void awaitAllReportsFirstError() {
+        InFlightWindow window = new InFlightWindow(InFlightWindow.UNBOUNDED);
+
+        window.submit(() -> CompletableFuture.failedFuture(new RedisException("first")));
+        window.submit(() -> CompletableFuture.failedFuture(new RedisException("second")));
+
+        RedisException error = assertThrows(RedisException.class, () -> window.awaitAll(1, TimeUnit.SECONDS));
+        assertEquals("first", error.getMessage());
+        assertEquals(0, window.inFlight());
+    }
+
+}
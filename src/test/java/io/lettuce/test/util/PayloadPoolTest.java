@@ -0,0 +1,35 @@
+package io.lettuce.test.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadPoolTest {
+
+    @Test
+    void payloadsAreIncompressible() throws Exception {
+        PayloadPool pool = new PayloadPool(SizeDistribution.fixed(4096), 4);
+        assertEquals(4, pool.size());
+
+        byte[] payload = pool.next();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(payload);
+        }
+
+        assertEquals(4096, payload.length);
+        assertTrue(compressed.size() >= payload.length, "compressed to " + compressed.size() + " bytes");
+    }
+
+    @Test
+    void poolSizeIsBoundedByBytes() {
+        int size = (int) (PayloadPool.MAX_POOL_BYTES / 4);
+        PayloadPool pool = new PayloadPool(SizeDistribution.fixed(size), 100);
+
+        assertEquals(4, pool.size());
+    }
+
+}
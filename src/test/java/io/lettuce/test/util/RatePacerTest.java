@@ -0,0 +1,35 @@
+package io.lettuce.test.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatePacerTest {
+
+    @Test
+    void slotsAreSpacedByInterval() {
+        RatePacer pacer = new RatePacer(1000);
+
+        long first = pacer.acquire();
+        long second = pacer.acquire();
+
+        assertEquals(1_000_000, pacer.intervalNanos());
+        assertEquals(pacer.intervalNanos(), second - first);
+    }
+
+    @Test
+    void waitsUntilSlotIsDue() {
+        RatePacer pacer = new RatePacer(100);
+
+        pacer.acquire();
+        long slot = pacer.acquire();
+
+        assertTrue(System.nanoTime() >= slot, "acquire should not return before the slot is due");
+    }
+
+    @Test
+    void rejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new RatePacer(0));
+    }
+
+}
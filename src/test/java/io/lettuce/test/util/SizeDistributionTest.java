@@ -0,0 +1,72 @@
+package io.lettuce.test.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SizeDistributionTest {
+
+    @Test
+    void parsesSizeDistributions() {
+        assertEquals(100, SizeDistribution.parse("fixed:100").nextSize());
+
+        SizeDistribution uniform = SizeDistribution.parse("uniform:50-60");
+        for (int i = 0; i < 1000; i++) {
+            int size = uniform.nextSize();
+            assertTrue(size >= 50 && size <= 60, "size " + size);
+        }
+
+        SizeDistribution lognormal = SizeDistribution.parse("lognormal:1024,2.0,4096");
+        for (int i = 0; i < 1000; i++) {
+            int size = lognormal.nextSize();
+            assertTrue(size >= 1 && size <= 4096, "size " + size);
+        }
+
+        assertSame(uniform, SizeDistribution.parse("uniform:50-60"));
+        assertThrows(IllegalArgumentException.class, () -> SizeDistribution.parse("uniform:60-50"));
+        assertThrows(IllegalArgumentException.class, () -> SizeDistribution.parse("normal:100"));
+        assertThrows(IllegalArgumentException.class, () -> SizeDistribution.parse("100"));
+    }
+
+    @Test
+    void weightedBucketsFollowWeights() {
+        SizeDistribution weighted = SizeDistribution.parse("weighted:100=90,524288=0,1000-2000=10");
+
+        int small = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int size = weighted.nextSize();
+            if (size == 100) {
+                small++;
+            } else {
+                assertTrue(size >= 1000 && size <= 2000, "size " + size);
+            }
+        }
+
+        assertEquals(0.9, small / 100_000.0, 0.01);
+    }
+
+    @Test
+    void readsHistogramFile(@TempDir Path dir) throws Exception {
+        Path histogram = dir.resolve("sizes.txt");
+        Files.writeString(histogram, "# size weight\n64 3\n\n4096-8192, 1\n");
+
+        SizeDistribution distribution = SizeDistribution.parse("file:" + histogram);
+
+        int small = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int size = distribution.nextSize();
+            if (size == 64) {
+                small++;
+            } else {
+                assertTrue(size >= 4096 && size <= 8192, "size " + size);
+            }
+        }
+
+        assertEquals(0.75, small / 100_000.0, 0.01);
+    }
+
+}
@@ -0,0 +1,50 @@
+package io.lettuce.test.workloads.mix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandMixTest {
+
+    @Test
+    void picksCommandsByWeight() {
+        CommandMix mix = CommandMix.parse("GET 60%, HGETALL 30%, ZADD 10%, DEL 0%");
+
+        Map<MixCommand, Integer> counts = new EnumMap<>(MixCommand.class);
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            counts.merge(mix.next(), 1, Integer::sum);
+        }
+
+        assertEquals(0.6, counts.get(MixCommand.GET) / (double) samples, 0.01);
+        assertEquals(0.3, counts.get(MixCommand.HGETALL) / (double) samples, 0.01);
+        assertEquals(0.1, counts.get(MixCommand.ZADD) / (double) samples, 0.01);
+        assertNull(counts.get(MixCommand.DEL));
+    }
+
+    @Test
+    void acceptsRelativeWeights() {
+        CommandMix mix = CommandMix.parse("get:1,set:3");
+
+        int sets = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (mix.next() == MixCommand.SET) {
+                sets++;
+            }
+        }
+
+        assertEquals(0.75, sets / 100_000.0, 0.01);
+    }
+
+    @Test
+    void rejectsInvalidMix() {
+        assertThrows(IllegalArgumentException.class, () -> CommandMix.parse("FLUSHALL 100%"));
+        assertThrows(IllegalArgumentException.class, () -> CommandMix.parse("GET 50%, GET 50%"));
+        assertThrows(IllegalArgumentException.class, () -> CommandMix.parse("GET"));
+        assertThrows(IllegalArgumentException.class, () -> CommandMix.parse("GET 0%"));
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.lettuce.test.workloads.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceReaderTest {
+
+    private static final String MONITOR_LOG = """
+            OK
+            1339518083.107412 [0 127.0.0.1:60866] "set" "key:1" "value"
+            1339518083.107900 [0 127.0.0.1:60866] "get" "key:1"
+            1339518083.200000 [0 lua] "hset" "hash" "field" "a \\"quoted\\" \\\\ value\\x41\\n"
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsMonitorLog() throws Exception {
+        Path trace = dir.resolve("monitor.log");
+        Files.writeString(trace, MONITOR_LOG);
+
+        List<List<String>> commands = readAll(trace, 16);
+
+        assertEquals(List.of(List.of("set", "key:1", "value"), List.of("get", "key:1"),
+                List.of("hset", "hash", "field", "a \"quoted\" \\ valueA\n")), commands);
+    }
+
+    @Test
+    void readsTimestampsInNanoseconds() throws Exception {
+        Path trace = dir.resolve("monitor.log");
+        Files.writeString(trace, MONITOR_LOG);
+
+        try (TraceReader reader = new TraceReader(trace)) {
+            TraceRecord record = new TraceRecord();
+            assertTrue(reader.next(record));
+            assertEquals(1339518083_107412000L, record.timestampNanos());
+            assertTrue(reader.next(record));
+            assertEquals(1339518083_107900000L, record.timestampNanos());
+        }
+    }
+
+    @Test
+    void convertsMonitorLogToBinaryTrace() throws Exception {
+        Path monitor = dir.resolve("monitor.log");
+        Path binary = dir.resolve("trace.bin");
+        Files.writeString(monitor, MONITOR_LOG);
+
+        TraceWriter.convert(monitor, binary);
+
+        assertEquals(readAll(monitor, TraceReader.DEFAULT_WINDOW_SIZE), readAll(binary, 16));
+        assertTrue(Files.size(binary) < Files.size(monitor));
+    }
+
+    private static List<List<String>> readAll(Path trace, int windowSize) throws Exception {
+        List<List<String>> commands = new ArrayList<>();
+        try (TraceReader reader = new TraceReader(trace, windowSize)) {
+            TraceRecord record = new TraceRecord();
+            while (reader.next(record)) {
+                List<String> args = new ArrayList<>();
+                for (int i = 0; i < record.argc(); i++) {
+                    ByteBuffer arg = record.arg(i).duplicate();
+                    byte[] bytes = new byte[arg.remaining()];
+                    arg.get(bytes);
+                    args.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+                commands.add(args);
+            }
+        }
+        return commands;
+    }
+
+}